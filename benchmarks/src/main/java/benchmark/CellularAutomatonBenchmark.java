@@ -0,0 +1,62 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.CellularAutomaton;
+import model.Tile;
+import model.TerrainGenerator;
+import model.TiledMap;
+
+/**
+ *
+ * Benchmarks advancing a square noise terrain map by generations of a
+ * cellular automaton spreading trees into grass.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CellularAutomatonBenchmark {
+
+	@Param({ "1024", "4096" })
+	int size;
+
+	private CellularAutomaton automaton;
+
+	@Setup(Level.Trial)
+	public void createMap() {
+		TiledMap map = new TiledMap(size, size, Tile.Grass);
+		new TerrainGenerator(42L).generate(map);
+		automaton = new CellularAutomaton(map, CellularAutomaton.spreading(Tile.Tree, Tile.Grass, 3));
+	}
+
+	@Benchmark
+	public boolean step() {
+		return automaton.step();
+	}
+
+	@Benchmark
+	public boolean stepTen() {
+		return automaton.step(10);
+	}
+}
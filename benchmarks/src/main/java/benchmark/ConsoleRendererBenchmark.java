@@ -0,0 +1,87 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Tileable;
+import model.TiledMap;
+import view.ConsoleRenderer;
+
+/**
+ *
+ * Benchmarks the cost of a ConsoleRenderer frame, written to a stream that
+ * discards it. The edited frames change a small area between frames, which
+ * the animated renderer redraws row by row.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConsoleRendererBenchmark {
+
+	@Param({ "80", "256", "1024" })
+	int size;
+
+	@Param({ "Tile", "IndoorTile" })
+	String family;
+
+	@Param({ "false", "true" })
+	boolean animated;
+
+	private TiledMap map;
+	private ConsoleRenderer renderer;
+	private Tileable[] fills;
+	private int frame;
+
+	@Setup(Level.Trial)
+	public void createMap() {
+		map = new TiledMap(size, size, Families.base(family));
+		map.setTerrainRandomly(0, 0, size, size, 42L);
+		fills = new Tileable[] { Families.fill(family), Families.border(family) };
+
+		PrintStream discard = new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		});
+		renderer = new ConsoleRenderer(discard, animated);
+		renderer.render(map);
+	}
+
+	@Benchmark
+	public void unchangedFrame() {
+		renderer.render(map);
+	}
+
+	@Benchmark
+	public void editedFrame() {
+		frame++;
+		map.setTerrain(size / 2, size / 2, 8, 8, fills[frame & 1]);
+		renderer.render(map);
+	}
+}
@@ -0,0 +1,45 @@
+package benchmark;
+
+import model.IndoorTile;
+import model.Tile;
+import model.Tileable;
+
+/**
+ *
+ * The tile type families benchmarked, named as in the benchmarks' family
+ * parameter.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+final class Families {
+
+	private Families() {
+	}
+
+	/**
+	 * @param family "Tile" or "IndoorTile"
+	 * @return the family's default tile
+	 */
+	static Tileable base(String family) {
+		return family.equals("IndoorTile") ? IndoorTile.Floor : Tile.Grass;
+	}
+
+	/**
+	 * @param family "Tile" or "IndoorTile"
+	 * @return an impassable tile of the family, used for fills
+	 */
+	static Tileable fill(String family) {
+		return family.equals("IndoorTile") ? IndoorTile.Desk : Tile.Rock;
+	}
+
+	/**
+	 * @param family "Tile" or "IndoorTile"
+	 * @return a tile of the family used for borders
+	 */
+	static Tileable border(String family) {
+		return family.equals("IndoorTile") ? IndoorTile.Window : Tile.Fence;
+	}
+}
@@ -0,0 +1,89 @@
+package benchmark;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Tileable;
+import model.TiledMap;
+import view.JPanelRenderer;
+
+/**
+ *
+ * Benchmarks the cost of a JPanelRenderer frame. Painting happens on the
+ * Swing event thread, so each frame waits for the event queue to drain,
+ * which includes the repaint the frame requested.
+ *
+ * This benchmark opens a window, so it needs a display.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JPanelRendererBenchmark {
+
+	@Param({ "80", "256" })
+	int size;
+
+	@Param({ "Tile", "IndoorTile" })
+	String family;
+
+	private TiledMap map;
+	private JPanelRenderer renderer;
+	private Tileable[] fills;
+	private int frame;
+
+	@Setup(Level.Trial)
+	public void createMap() throws InterruptedException, InvocationTargetException {
+		map = new TiledMap(size, size, Families.base(family));
+		map.setTerrainRandomly(0, 0, size, size, 42L);
+		fills = new Tileable[] { Families.fill(family), Families.border(family) };
+
+		renderer = JPanelRenderer.getInstance();
+		renderer.setTileSize(Math.max(1, 800 / size));
+		renderer.render(map);
+		drain();
+	}
+
+	@Benchmark
+	public void fullFrame() throws InterruptedException, InvocationTargetException {
+		renderer.render(map);
+		drain();
+	}
+
+	@Benchmark
+	public void editedFrame() throws InterruptedException, InvocationTargetException {
+		frame++;
+		map.setTerrain(size / 2, size / 2, 8, 8, fills[frame & 1]);
+		drain();
+	}
+
+	/**
+	 * Waits until the event thread has handled everything queued so far
+	 */
+	private static void drain() throws InterruptedException, InvocationTargetException {
+		SwingUtilities.invokeAndWait(() -> {
+		});
+	}
+}
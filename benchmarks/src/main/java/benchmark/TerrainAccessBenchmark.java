@@ -0,0 +1,126 @@
+package benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.TiledMap;
+
+/**
+ *
+ * Benchmarks reading a whole map through getTerrain in row order, column
+ * order and random order, and through getTerrainRow. Each benchmark counts
+ * the passable tiles, so every read is used.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TerrainAccessBenchmark {
+
+	@Param({ "256", "1024", "4096" })
+	int size;
+
+	@Param({ "Tile", "IndoorTile" })
+	String family;
+
+	private TiledMap map;
+	private int[] randomOrder;
+	private byte[] row;
+	private boolean[] passable;
+
+	@Setup(Level.Trial)
+	public void createMap() {
+		map = new TiledMap(size, size, Families.base(family));
+		map.setTerrainRandomly(0, 0, size, size, 42L);
+		row = new byte[size];
+
+		// the same tiles as the other benchmarks, visited in a shuffled order
+		randomOrder = new int[size * size];
+		for (int k = 0; k < randomOrder.length; k++) {
+			randomOrder[k] = k;
+		}
+		SplittableRandom random = new SplittableRandom(7);
+		for (int k = randomOrder.length - 1; k > 0; k--) {
+			int swap = random.nextInt(k + 1);
+			int value = randomOrder[k];
+			randomOrder[k] = randomOrder[swap];
+			randomOrder[swap] = value;
+		}
+
+		passable = new boolean[map.getTileTypes().length];
+		for (int k = 0; k < passable.length; k++) {
+			passable[k] = map.getTileTypes()[k].isPassable();
+		}
+	}
+
+	@Benchmark
+	public int rowOrder() {
+		int count = 0;
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				if (map.getTerrain(x, y).isPassable()) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int columnOrder() {
+		int count = 0;
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (map.getTerrain(x, y).isPassable()) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int randomOrder() {
+		int count = 0;
+		for (int cell : randomOrder) {
+			if (map.getTerrain(cell % size, cell / size).isPassable()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int terrainRows() {
+		int count = 0;
+		for (int y = 0; y < size; y++) {
+			map.getTerrainRow(y, row);
+			for (int x = 0; x < size; x++) {
+				if (passable[row[x]]) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+}
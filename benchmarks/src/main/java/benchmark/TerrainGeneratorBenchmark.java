@@ -0,0 +1,60 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Tile;
+import model.TerrainGenerator;
+import model.TiledMap;
+
+/**
+ *
+ * Benchmarks generating noise terrain over a whole square map, with a new
+ * seed each time.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TerrainGeneratorBenchmark {
+
+	@Param({ "256", "1024" })
+	int size;
+
+	@Param({ "1", "5" })
+	int octaves;
+
+	private TiledMap map;
+	private long seed;
+
+	@Setup(Level.Trial)
+	public void createMap() {
+		map = new TiledMap(size, size, Tile.Grass);
+	}
+
+	@Benchmark
+	public boolean generate() {
+		TerrainGenerator generator = new TerrainGenerator(seed++);
+		generator.setOctaves(octaves);
+		return generator.generate(map);
+	}
+}
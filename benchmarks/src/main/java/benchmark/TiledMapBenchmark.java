@@ -0,0 +1,87 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Tileable;
+import model.TiledMap;
+
+/**
+ *
+ * Benchmarks the TiledMap mutators and area queries on a square map of
+ * random tiles.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TiledMapBenchmark {
+
+	@Param({ "256", "1024", "4096" })
+	int size;
+
+	@Param({ "Tile", "IndoorTile" })
+	String family;
+
+	private TiledMap map;
+	private Tileable fill;
+	private Tileable border;
+	private long seed;
+
+	@Setup(Level.Trial)
+	public void createMap() {
+		map = new TiledMap(size, size, Families.base(family));
+		map.setTerrainRandomly(0, 0, size, size, 42L);
+		fill = Families.fill(family);
+		border = Families.border(family);
+	}
+
+	@Benchmark
+	public boolean setTerrain() {
+		return map.setTerrain(size / 4, size / 4, size / 2, size / 2, fill);
+	}
+
+	@Benchmark
+	public boolean setTerrainRandomly() {
+		return map.setTerrainRandomly(0, 0, size, size);
+	}
+
+	@Benchmark
+	public boolean setTerrainRandomlySeeded() {
+		return map.setTerrainRandomly(0, 0, size, size, seed++);
+	}
+
+	@Benchmark
+	public boolean setBorder() {
+		return map.setBorder(border, 2);
+	}
+
+	@Benchmark
+	public double getPassableArea() {
+		return map.getPassableArea();
+	}
+
+	@Benchmark
+	public long getPassableCount() {
+		return map.getPassableCount(size / 8, size / 8, size / 2, size / 2);
+	}
+}
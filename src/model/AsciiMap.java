@@ -0,0 +1,214 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ *
+ * AsciiMap reads a map back from the text written by ConsoleRenderer, one
+ * line per row with each tile drawn as its toChar() character.
+ *
+ * The file is memory mapped and read in two parallel passes. The first
+ * finds where each line starts, a block of the file per task. The second
+ * fills the map's rows in stripes, translating each character through a
+ * table from character to tile ordinal. Every line must be as long as the
+ * first, and may end with either "\n" or "\r\n".
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public final class AsciiMap {
+
+	// the part of the file searched for line ends by one task
+	private static final int BLOCK_BYTES = 1 << 24;
+
+	private static final byte UNKNOWN = -1;
+
+	private AsciiMap() {
+	}
+
+	/**
+	 * Loads a map from a text file
+	 *
+	 * @param file the file read
+	 * @param tileType any member of the tile type family the map is drawn in
+	 * @return the map, whose first line is row 0 as for getTerrain
+	 * @throws IOException if the file cannot be read, or is not a map
+	 */
+	public static TiledMap load(File file, Tileable tileType) throws IOException {
+		Tileable[] tileTypes = tileType.getClass().getEnumConstants();
+		byte[] ordinals = lookupTable(tileTypes);
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			long[] lines = findLines(channel, size);
+			int height = lines.length - 1;
+			if (height == 0) {
+				throw new IOException("Invalid map file: " + file + " is empty");
+			}
+
+			int[] rowWindow = new int[height];
+			int[] rowStart = new int[height];
+			MappedByteBuffer[] windows = MapFile.map(channel, lines, rowWindow, rowStart);
+			int width = lineWidth(windows[0], 0, (int) (lines[1] - lines[0]));
+			if (width <= 0) {
+				throw new IOException("Invalid map file: " + file + " starts with an empty line");
+			}
+
+			Lines source = new Lines(width, ordinals, lines, windows, rowWindow, rowStart);
+			TiledMap map = new TiledMap(width, height, tileTypes[0]);
+			if (!map.load(source)) {
+				throw new IOException("Invalid map file: line " + (source.badLine.get() + 1)
+						+ " has the wrong length or an unknown tile");
+			}
+			return map;
+		}
+	}
+
+	/**
+	 * Builds the table from each character to its tile's ordinal
+	 */
+	private static byte[] lookupTable(Tileable[] tileTypes) throws IOException {
+		byte[] ordinals = new byte[256];
+		Arrays.fill(ordinals, UNKNOWN);
+		for (Tileable tileType : tileTypes) {
+			char c = tileType.toChar();
+			if (c > 0xff || ordinals[c] != UNKNOWN) {
+				throw new IOException("Invalid tile character: " + tileType + " '" + c + "'");
+			}
+			ordinals[c] = (byte) tileType.ordinal();
+		}
+		return ordinals;
+	}
+
+	/**
+	 * Finds where each line starts, searching blocks of the file in parallel
+	 *
+	 * @return the offset of each line, followed by the end of the last
+	 */
+	private static long[] findLines(FileChannel channel, long size) throws IOException {
+		int blocks = (int) ((size + BLOCK_BYTES - 1) / BLOCK_BYTES);
+		MappedByteBuffer[] buffers = new MappedByteBuffer[blocks];
+		for (int b = 0; b < blocks; b++) {
+			long from = (long) b * BLOCK_BYTES;
+			buffers[b] = channel.map(MapMode.READ_ONLY, from, Math.min(BLOCK_BYTES, size - from));
+		}
+
+		// the offset after each newline, block by block
+		long[][] found = new long[blocks][];
+		int[] counts = new int[blocks];
+		IntStream.range(0, blocks).parallel().forEach(b -> {
+			ByteBuffer block = buffers[b];
+			long from = (long) b * BLOCK_BYTES;
+			long[] starts = new long[64];
+			int count = 0;
+			for (int i = 0; i < block.limit(); i++) {
+				if (block.get(i) == '\n') {
+					if (count == starts.length) {
+						starts = Arrays.copyOf(starts, count * 2);
+					}
+					starts[count++] = from + i + 1;
+				}
+			}
+			found[b] = starts;
+			counts[b] = count;
+		});
+
+		int total = 0;
+		long end = 0;
+		for (int b = 0; b < blocks; b++) {
+			total += counts[b];
+			if (counts[b] > 0) {
+				end = found[b][counts[b] - 1];
+			}
+		}
+
+		// a last line without a newline ends at the end of the file
+		long[] lines = new long[total + (end < size ? 2 : 1)];
+		int next = 1;
+		for (int b = 0; b < blocks; b++) {
+			System.arraycopy(found[b], 0, lines, next, counts[b]);
+			next += counts[b];
+		}
+		if (end < size) {
+			lines[next] = size;
+		}
+		return lines;
+	}
+
+	/**
+	 * @return the number of characters in a line, not counting its end
+	 */
+	private static int lineWidth(ByteBuffer window, int start, int length) {
+		if (length > 0 && window.get(start + length - 1) == '\n') {
+			length--;
+			if (length > 0 && window.get(start + length - 1) == '\r') {
+				length--;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * The mapped lines of a file, read as rows of a map
+	 */
+	private static final class Lines implements RowSource {
+
+		private final int width;
+		private final byte[] ordinals;
+		private final long[] lines;
+		private final MappedByteBuffer[] windows;
+		private final int[] rowWindow;
+		private final int[] rowStart;
+
+		// the first line found to be invalid
+		final AtomicInteger badLine = new AtomicInteger(Integer.MAX_VALUE);
+
+		Lines(int width, byte[] ordinals, long[] lines, MappedByteBuffer[] windows, int[] rowWindow,
+				int[] rowStart) {
+			this.width = width;
+			this.ordinals = ordinals;
+			this.lines = lines;
+			this.windows = windows;
+			this.rowWindow = rowWindow;
+			this.rowStart = rowStart;
+		}
+
+		@Override
+		public boolean readRow(int y, byte[] cells, int offset) {
+			ByteBuffer window = windows[rowWindow[y]];
+			int start = rowStart[y];
+			if (lineWidth(window, start, (int) (lines[y + 1] - lines[y])) != width) {
+				return invalid(y);
+			}
+
+			// copy the characters, then translate them in place
+			ByteBuffer line = window.duplicate();
+			line.position(start);
+			line.get(cells, offset, width);
+			for (int j = offset; j < offset + width; j++) {
+				byte ordinal = ordinals[cells[j] & 0xff];
+				if (ordinal == UNKNOWN) {
+					return invalid(y);
+				}
+				cells[j] = ordinal;
+			}
+			return true;
+		}
+
+		private boolean invalid(int y) {
+			badLine.accumulateAndGet(y, Math::min);
+			return false;
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package model;
+
+/**
+ *
+ * A CellRule decides each tile's next type in a CellularAutomaton from the
+ * tile's type and the types of its eight neighbours. Rules work on tile
+ * ordinals, so they run without decoding a Tileable per tile, and may be
+ * called by several threads at once.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public interface CellRule {
+
+	/**
+	 * Returns a tile's next type. The neighbour counts must not be changed.
+	 *
+	 * @param ordinal the tile's ordinal
+	 * @param neighbours the number of the eight neighbours of each ordinal;
+	 *        the last entry counts the neighbours outside the map, unless
+	 *        the automaton gives them a tile type
+	 * @return the ordinal of the tile's next type
+	 */
+	public int next(int ordinal, int[] neighbours);
+}
@@ -0,0 +1,308 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ *
+ * A CellularAutomaton advances a TiledMap by generations of a CellRule,
+ * which gives each tile's next type from its own type and the types of
+ * its eight neighbours. Every tile of a generation is decided from the
+ * generation before, so the order the tiles are visited never matters.
+ *
+ * The automaton copies the map into one of two grids of ordinals, each
+ * with a border of one tile round the map, and each generation writes the
+ * other grid from it before the two are swapped. The rows are divided
+ * into stripes advanced in parallel. A tile's neighbour counts are kept as
+ * the rule moves along a row, adding the column entering the neighbourhood
+ * and removing the one leaving it. Once the generations are run the final
+ * grid is compared with the map, a stripe at a time, and only the
+ * rectangle bounding each stripe's changed tiles is written back, all in
+ * one edit. A still life or a small moving pattern therefore costs the
+ * journal and the map's derived state nothing or little.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public final class CellularAutomaton {
+
+	// the number of rows advanced by one task
+	private static final int STRIPE_ROWS = 64;
+
+	private final TiledMap map;
+	private final CellRule rule;
+	private final int mapWidth;
+	private final int mapHeight;
+	private final int types;
+
+	// the ordinal of the border round the map, or types if it is outside
+	private int edge;
+
+	// the grids, each row padded by one tile either side, and created on first use
+	private byte[][] front;
+	private byte[][] back;
+
+	// input parameter validation return indicators
+	private static final boolean INVALID = false;
+	private static final boolean SUCCESS = true;
+
+	/**
+	 * @param map the map advanced
+	 * @param rule the rule giving each tile's next type
+	 */
+	public CellularAutomaton(TiledMap map, CellRule rule) {
+		this.map = map;
+		this.rule = rule;
+		this.mapWidth = map.getWidth();
+		this.mapHeight = map.getHeight();
+		this.types = map.getTileTypes().length;
+		this.edge = types;
+	}
+
+	/**
+	 * Sets the tile type the neighbours outside the map are counted as.
+	 * By default they are counted in the last entry of the neighbour
+	 * counts, apart from every tile type.
+	 *
+	 * @param tileType the tile type, or null to count them apart
+	 *
+	 * @return True if the edge was set successfully
+	 */
+	public boolean setEdge(Tileable tileType) {
+		if (tileType == null) {
+			edge = types;
+			return SUCCESS;
+		}
+		Tileable[] tileTypes = map.getTileTypes();
+		int ordinal = tileType.ordinal();
+		if (ordinal >= types || tileTypes[ordinal] != tileType) {
+			System.err.println("Invalid Tile type: "+tileType);
+			return INVALID;
+		}
+		edge = ordinal;
+		return SUCCESS;
+	}
+
+	/**
+	 * Advances the map by one generation
+	 *
+	 * @return True if the generation was applied successfully
+	 */
+	public boolean step() {
+		return step(1);
+	}
+
+	/**
+	 * Advances the map by a number of generations, writing the tiles that
+	 * changed back to the map once they have all run
+	 *
+	 * @param generations the number of generations
+	 *
+	 * @return True if the generations were applied successfully, or False
+	 * if the rule returned an ordinal outside the tile type family, in
+	 * which case the map is left unchanged
+	 */
+	public boolean step(int generations) {
+		if (generations < 0) {
+			System.err.println("Invalid Generations: "+generations);
+			return INVALID;
+		}
+		if (generations == 0 || mapWidth == 0 || mapHeight == 0) {
+			return SUCCESS;
+		}
+
+		load();
+		final int stripes = (mapHeight + STRIPE_ROWS - 1) / STRIPE_ROWS;
+		final AtomicBoolean invalid = new AtomicBoolean();
+		for (int g = 0; g < generations; g++) {
+			final byte[][] from = front;
+			final byte[][] to = back;
+			IntStream.range(0, stripes).parallel().forEach(s -> {
+				int fromRow = s * STRIPE_ROWS + 1;
+				int toRow = Math.min(mapHeight, fromRow - 1 + STRIPE_ROWS) + 1;
+				if (!advance(from, to, fromRow, toRow)) {
+					invalid.set(true);
+				}
+			});
+			if (invalid.get()) {
+				System.err.println("Invalid Rule result: not a tile ordinal");
+				return INVALID;
+			}
+			front = to;
+			back = from;
+		}
+
+		// each stripe's changed tiles are bounded, and only those rectangles written
+		final byte[][] result = front;
+		final int[] changed = new int[stripes * 4];
+		IntStream.range(0, stripes).parallel().forEach(s -> bound(result, s, changed));
+		int count = 0;
+		for (int s = 0; s < stripes; s++) {
+			if (changed[s * 4 + 2] > 0) {
+				System.arraycopy(changed, s * 4, changed, count++ * 4, 4);
+			}
+		}
+		map.fillRectangles(changed, count, (grid, r, fromRow, toRow, x, endX) -> {
+			for (int i = fromRow; i < toRow; i++) {
+				System.arraycopy(result[i + 1], x + 1, grid.writableRow(i), grid.rowOffset(i) + x, endX - x);
+			}
+		});
+		return SUCCESS;
+	}
+
+	/**
+	 * Returns a rule that smooths walls into caves. A wall or floor tile
+	 * becomes a wall if more than four of its neighbours are walls, and a
+	 * floor if fewer than four are; other tiles are left as they are.
+	 *
+	 * @param wall the wall tile type
+	 * @param floor the floor tile type
+	 * @return the rule
+	 */
+	public static CellRule smoothing(Tileable wall, Tileable floor) {
+		final int wallOrdinal = wall.ordinal();
+		final int floorOrdinal = floor.ordinal();
+		return (ordinal, neighbours) -> {
+			if (ordinal != wallOrdinal && ordinal != floorOrdinal) {
+				return ordinal;
+			}
+			int walls = neighbours[wallOrdinal];
+			if (walls > 4) {
+				return wallOrdinal;
+			}
+			return walls < 4 ? floorOrdinal : ordinal;
+		};
+	}
+
+	/**
+	 * Returns a rule that spreads one tile type into another, such as
+	 * water into grass. A tile of the type spread into becomes the
+	 * spreading type if enough of its neighbours are already that type.
+	 *
+	 * @param from the spreading tile type
+	 * @param into the tile type spread into
+	 * @param threshold the fewest neighbours of the spreading type, from 1 to 8
+	 * @return the rule
+	 */
+	public static CellRule spreading(Tileable from, Tileable into, int threshold) {
+		final int fromOrdinal = from.ordinal();
+		final int intoOrdinal = into.ordinal();
+		return (ordinal, neighbours) ->
+				ordinal == intoOrdinal && neighbours[fromOrdinal] >= threshold ? fromOrdinal : ordinal;
+	}
+
+	/**
+	 * Copies the map into the front grid and sets the border of both
+	 * grids, creating them on first use
+	 */
+	private void load() {
+		if (front == null) {
+			front = new byte[mapHeight + 2][mapWidth + 2];
+			back = new byte[mapHeight + 2][mapWidth + 2];
+		}
+		final TileGrid grid = map.getGrid();
+		final byte border = (byte) edge;
+		IntStream.range(0, mapHeight).parallel().forEach(i -> {
+			byte[] row = front[i + 1];
+			System.arraycopy(grid.rowArray(i), grid.rowOffset(i), row, 1, mapWidth);
+			row[0] = border;
+			row[mapWidth + 1] = border;
+			back[i + 1][0] = border;
+			back[i + 1][mapWidth + 1] = border;
+		});
+		for (byte[][] buffer : new byte[][][] { front, back }) {
+			Arrays.fill(buffer[0], border);
+			Arrays.fill(buffer[mapHeight + 1], border);
+		}
+	}
+
+	/**
+	 * Finds the rectangle bounding the tiles of one stripe that differ
+	 * between a grid and the map, storing its first column, first row,
+	 * column after the last and row after the last at changed[stripe * 4].
+	 * A stripe with no change is given an empty rectangle.
+	 */
+	private void bound(byte[][] grid, int stripe, int[] changed) {
+		TileGrid tiles = map.getGrid();
+		int fromRow = stripe * STRIPE_ROWS;
+		int toRow = Math.min(mapHeight, fromRow + STRIPE_ROWS);
+		int minX = mapWidth;
+		int maxX = -1;
+		int minRow = toRow;
+		int maxRow = -1;
+
+		for (int i = fromRow; i < toRow; i++) {
+			byte[] row = grid[i + 1];
+			byte[] cells = tiles.rowArray(i);
+			int offset = tiles.rowOffset(i) - 1;
+			int first = 1;
+			while (first <= mapWidth && row[first] == cells[offset + first]) {
+				first++;
+			}
+			if (first > mapWidth) {
+				continue;
+			}
+			int last = mapWidth;
+			while (row[last] == cells[offset + last]) {
+				last--;
+			}
+			minX = Math.min(minX, first - 1);
+			maxX = Math.max(maxX, last - 1);
+			minRow = Math.min(minRow, i);
+			maxRow = i;
+		}
+
+		int k = stripe * 4;
+		changed[k] = minX;
+		changed[k + 1] = minRow;
+		changed[k + 2] = maxX + 1;
+		changed[k + 3] = maxRow + 1;
+	}
+
+	/**
+	 * Writes the next generation of the padded rows [fromRow, toRow)
+	 *
+	 * @return False if the rule returned an ordinal outside the family
+	 */
+	private boolean advance(byte[][] from, byte[][] to, int fromRow, int toRow) {
+		int[] counts = new int[types + 1];
+		for (int r = fromRow; r < toRow; r++) {
+			byte[] up = from[r - 1];
+			byte[] mid = from[r];
+			byte[] down = from[r + 1];
+			byte[] out = to[r];
+
+			// the first two columns of the first neighbourhood
+			Arrays.fill(counts, 0);
+			for (int x = 0; x < 2; x++) {
+				counts[up[x] & 0xff]++;
+				counts[mid[x] & 0xff]++;
+				counts[down[x] & 0xff]++;
+			}
+
+			for (int x = 1; x <= mapWidth; x++) {
+				counts[up[x + 1] & 0xff]++;
+				counts[mid[x + 1] & 0xff]++;
+				counts[down[x + 1] & 0xff]++;
+
+				// the tile itself is not its own neighbour
+				int ordinal = mid[x] & 0xff;
+				counts[ordinal]--;
+				int next = rule.next(ordinal, counts);
+				counts[ordinal]++;
+				if (next < 0 || next >= types) {
+					return INVALID;
+				}
+				out[x] = (byte) next;
+
+				counts[up[x - 1] & 0xff]--;
+				counts[mid[x - 1] & 0xff]--;
+				counts[down[x - 1] & 0xff]--;
+			}
+		}
+		return SUCCESS;
+	}
+}
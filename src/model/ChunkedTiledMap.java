@@ -0,0 +1,800 @@
+package model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import view.MapRenderer;
+
+/**
+ *
+ * The ChunkedTiledMap class is a sparse Mappable for very large worlds.
+ *
+ * The map is divided into 64x64 tile chunks, which are grouped into regions
+ * of 64x64 chunks. Regions are only allocated once a tile inside them is
+ * written, and a chunk holding a single tile type is stored as that one
+ * value, including a chunk whose tiles become one type again after edits.
+ * Memory use is therefore proportional to the edited area of the map, and
+ * creating a map costs almost nothing regardless of its size.
+ *
+ * Co-ordinates follow TiledMap: getTerrain translates the y-axis so that the
+ * origin appears bottom-left, the setTerrain methods do not.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+final public class ChunkedTiledMap implements Mappable {
+
+	// chunks are CHUNK_SIZE x CHUNK_SIZE tiles, regions are
+	// CHUNK_SIZE x CHUNK_SIZE chunks
+	private static final int CHUNK_SHIFT = 6;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	private static final int REGION_SHIFT = 2 * CHUNK_SHIFT;
+	private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+
+	// The stored map dimensions
+	private int mapWidth;
+	private int mapHeight;
+
+	// The initial tile object is stored as a work-around, which is used to allow
+	// method getRandom() to be called on an instance object.
+	private Tileable initTile;
+	private Tileable[] tileTypes;
+	private boolean[] passable;
+	private byte defaultOrdinal;
+
+	// The region directory, null entries are entirely the default tile
+	private Region[] regions;
+	private int regionsX;
+
+	// The number of tiles of each type, kept up to date by every write
+	private long[] tileCounts;
+
+	private MapRenderer myRenderer;
+
+	// The listeners told of each rectangle written
+	private List<MapListener> listeners = new CopyOnWriteArrayList<>();
+
+	// input parameter validation return indicators
+	private static final boolean INVALID = false;
+	private static final boolean SUCCESS = true;
+
+	/**
+	 * A region of CHUNK_SIZE x CHUNK_SIZE chunks. A chunk without cells
+	 * holds a single tile type, which is stored in values. A chunk with
+	 * cells also counts its tiles of each type within the map, so it can
+	 * tell when they have become a single type again.
+	 */
+	private static final class Region {
+		final byte[] values = new byte[CHUNK_CELLS];
+		final byte[][] cells = new byte[CHUNK_CELLS][];
+		final int[][] counts = new int[CHUNK_CELLS][];
+
+		Region(byte ordinal) {
+			Arrays.fill(values, ordinal);
+		}
+	}
+
+	/**
+	 * Initialises the map tiles. No tile storage is allocated until
+	 * the map is edited.
+	 *
+	 * @param width the map width
+	 * @param height the map height
+	 * @param tileType the default tile type
+	 */
+	public ChunkedTiledMap(int width, int height, Tileable tileType) {
+		long regionsWide = ((long) width + (1 << REGION_SHIFT) - 1) >> REGION_SHIFT;
+		long regionsHigh = ((long) height + (1 << REGION_SHIFT) - 1) >> REGION_SHIFT;
+		if (width <= 0 || height <= 0 || regionsWide * regionsHigh > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Invalid map size: " + width + " by " + height);
+		}
+		mapWidth = width;
+		mapHeight = height;
+
+		initTile = tileType;
+		tileTypes = tileType.getClass().getEnumConstants();
+		defaultOrdinal = (byte) tileType.ordinal();
+		passable = new boolean[tileTypes.length];
+		for (int k = 0; k < tileTypes.length; k++) {
+			passable[k] = tileTypes[k].isPassable();
+		}
+
+		regionsX = (int) regionsWide;
+		regions = new Region[(int) (regionsWide * regionsHigh)];
+
+		tileCounts = new long[tileTypes.length];
+		tileCounts[defaultOrdinal] = (long) width * height;
+	}
+
+	/**
+	 * Initialises a chunked map as above, but also defines a map renderer
+	 *
+	 * @param width the map width
+	 * @param height the map height
+	 * @param tileType the default terrain type
+	 * @param renderer the initial renderer
+	 */
+	public ChunkedTiledMap(int width, int height, Tileable tileType, MapRenderer renderer) {
+		this(width, height, tileType);
+		setRenderer(renderer);
+	}
+
+	/**
+	 * Returns the width of the map
+	 *
+	 * @return the map's width
+	 */
+	public int getWidth() {
+		return mapWidth;
+	}
+
+	/**
+	 * Returns the height of the map
+	 *
+	 * @return the map's height
+	 */
+	public int getHeight() {
+		return mapHeight;
+	}
+
+	/**
+	 * Sets the map renderer
+	 *
+	 * @param renderer the User specified renderer
+	 */
+	public void setRenderer(MapRenderer renderer) {
+		this.myRenderer = renderer;
+	}
+
+	/**
+	 * Returns the Tile type at co-ordinate (x, y).
+	 *
+	 * @param x the map's x position
+	 * @param y the map's y position
+	 * @return the Tile type
+	 */
+	public Tileable getTerrain(int x, int y) {
+		return tileTypes[get(x, translateY(y))];
+	}
+
+	/**
+	 * Checks if the tile at co-ordinate (x, y) is passable. The co-ordinates
+	 * are the same as getTerrain's.
+	 *
+	 * @param x the map's x position
+	 * @param y the map's y position
+	 * @return True if the tile is passable
+	 */
+	public boolean isPassable(int x, int y) {
+		return passable[get(x, translateY(y))];
+	}
+
+	/**
+	 * Returns the map's tile type family, indexed by ordinal
+	 *
+	 * @return the tile types that can be stored in the map
+	 */
+	public Tileable[] getTileTypes() {
+		return tileTypes.clone();
+	}
+
+	/**
+	 * Copies the tile ordinals of row y into an array. Chunks are copied whole, and single valued
+	 * chunks are filled.
+	 *
+	 * @param y the map's y position
+	 * @param ordinals receives the row's ordinals, at least getWidth() long
+	 */
+	public void getTerrainRow(int y, byte[] ordinals) {
+		int row = translateY(y);
+		for (int x = 0; x < mapWidth; x += CHUNK_SIZE) {
+			int length = Math.min(CHUNK_SIZE, mapWidth - x);
+			Region region = regions[(row >>> REGION_SHIFT) * regionsX + (x >>> REGION_SHIFT)];
+			if (region == null) {
+				Arrays.fill(ordinals, x, x + length, defaultOrdinal);
+				continue;
+			}
+			int chunk = chunkIndex(x, row);
+			byte[] cells = region.cells[chunk];
+			if (cells == null) {
+				Arrays.fill(ordinals, x, x + length, region.values[chunk]);
+			} else {
+				System.arraycopy(cells, cellIndex(x, row), ordinals, x, length);
+			}
+		}
+	}
+
+	/**
+	 * Sets the Terrain area to the defined type.
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the new region's width
+	 * @param height the new region's height
+	 * @param tileType the Tile type
+	 *
+	 * @return True if terrain was set successfully
+	 */
+	public boolean setTerrain(int x, int y, int width, int height, Tileable tileType) {
+
+		// calculate the terrain end co-ordinate
+		int endX = x+width;
+		int endY = y+height;
+
+		if (!isInMap(x, y, endX, endY)){
+			System.err.println("Invalid Terrain parameters:"+"("+x+","+y+","+width+","+height+")");
+			return INVALID;
+		}
+		if (!isTileType(tileType)) {
+			System.err.println("Invalid Tile type: "+tileType);
+			return INVALID;
+		}
+
+		fill(x, y, endX, endY, (byte) tileType.ordinal());
+		return SUCCESS;
+	}
+
+	/**
+	 * Sets the Terrain area to a random type
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the new region's width
+	 * @param height the new region's height
+	 *
+	 * @return True if terrain was set successfully
+	 */
+	public boolean setTerrain(int x, int y, int width, int height) {
+		return setTerrain(x, y, width, height, initTile.getRandom());
+	}
+
+	/**
+	 * Sets the Terrain area's individual tiles randomly
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the new region's width
+	 * @param height the new region's height
+	 *
+	 * @return True if terrain was set successfully
+	 */
+	public boolean setTerrainRandomly(int x, int y, int width, int height) {
+
+		// calculate the terrain end co-ordinate
+		int endX = x+width;
+		int endY = y+height;
+
+		if (!isInMap(x, y, endX, endY)){
+			System.err.println("Invalid Terrain parameters:"+"("+x+","+y+","+width+","+height+")");
+			return INVALID;
+		}
+
+		for (int i = y; i < endY; i++) {
+			for (int j = x; j < endX; j++) {
+				set(j, i, (byte) initTile.getRandom().ordinal());
+			}
+		}
+		tilesChanged(x, y, endX, endY);
+		return SUCCESS;
+	}
+
+	/**
+	 * Sets the Terrain area's individual tiles randomly from a seed. The
+	 * tiles match those TiledMap produces for the same seed and area.
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the new region's width
+	 * @param height the new region's height
+	 * @param seed the random seed
+	 *
+	 * @return True if terrain was set successfully
+	 */
+	public boolean setTerrainRandomly(int x, int y, int width, int height, long seed) {
+
+		// calculate the terrain end co-ordinate
+		int endX = x+width;
+		int endY = y+height;
+
+		if (!isInMap(x, y, endX, endY)){
+			System.err.println("Invalid Terrain parameters:"+"("+x+","+y+","+width+","+height+")");
+			return INVALID;
+		}
+		if (width <= 0 || height <= 0) {
+			return SUCCESS;
+		}
+
+		SplittableRandom[] streams = RandomFill.streams(seed, height);
+		byte[] row = new byte[width];
+		for (int i = y; i < endY; i++) {
+			RandomFill.fillRow(streams[(i - y) / RandomFill.STRIPE_ROWS], row, 0, width, tileTypes.length);
+			for (int j = x; j < endX; j++) {
+				set(j, i, row[j - x]);
+			}
+		}
+		tilesChanged(x, y, endX, endY);
+		return SUCCESS;
+	}
+
+	/**
+	 * Calculates the percentage of passable area in the map
+	 *
+	 * @return percentage of passable area
+	 */
+	public double getPassableArea() {
+		double totalItems = (double) mapWidth * mapHeight;
+		double nonPassableItems = 0;
+
+		for (int k = 0; k < tileTypes.length; k++) {
+			if (!passable[k]) {
+				nonPassableItems += tileCounts[k];
+			}
+		}
+		return (1 - nonPassableItems / totalItems) * 100;
+	}
+
+	/**
+	 * Returns the number of tiles of a given type in the map
+	 *
+	 * @param tileType the tile type
+	 *
+	 * @return the number of tiles of that type
+	 */
+	public long getTileCount(Tileable tileType) {
+		if (!isTileType(tileType)) {
+			return 0;
+		}
+		return tileCounts[tileType.ordinal()];
+	}
+
+	/**
+	 * Returns the number of passable tiles in a rectangle. Single valued
+	 * chunks are counted without visiting their tiles.
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the region's width
+	 * @param height the region's height
+	 *
+	 * @return the number of passable tiles, or -1 if the region is invalid
+	 */
+	public long getPassableCount(int x, int y, int width, int height) {
+		return countRegion(x, y, width, height, passable);
+	}
+
+	/**
+	 * Returns the number of tiles of a given type in a rectangle. Single
+	 * valued chunks are counted without visiting their tiles.
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the region's width
+	 * @param height the region's height
+	 * @param tileType the tile type
+	 *
+	 * @return the number of tiles of that type, or -1 if the region is invalid
+	 */
+	public long getTileCount(int x, int y, int width, int height, Tileable tileType) {
+		// a type outside the family matches no tile
+		boolean[] match = new boolean[tileTypes.length];
+		if (isTileType(tileType)) {
+			match[tileType.ordinal()] = true;
+		}
+		return countRegion(x, y, width, height, match);
+	}
+
+	/**
+	 * Registers a listener to be told of every rectangle of tiles written
+	 *
+	 * @param listener the listener
+	 */
+	public void addMapListener(MapListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes a previously registered listener
+	 *
+	 * @param listener the listener
+	 */
+	public void removeMapListener(MapListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Draws the map using the user defined renderer.
+	 *
+	 */
+	public void render() {
+
+		if (myRenderer == null) {
+			System.out.println("Error: No render defined.");
+			return;
+		}
+		myRenderer.render(this);
+	}
+
+	/**
+	 * Draws a border around the map
+	 *
+	 * @param tileType the tile type
+	 * @param borderWidth the border width
+	 *
+	 * @return True is the border was set successfully
+	 */
+	public boolean setBorder(Tileable tileType, int borderWidth) {
+
+		if (borderWidth > mapWidth / 2 ){
+			System.err.println("Invalid Border set: "+borderWidth);
+			return INVALID;
+		}
+		if (!isTileType(tileType)) {
+			System.err.println("Invalid Tile type: "+tileType);
+			return INVALID;
+		}
+
+		// the top and bottom bands, then the sides between them
+		byte ordinal = (byte) tileType.ordinal();
+		int band = Math.min(borderWidth, mapHeight);
+		fill(0, 0, mapWidth, band, ordinal);
+		fill(0, Math.max(band, mapHeight - borderWidth), mapWidth, mapHeight, ordinal);
+		fill(0, band, borderWidth, mapHeight - band, ordinal);
+		fill(mapWidth - borderWidth, band, mapWidth, mapHeight - band, ordinal);
+		return SUCCESS;
+	}
+
+	/**
+	 *  Sets the tile map border with a default border width
+	 *
+	 * @param tileType the tile type
+	 *
+	 * @return True if border was set successfully
+	 */
+	public boolean setBorder(Tileable tileType) {
+		return setBorder(tileType, 1);
+	}
+
+	/**
+	 * Returns the ordinal at (x, row) in internal co-ordinates
+	 *
+	 * @param x the column
+	 * @param row the row
+	 * @return the tile ordinal
+	 * @throws ArrayIndexOutOfBoundsException if (x, row) is outside the map
+	 */
+	private byte get(int x, int row) {
+		if (x < 0 || x >= mapWidth || row < 0 || row >= mapHeight) {
+			throw new ArrayIndexOutOfBoundsException("Invalid position: (" + x + "," + row + ")");
+		}
+		Region region = regions[(row >>> REGION_SHIFT) * regionsX + (x >>> REGION_SHIFT)];
+		if (region == null) {
+			return defaultOrdinal;
+		}
+		int chunk = chunkIndex(x, row);
+		byte[] cells = region.cells[chunk];
+		if (cells == null) {
+			return region.values[chunk];
+		}
+		return cells[cellIndex(x, row)];
+	}
+
+	/**
+	 * Sets a single tile in internal co-ordinates
+	 *
+	 * @param x the column
+	 * @param row the row
+	 * @param ordinal the new tile ordinal
+	 */
+	private void set(int x, int row, byte ordinal) {
+		Region region = region(x, row);
+		int chunk = chunkIndex(x, row);
+		int chunkArea = chunkArea(x, row);
+		byte[] cells = region.cells[chunk];
+		if (cells == null) {
+			byte value = region.values[chunk];
+			if (value == ordinal) {
+				return;
+			}
+			cells = expand(region, chunk, chunkArea);
+		}
+		int[] counts = region.counts[chunk];
+		int cell = cellIndex(x, row);
+		tileCounts[cells[cell]]--;
+		counts[cells[cell]]--;
+		tileCounts[ordinal]++;
+		counts[ordinal]++;
+		cells[cell] = ordinal;
+		if (counts[ordinal] == chunkArea) {
+			collapse(region, chunk, ordinal);
+		}
+	}
+
+	/**
+	 * Fills the rectangle [x, endX) x [y, endY) in internal co-ordinates.
+	 * Chunks that are entirely covered collapse to a single value.
+	 *
+	 * @param x the first column
+	 * @param y the first row
+	 * @param endX the column after the last
+	 * @param endY the row after the last
+	 * @param ordinal the new tile ordinal
+	 */
+	private void fill(int x, int y, int endX, int endY, byte ordinal) {
+		if (endX <= x || endY <= y) {
+			return;
+		}
+		for (int cy = y >>> CHUNK_SHIFT; cy <= (endY - 1) >>> CHUNK_SHIFT; cy++) {
+			int chunkY = cy << CHUNK_SHIFT;
+			int fromY = Math.max(y, chunkY) - chunkY;
+			int toY = Math.min(endY, chunkY + CHUNK_SIZE) - chunkY;
+			int chunkHeight = Math.min(CHUNK_SIZE, mapHeight - chunkY);
+
+			for (int cx = x >>> CHUNK_SHIFT; cx <= (endX - 1) >>> CHUNK_SHIFT; cx++) {
+				int chunkX = cx << CHUNK_SHIFT;
+				int fromX = Math.max(x, chunkX) - chunkX;
+				int toX = Math.min(endX, chunkX + CHUNK_SIZE) - chunkX;
+				int chunkWidth = Math.min(CHUNK_SIZE, mapWidth - chunkX);
+
+				boolean covered = fromX == 0 && fromY == 0 && toX == chunkWidth && toY == chunkHeight;
+				fillChunk(chunkX, chunkY, fromX, fromY, toX, toY, covered, ordinal);
+			}
+		}
+		tilesChanged(x, y, endX, endY);
+	}
+
+	/**
+	 * Tells the listeners that [x, endX) x [y, endY) has been written,
+	 * translating the rectangle to getTerrain's co-ordinates
+	 */
+	private void tilesChanged(int x, int y, int endX, int endY) {
+		if (endX <= x || endY <= y) {
+			return;
+		}
+		for (MapListener listener : listeners) {
+			listener.tilesChanged(this, x, mapHeight - endY, endX - x, endY - y);
+		}
+	}
+
+	/**
+	 * Fills part of a chunk, given in chunk local co-ordinates
+	 */
+	private void fillChunk(int chunkX, int chunkY, int fromX, int fromY, int toX, int toY,
+			boolean covered, byte ordinal) {
+
+		Region region = regions[(chunkY >>> REGION_SHIFT) * regionsX + (chunkX >>> REGION_SHIFT)];
+		if (region == null) {
+			if (ordinal == defaultOrdinal) {
+				return;
+			}
+			region = region(chunkX, chunkY);
+		}
+		int chunk = chunkIndex(chunkX, chunkY);
+		int chunkArea = chunkArea(chunkX, chunkY);
+		byte[] cells = region.cells[chunk];
+		int area = (toX - fromX) * (toY - fromY);
+
+		if (cells == null) {
+			byte value = region.values[chunk];
+			if (value == ordinal) {
+				return;
+			}
+			tileCounts[value] -= area;
+			tileCounts[ordinal] += area;
+			if (covered) {
+				region.values[chunk] = ordinal;
+				return;
+			}
+			cells = expand(region, chunk, chunkArea);
+			region.counts[chunk][value] -= area;
+			region.counts[chunk][ordinal] += area;
+		} else {
+			int[] counts = region.counts[chunk];
+			for (int i = fromY; i < toY; i++) {
+				for (int j = fromX; j < toX; j++) {
+					byte old = cells[(i << CHUNK_SHIFT) + j];
+					tileCounts[old]--;
+					counts[old]--;
+				}
+			}
+			tileCounts[ordinal] += area;
+			counts[ordinal] += area;
+
+			// the chunk is a single type once the fill covers every other tile
+			if (covered || counts[ordinal] == chunkArea) {
+				collapse(region, chunk, ordinal);
+				return;
+			}
+		}
+		for (int i = fromY; i < toY; i++) {
+			int base = i << CHUNK_SHIFT;
+			Arrays.fill(cells, base + fromX, base + toX, ordinal);
+		}
+	}
+
+	/**
+	 * Counts the tiles of the matching types in a rectangle
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the region's width
+	 * @param height the region's height
+	 * @param match the tile types to count, indexed by ordinal
+	 *
+	 * @return the number of tiles, or -1 if the region is invalid
+	 */
+	private long countRegion(int x, int y, int width, int height, boolean[] match) {
+
+		// calculate the region end co-ordinate
+		int endX = x+width;
+		int endY = y+height;
+
+		if (width < 0 || height < 0 || !isInMap(x, y, endX, endY)){
+			System.err.println("Invalid Region parameters:"+"("+x+","+y+","+width+","+height+")");
+			return -1;
+		}
+		if (width == 0 || height == 0) {
+			return 0;
+		}
+
+		long count = 0;
+		for (int cy = y >>> CHUNK_SHIFT; cy <= (endY - 1) >>> CHUNK_SHIFT; cy++) {
+			int chunkY = cy << CHUNK_SHIFT;
+			int fromY = Math.max(y, chunkY) - chunkY;
+			int toY = Math.min(endY, chunkY + CHUNK_SIZE) - chunkY;
+
+			for (int cx = x >>> CHUNK_SHIFT; cx <= (endX - 1) >>> CHUNK_SHIFT; cx++) {
+				int chunkX = cx << CHUNK_SHIFT;
+				int fromX = Math.max(x, chunkX) - chunkX;
+				int toX = Math.min(endX, chunkX + CHUNK_SIZE) - chunkX;
+
+				Region region = regions[(chunkY >>> REGION_SHIFT) * regionsX + (chunkX >>> REGION_SHIFT)];
+				byte[] cells = null;
+				byte value = defaultOrdinal;
+				if (region != null) {
+					int chunk = chunkIndex(chunkX, chunkY);
+					cells = region.cells[chunk];
+					value = region.values[chunk];
+				}
+
+				if (cells == null) {
+					if (match[value]) {
+						count += (long) (toX - fromX) * (toY - fromY);
+					}
+					continue;
+				}
+				for (int i = fromY; i < toY; i++) {
+					for (int j = fromX; j < toX; j++) {
+						if (match[cells[(i << CHUNK_SHIFT) + j]]) {
+							count++;
+						}
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of chunks stored as an array of tiles
+	 */
+	int getDenseChunkCount() {
+		int count = 0;
+		for (Region region : regions) {
+			if (region != null) {
+				for (byte[] cells : region.cells) {
+					if (cells != null) {
+						count++;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Converts a single valued chunk into an array of tiles
+	 *
+	 * @param region the chunk's region
+	 * @param chunk the chunk index within its region
+	 * @param chunkArea the number of the chunk's tiles within the map
+	 * @return the chunk's tiles
+	 */
+	private byte[] expand(Region region, int chunk, int chunkArea) {
+		byte[] cells = new byte[CHUNK_CELLS];
+		Arrays.fill(cells, region.values[chunk]);
+		int[] counts = new int[tileTypes.length];
+		counts[region.values[chunk]] = chunkArea;
+		region.cells[chunk] = cells;
+		region.counts[chunk] = counts;
+		return cells;
+	}
+
+	/**
+	 * Converts a chunk whose tiles are all one type back into a single value
+	 *
+	 * @param region the chunk's region
+	 * @param chunk the chunk index within its region
+	 * @param ordinal the chunk's tile ordinal
+	 */
+	private static void collapse(Region region, int chunk, byte ordinal) {
+		region.cells[chunk] = null;
+		region.counts[chunk] = null;
+		region.values[chunk] = ordinal;
+	}
+
+	/**
+	 * @return the number of tiles within the map of the chunk holding (x, row)
+	 */
+	private int chunkArea(int x, int row) {
+		int chunkX = x & ~CHUNK_MASK;
+		int chunkY = row & ~CHUNK_MASK;
+		return Math.min(CHUNK_SIZE, mapWidth - chunkX) * Math.min(CHUNK_SIZE, mapHeight - chunkY);
+	}
+
+	/**
+	 * Returns the region containing (x, row), allocating it when required
+	 */
+	private Region region(int x, int row) {
+		int index = (row >>> REGION_SHIFT) * regionsX + (x >>> REGION_SHIFT);
+		Region region = regions[index];
+		if (region == null) {
+			region = new Region(defaultOrdinal);
+			regions[index] = region;
+		}
+		return region;
+	}
+
+	private static int chunkIndex(int x, int row) {
+		return (((row >>> CHUNK_SHIFT) & CHUNK_MASK) << CHUNK_SHIFT) + ((x >>> CHUNK_SHIFT) & CHUNK_MASK);
+	}
+
+	private static int cellIndex(int x, int row) {
+		return ((row & CHUNK_MASK) << CHUNK_SHIFT) + (x & CHUNK_MASK);
+	}
+
+	/**
+	 * Checks if a tile belongs to this map's tile type family
+	 *
+	 * @param tileType the tile type
+	 *
+	 * @return True if the tile can be stored in the map
+	 */
+	private boolean isTileType(Tileable tileType) {
+		int ordinal = tileType.ordinal();
+		return ordinal < tileTypes.length && tileTypes[ordinal] == tileType;
+	}
+
+	/**
+	 * Checks if the start and end co-ordinates are contained with
+	 * the map
+	 *
+	 * @param x starting x position
+	 * @param y starting y position
+	 * @param endX end x position
+	 * @param endY end y position
+	 *
+	 * @return True is co-ordinates are contained by the map
+	 */
+	private boolean isInMap(int x, int y, int endX, int endY) {
+		if (x < 0 || y < 0 || endX > mapWidth || endY > mapHeight) {
+			return INVALID;
+		}
+		return SUCCESS;
+	}
+
+	/**
+	 * Translates the y-axis so that the origin becomes
+	 * bottom left, instead of top left.
+	 *
+	 * @param value the original y value
+	 * @return the translated y value
+	 */
+	private int translateY(int value) {
+		return mapHeight - 1 - value;
+	}
+}
@@ -0,0 +1,665 @@
+package model;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.IntStream;
+
+import view.MapRenderer;
+
+/**
+ *
+ * A ConcurrentTiledMap is a TiledMap that may be edited and read by many
+ * threads at once, such as a simulation thread editing the map while the
+ * Swing event thread draws it.
+ *
+ * The map is divided into chunks of 64 x 64 tiles, each guarded by its own
+ * StampedLock. A write locks only the chunks its rectangle covers, always
+ * in the same order, so writers editing disjoint parts of the map proceed
+ * in parallel and overlapping writers cannot deadlock.
+ *
+ * Reads never block a writer. Each chunk is read optimistically and the
+ * read is only repeated under the chunk's read lock if a write to that
+ * chunk overlapped it, so single tile reads are normally lock-free. Every
+ * chunk a read covers is seen either wholly before or wholly after each
+ * write to it.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+final public class ConcurrentTiledMap implements Mappable {
+
+	// the chunk size, in tiles, as a power of two
+	private static final int CHUNK_SHIFT = 6;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+	// The stored map dimensions
+	private final int mapWidth;
+	private final int mapHeight;
+
+	// The initial tile, used to pick random tile types
+	private final Tileable initTile;
+
+	private final Tileable[] tileTypes;
+	private final boolean[] passable;
+	private final TileGrid tiledMap;
+	private volatile MapRenderer myRenderer;
+
+	// one lock for each chunk, row after row of chunks
+	private final StampedLock[] locks;
+	private final int chunksX;
+
+	// The number of tiles of each type
+	private final AtomicLongArray tileCounts;
+
+	// The listeners told of each rectangle written
+	private final List<MapListener> listeners = new CopyOnWriteArrayList<>();
+
+	// input parameter validation return indicators
+	private static final boolean INVALID = false;
+	private static final boolean SUCCESS = true;
+
+	// the ordinal counted for a tile type outside the family, which no tile has
+	private static final int NO_TILES = -2;
+
+	/**
+	 * Initialises the map tiles
+	 *
+	 * @param width the map width
+	 * @param height the map height
+	 * @param tileType the default tile type
+	 */
+	public ConcurrentTiledMap(int width, int height, Tileable tileType) {
+		mapWidth = width;
+		mapHeight = height;
+
+		initTile = tileType;
+		tileTypes = tileType.getClass().getEnumConstants();
+		tiledMap = new TileGrid(width, height);
+
+		passable = new boolean[tileTypes.length];
+		for (int k = 0; k < tileTypes.length; k++) {
+			passable[k] = tileTypes[k].isPassable();
+		}
+
+		chunksX = (width + CHUNK_SIZE - 1) >> CHUNK_SHIFT;
+		int chunksY = (height + CHUNK_SIZE - 1) >> CHUNK_SHIFT;
+		locks = new StampedLock[chunksX * chunksY];
+		for (int k = 0; k < locks.length; k++) {
+			locks[k] = new StampedLock();
+		}
+
+		byte ordinal = (byte) tileType.ordinal();
+		for (int j = 0; ordinal != 0 && j < mapHeight; j++) {
+			tiledMap.fill(0, j, mapWidth, ordinal);
+		}
+		tileCounts = new AtomicLongArray(tileTypes.length);
+		tileCounts.set(ordinal, (long) width * height);
+	}
+
+	/**
+	 * Initialises a concurrent map as above, but also defines a map renderer
+	 *
+	 * @param width the map width
+	 * @param height the map height
+	 * @param tileType the default terrain type
+	 * @param renderer the initial renderer
+	 */
+	public ConcurrentTiledMap(int width, int height, Tileable tileType, MapRenderer renderer) {
+		this(width, height, tileType);
+		setRenderer(renderer);
+	}
+
+	/**
+	 * Returns the width of the map
+	 *
+	 * @return the map's width
+	 */
+	public int getWidth() {
+		return mapWidth;
+	}
+
+	/**
+	 * Returns the height of the map
+	 *
+	 * @return the map's height
+	 */
+	public int getHeight() {
+		return mapHeight;
+	}
+
+	/**
+	 * Sets the map renderer
+	 *
+	 * @param renderer the User specified renderer
+	 */
+	public void setRenderer(MapRenderer renderer) {
+		this.myRenderer = renderer;
+	}
+
+	/**
+	 * Returns the Tile type at co-ordinate (x, y). The tile is read
+	 * without locking unless a write to its chunk is under way.
+	 *
+	 * @param x the map's x position
+	 * @param y the map's y position
+	 * @return the Tile type
+	 */
+	public Tileable getTerrain(int x, int y) {
+		return tileTypes[read(x, translateY(y))];
+	}
+
+	/**
+	 * Checks if the tile at co-ordinate (x, y) is passable. The co-ordinates
+	 * are the same as getTerrain's.
+	 *
+	 * @param x the map's x position
+	 * @param y the map's y position
+	 * @return True if the tile is passable
+	 */
+	public boolean isPassable(int x, int y) {
+		return passable[read(x, translateY(y))];
+	}
+
+	/**
+	 * Returns the map's tile type family, indexed by ordinal
+	 *
+	 * @return the tile types that can be stored in the map
+	 */
+	public Tileable[] getTileTypes() {
+		return tileTypes.clone();
+	}
+
+	/**
+	 * Copies the tile ordinals of row y into an array, a chunk at a time.
+	 * Each chunk's part of the row is copied optimistically, and copied
+	 * again under its read lock only if a write overlapped the copy.
+	 *
+	 * @param y the map's y position
+	 * @param ordinals receives the row's ordinals, at least getWidth() long
+	 */
+	public void getTerrainRow(int y, byte[] ordinals) {
+		int row = translateY(y);
+		byte[] cells = tiledMap.rowArray(row);
+		int offset = tiledMap.rowOffset(row);
+		int base = (row >> CHUNK_SHIFT) * chunksX;
+
+		for (int x = 0; x < mapWidth; x += CHUNK_SIZE) {
+			int length = Math.min(CHUNK_SIZE, mapWidth - x);
+			StampedLock lock = locks[base + (x >> CHUNK_SHIFT)];
+			long stamp = lock.tryOptimisticRead();
+			System.arraycopy(cells, offset + x, ordinals, x, length);
+			if (!lock.validate(stamp)) {
+				stamp = lock.readLock();
+				try {
+					System.arraycopy(cells, offset + x, ordinals, x, length);
+				} finally {
+					lock.unlockRead(stamp);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets the Terrain area to the defined type.
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the new region's width
+	 * @param height the new region's height
+	 * @param tileType the Tile type
+	 *
+	 * @return True if terrain was set successfully
+	 */
+	public boolean setTerrain(int x, int y, int width, int height, Tileable tileType) {
+
+		// calculate the terrain end co-ordinate
+		int endX = x+width;
+		int endY = y+height;
+
+		if (!isInMap(x, y, endX, endY)){
+			System.err.println("Invalid Terrain parameters:"+"("+x+","+y+","+width+","+height+")");
+			return INVALID;
+		}
+		if (!isTileType(tileType)) {
+			System.err.println("Invalid Tile type: "+tileType);
+			return INVALID;
+		}
+
+		byte ordinal = (byte) tileType.ordinal();
+		write(x, y, endX, endY, counts -> {
+			for (int i = y; i < endY; i++) {
+				byte[] cells = tiledMap.writableRow(i);
+				int offset = tiledMap.rowOffset(i);
+				for (int j = offset + x; j < offset + endX; j++) {
+					counts[cells[j]]--;
+				}
+				tiledMap.fill(x, i, endX, ordinal);
+			}
+			counts[ordinal] += (long) width * height;
+		});
+		return SUCCESS;
+	}
+
+	/**
+	 * Sets the Terrain area to a random type
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the new region's width
+	 * @param height the new region's height
+	 *
+	 * @return True if terrain was set successfully
+	 */
+	public boolean setTerrain(int x, int y, int width, int height) {
+		return setTerrain(x, y, width, height, initTile.getRandom());
+	}
+
+	/**
+	 * Sets the Terrain area's individual tiles randomly
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the new region's width
+	 * @param height the new region's height
+	 *
+	 * @return True if terrain was set successfully
+	 */
+	public boolean setTerrainRandomly(int x, int y, int width, int height) {
+
+		// calculate the terrain end co-ordinate
+		int endX = x+width;
+		int endY = y+height;
+
+		if (!isInMap(x, y, endX, endY)){
+			System.err.println("Invalid Terrain parameters:"+"("+x+","+y+","+width+","+height+")");
+			return INVALID;
+		}
+
+		write(x, y, endX, endY, counts -> {
+			for (int i = y; i < endY; i++) {
+				byte[] row = tiledMap.writableRow(i);
+				int offset = tiledMap.rowOffset(i);
+				for (int j = offset + x; j < offset + endX; j++) {
+					byte ordinal = (byte) initTile.getRandom().ordinal();
+					counts[row[j]]--;
+					counts[ordinal]++;
+					row[j] = ordinal;
+				}
+			}
+		});
+		return SUCCESS;
+	}
+
+	/**
+	 * Sets the Terrain area's individual tiles randomly from a seed, filling
+	 * parallel stripes of rows while the area's chunks are locked. The same
+	 * seed produces the same tiles as TiledMap.
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the new region's width
+	 * @param height the new region's height
+	 * @param seed the random seed
+	 *
+	 * @return True if terrain was set successfully
+	 */
+	public boolean setTerrainRandomly(int x, int y, int width, int height, long seed) {
+
+		// calculate the terrain end co-ordinate
+		int endX = x+width;
+		int endY = y+height;
+
+		if (!isInMap(x, y, endX, endY)){
+			System.err.println("Invalid Terrain parameters:"+"("+x+","+y+","+width+","+height+")");
+			return INVALID;
+		}
+		if (width <= 0 || height <= 0) {
+			return SUCCESS;
+		}
+
+		SplittableRandom[] streams = RandomFill.streams(seed, height);
+		int types = tileTypes.length;
+		write(x, y, endX, endY, counts -> {
+			long[][] stripeCounts = new long[streams.length][];
+			IntStream.range(0, streams.length).parallel().forEach(s -> {
+				long[] stripe = new long[types];
+				int fromRow = y + s * RandomFill.STRIPE_ROWS;
+				int toRow = Math.min(endY, fromRow + RandomFill.STRIPE_ROWS);
+				for (int i = fromRow; i < toRow; i++) {
+					byte[] row = tiledMap.writableRow(i);
+					int offset = tiledMap.rowOffset(i);
+					for (int j = offset + x; j < offset + endX; j++) {
+						stripe[row[j]]--;
+					}
+					RandomFill.fillRow(streams[s], row, offset + x, offset + endX, types);
+					for (int j = offset + x; j < offset + endX; j++) {
+						stripe[row[j]]++;
+					}
+				}
+				stripeCounts[s] = stripe;
+			});
+			for (long[] stripe : stripeCounts) {
+				for (int k = 0; k < types; k++) {
+					counts[k] += stripe[k];
+				}
+			}
+		});
+		return SUCCESS;
+	}
+
+	/**
+	 * Draws the map using the user defined renderer.
+	 *
+	 */
+	public void render() {
+		MapRenderer renderer = myRenderer;
+		if (renderer == null) {
+			System.out.println("Error: No render defined.");
+			return;
+		}
+		renderer.render(this);
+	}
+
+	/**
+	 * Draws a border around the map, as four separately locked bands
+	 *
+	 * @param tileType the tile type
+	 * @param borderWidth the border width
+	 *
+	 * @return True is the border was set successfully
+	 */
+	public boolean setBorder(Tileable tileType, int borderWidth) {
+
+		if (borderWidth > mapWidth / 2 ){
+			System.err.println("Invalid Border set: "+borderWidth);
+			return INVALID;
+		}
+		if (!isTileType(tileType)) {
+			System.err.println("Invalid Tile type: "+tileType);
+			return INVALID;
+		}
+		if (borderWidth <= 0) {
+			return SUCCESS;
+		}
+
+		int top = Math.min(mapHeight, borderWidth);
+		int bottom = Math.max(top, mapHeight - borderWidth);
+		setTerrain(0, 0, mapWidth, top, tileType);
+		setTerrain(0, bottom, mapWidth, mapHeight - bottom, tileType);
+		setTerrain(0, top, borderWidth, bottom - top, tileType);
+		setTerrain(mapWidth - borderWidth, top, borderWidth, bottom - top, tileType);
+		return SUCCESS;
+	}
+
+	/**
+	 *  Sets the tile map border with a default border width
+	 *
+	 * @param tileType the tile type
+	 *
+	 * @return True if border was set successfully
+	 */
+	public boolean setBorder(Tileable tileType) {
+		return setBorder(tileType, 1);
+	}
+
+	/**
+	 * Calculates the percentage of passable area in the map
+	 *
+	 * @return percentage of passable area
+	 */
+	public double getPassableArea() {
+		double totalItems = (double) mapWidth * mapHeight;
+		double nonPassableItems = 0;
+
+		for (int k = 0; k < tileTypes.length; k++) {
+			if (!passable[k]) {
+				nonPassableItems += tileCounts.get(k);
+			}
+		}
+		return (1 - nonPassableItems / totalItems) * 100;
+	}
+
+	/**
+	 * Returns the number of tiles of a given type in the map
+	 *
+	 * @param tileType the tile type
+	 *
+	 * @return the number of tiles of that type
+	 */
+	public long getTileCount(Tileable tileType) {
+		if (!isTileType(tileType)) {
+			return 0;
+		}
+		return tileCounts.get(tileType.ordinal());
+	}
+
+	/**
+	 * Returns the number of passable tiles in a rectangle. The rectangle is
+	 * given in the same co-ordinates as setTerrain.
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the region's width
+	 * @param height the region's height
+	 *
+	 * @return the number of passable tiles, or -1 if the region is invalid
+	 */
+	public long getPassableCount(int x, int y, int width, int height) {
+		return countRegion(x, y, width, height, -1);
+	}
+
+	/**
+	 * Returns the number of tiles of a given type in a rectangle. The
+	 * rectangle is given in the same co-ordinates as setTerrain.
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the region's width
+	 * @param height the region's height
+	 * @param tileType the tile type
+	 *
+	 * @return the number of tiles of that type, or -1 if the region is invalid
+	 */
+	public long getTileCount(int x, int y, int width, int height, Tileable tileType) {
+		return countRegion(x, y, width, height, isTileType(tileType) ? tileType.ordinal() : NO_TILES);
+	}
+
+	/**
+	 * Registers a listener to be told of every rectangle of tiles written.
+	 * Listeners are called on the writing thread, after the chunks written
+	 * have been unlocked.
+	 *
+	 * @param listener the listener
+	 */
+	public void addMapListener(MapListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes a previously registered listener
+	 *
+	 * @param listener the listener
+	 */
+	public void removeMapListener(MapListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Reads one tile, optimistically first
+	 *
+	 * @param x the column
+	 * @param row the row, as for setTerrain
+	 * @return the tile's ordinal
+	 */
+	private byte read(int x, int row) {
+		StampedLock lock = locks[(row >> CHUNK_SHIFT) * chunksX + (x >> CHUNK_SHIFT)];
+		long stamp = lock.tryOptimisticRead();
+		byte ordinal = tiledMap.get(x, row);
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				ordinal = tiledMap.get(x, row);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return ordinal;
+	}
+
+	/**
+	 * Runs a write to the tiles [x, endX) x [y, endY) while holding the
+	 * write locks of the chunks it covers, then updates the tile counts
+	 * and tells the listeners
+	 *
+	 * @param x the first column written
+	 * @param y the first row written
+	 * @param endX the column after the last written
+	 * @param endY the row after the last written
+	 * @param writer the write, which records its changes to the tile counts
+	 */
+	private void write(int x, int y, int endX, int endY, TileWriter writer) {
+		if (endX <= x || endY <= y) {
+			return;
+		}
+		int fromX = x >> CHUNK_SHIFT;
+		int toX = (endX - 1) >> CHUNK_SHIFT;
+		int fromY = y >> CHUNK_SHIFT;
+		int toY = (endY - 1) >> CHUNK_SHIFT;
+
+		// chunks are always locked in ascending order
+		long[] stamps = new long[(toX - fromX + 1) * (toY - fromY + 1)];
+		int k = 0;
+		for (int cy = fromY; cy <= toY; cy++) {
+			for (int cx = fromX; cx <= toX; cx++) {
+				stamps[k++] = locks[cy * chunksX + cx].writeLock();
+			}
+		}
+
+		long[] counts = new long[tileTypes.length];
+		try {
+			writer.write(counts);
+		} finally {
+			k = stamps.length;
+			for (int cy = toY; cy >= fromY; cy--) {
+				for (int cx = toX; cx >= fromX; cx--) {
+					locks[cy * chunksX + cx].unlockWrite(stamps[--k]);
+				}
+			}
+		}
+
+		for (int t = 0; t < counts.length; t++) {
+			if (counts[t] != 0) {
+				tileCounts.addAndGet(t, counts[t]);
+			}
+		}
+		for (MapListener listener : listeners) {
+			listener.tilesChanged(this, x, mapHeight - endY, endX - x, endY - y);
+		}
+	}
+
+	/**
+	 * Counts tiles in a rectangle, reading each chunk's part of each row
+	 * optimistically
+	 *
+	 * @return the number of tiles, or -1 if the region is invalid
+	 */
+	private long countRegion(int x, int y, int width, int height, int ordinal) {
+
+		// calculate the region end co-ordinate
+		int endX = x+width;
+		int endY = y+height;
+
+		if (width < 0 || height < 0 || !isInMap(x, y, endX, endY)){
+			System.err.println("Invalid Region parameters:"+"("+x+","+y+","+width+","+height+")");
+			return -1;
+		}
+		if (ordinal == NO_TILES) {
+			return 0;
+		}
+
+		long count = 0;
+		for (int i = y; i < endY; i++) {
+			byte[] cells = tiledMap.rowArray(i);
+			int offset = tiledMap.rowOffset(i);
+			int base = (i >> CHUNK_SHIFT) * chunksX;
+			for (int from = x; from < endX; from = (from & -CHUNK_SIZE) + CHUNK_SIZE) {
+				int to = Math.min(endX, (from & -CHUNK_SIZE) + CHUNK_SIZE);
+				StampedLock lock = locks[base + (from >> CHUNK_SHIFT)];
+				long stamp = lock.tryOptimisticRead();
+				long part = count(cells, offset + from, offset + to, ordinal);
+				if (!lock.validate(stamp)) {
+					stamp = lock.readLock();
+					try {
+						part = count(cells, offset + from, offset + to, ordinal);
+					} finally {
+						lock.unlockRead(stamp);
+					}
+				}
+				count += part;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Counts the cells [from, to) of a row that match, where an ordinal of
+	 * -1 matches passable tiles
+	 */
+	private long count(byte[] cells, int from, int to, int ordinal) {
+		long count = 0;
+		for (int j = from; j < to; j++) {
+			if (ordinal < 0 ? passable[cells[j]] : cells[j] == ordinal) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Checks if the start and end co-ordinates are contained with
+	 * the map
+	 *
+	 * @return True is co-ordinates are contained by the map
+	 */
+	private boolean isInMap(int x, int y, int endX, int endY) {
+		if (x < 0 || y < 0 || endX > mapWidth || endY > mapHeight) {
+			return INVALID;
+		}
+		return SUCCESS;
+	}
+
+	/**
+	 * Checks if a tile belongs to this map's tile type family
+	 */
+	private boolean isTileType(Tileable tileType) {
+		int ordinal = tileType.ordinal();
+		return ordinal < tileTypes.length && tileTypes[ordinal] == tileType;
+	}
+
+	/**
+	 * Translates the y-axis so that the origin becomes
+	 * bottom left, instead of top left.
+	 *
+	 * @param value the original y value
+	 * @return the translated y value
+	 */
+	private int translateY(int value) {
+		return mapHeight - 1 - value;
+	}
+
+	/**
+	 * A write made while its chunks are locked
+	 */
+	private interface TileWriter {
+
+		/**
+		 * @param counts receives the change in the number of tiles of each type
+		 */
+		void write(long[] counts);
+	}
+}
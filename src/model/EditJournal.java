@@ -0,0 +1,416 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ *
+ * An EditJournal records the edits made to a TiledMap so they can be
+ * undone and redone.
+ *
+ * Each edit is stored as the rectangles it wrote, with the tiles that were
+ * there before as runs of one ordinal followed by the run's length. A
+ * flood fill is stored as the spans it filled, which all held the same
+ * tile. The tiles an edit wrote are only encoded when it is first undone,
+ * so recording costs one pass over the rectangle and undo and redo cost
+ * time in proportion to the edit.
+ *
+ * The journal keeps at most a given number of edits within a byte budget,
+ * in a ring buffer. Once either limit is passed the oldest edits are
+ * forgotten. Making a new edit forgets any edits that had been undone.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public final class EditJournal {
+
+	// the bytes counted for each rectangle or span list besides its tiles
+	private static final int PART_OVERHEAD = 48;
+
+	private final TiledMap map;
+	private final long maxBytes;
+
+	// the edits, oldest first, starting at head. The first cursor of the
+	// size edits can be undone, and the rest redone.
+	private final Edit[] edits;
+	private int head = 0;
+	private int size = 0;
+	private int cursor = 0;
+	private long bytes = 0;
+
+	// the edit being recorded
+	private Edit pending = null;
+
+	// input parameter validation return indicators
+	private static final boolean INVALID = false;
+	private static final boolean SUCCESS = true;
+
+	/**
+	 * Starts journalling a map's edits. Any journal the map had before is
+	 * replaced.
+	 *
+	 * @param map the map
+	 * @param maxEdits the most edits kept
+	 * @param maxBytes the most bytes the edits may take
+	 */
+	public EditJournal(TiledMap map, int maxEdits, long maxBytes) {
+		if (maxEdits <= 0 || maxBytes <= 0) {
+			throw new IllegalArgumentException("Invalid journal size: " + maxEdits + " edits, " + maxBytes + " bytes");
+		}
+		this.map = map;
+		this.maxBytes = maxBytes;
+		this.edits = new Edit[maxEdits];
+		map.setJournal(this);
+	}
+
+	/**
+	 * Undoes the most recent edit not yet undone
+	 *
+	 * @return True if an edit was undone
+	 */
+	public boolean undo() {
+		if (cursor == 0) {
+			return INVALID;
+		}
+		Edit edit = edits[(head + cursor - 1) % edits.length];
+
+		// the tiles the edit wrote are kept for redo
+		if (!edit.hasAfter) {
+			for (int k = 0; k < edit.count; k++) {
+				edit.parts[k].saveAfter(map.getGrid());
+				bytes += edit.parts[k].afterBytes();
+			}
+			edit.hasAfter = true;
+		}
+		for (int k = edit.count - 1; k >= 0; k--) {
+			edit.parts[k].restore(map, true);
+		}
+		cursor--;
+
+		// keep within the budget by forgetting the oldest edits still undoable
+		while (bytes > maxBytes && cursor > 0) {
+			evictOldest();
+		}
+		return SUCCESS;
+	}
+
+	/**
+	 * Redoes the most recently undone edit
+	 *
+	 * @return True if an edit was redone
+	 */
+	public boolean redo() {
+		if (cursor == size) {
+			return INVALID;
+		}
+		Edit edit = edits[(head + cursor) % edits.length];
+		for (int k = 0; k < edit.count; k++) {
+			edit.parts[k].restore(map, false);
+		}
+		cursor++;
+		return SUCCESS;
+	}
+
+	/**
+	 * @return True if there is an edit to undo
+	 */
+	public boolean canUndo() {
+		return cursor > 0;
+	}
+
+	/**
+	 * @return True if there is an edit to redo
+	 */
+	public boolean canRedo() {
+		return cursor < size;
+	}
+
+	/**
+	 * @return the number of edits that can be undone
+	 */
+	public int getUndoCount() {
+		return cursor;
+	}
+
+	/**
+	 * @return the number of edits that can be redone
+	 */
+	public int getRedoCount() {
+		return size - cursor;
+	}
+
+	/**
+	 * @return the bytes taken by the edits kept
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Forgets every edit
+	 */
+	public void clear() {
+		Arrays.fill(edits, null);
+		head = 0;
+		size = 0;
+		cursor = 0;
+		bytes = 0;
+		pending = null;
+	}
+
+	/**
+	 * Stops journalling the map's edits
+	 */
+	public void close() {
+		clear();
+		map.setJournal(null);
+	}
+
+	/**
+	 * Records the tiles of a rectangle before they are written. The
+	 * rectangle is in the same co-ordinates as setTerrain, and the
+	 * rectangles of one edit must not overlap.
+	 *
+	 * @param grid the map's tiles
+	 * @param x the first column
+	 * @param y the first row
+	 * @param endX the column after the last
+	 * @param endY the row after the last
+	 */
+	void record(TileGrid grid, int x, int y, int endX, int endY) {
+		if (endX <= x || endY <= y) {
+			return;
+		}
+		RectanglePart part = new RectanglePart(x, y, endX, endY);
+		part.before = encode(grid, x, y, endX, endY);
+		add(part);
+	}
+
+	/**
+	 * Records the spans written by a flood fill, which all held one tile
+	 *
+	 * @param spans each span's row, first column and column after the last
+	 * @param count the number of spans
+	 * @param before the ordinal the spans held
+	 * @param after the ordinal written
+	 */
+	void recordSpans(int[] spans, int count, byte before, byte after) {
+		if (count == 0) {
+			return;
+		}
+		add(new SpanPart(Arrays.copyOf(spans, count * 3), before, after));
+	}
+
+	/**
+	 * Ends the edit being recorded, making it the next to undo
+	 */
+	void commit() {
+		if (pending == null) {
+			return;
+		}
+		Edit edit = pending;
+		pending = null;
+
+		// the edits undone can no longer be redone
+		while (size > cursor) {
+			int last = (head + size - 1) % edits.length;
+			bytes -= edits[last].bytes();
+			edits[last] = null;
+			size--;
+		}
+		if (size == edits.length) {
+			evictOldest();
+		}
+		edits[(head + size) % edits.length] = edit;
+		size++;
+		cursor++;
+		bytes += edit.bytes();
+
+		while (bytes > maxBytes && size > 0) {
+			evictOldest();
+		}
+	}
+
+	private void add(Part part) {
+		if (pending == null) {
+			pending = new Edit();
+		}
+		pending.add(part);
+	}
+
+	private void evictOldest() {
+		bytes -= edits[head].bytes();
+		edits[head] = null;
+		head = (head + 1) % edits.length;
+		size--;
+		cursor--;
+	}
+
+	/**
+	 * Encodes the tiles of a rectangle, row after row, as runs of one
+	 * ordinal followed by the run's length, seven bits to a byte. Runs
+	 * carry on from one row to the next.
+	 */
+	static byte[] encode(TileGrid grid, int x, int y, int endX, int endY) {
+		byte[] out = new byte[16];
+		int length = 0;
+		byte value = grid.get(x, y);
+		long run = 0;
+
+		for (int row = y; row < endY; row++) {
+			byte[] cells = grid.rowArray(row);
+			int offset = grid.rowOffset(row);
+			for (int j = offset + x; j < offset + endX; j++) {
+				if (cells[j] == value) {
+					run++;
+					continue;
+				}
+				if (out.length - length < 11) {
+					out = Arrays.copyOf(out, out.length * 2);
+				}
+				length = putRun(out, length, value, run);
+				value = cells[j];
+				run = 1;
+			}
+		}
+		if (out.length - length < 11) {
+			out = Arrays.copyOf(out, out.length + 11);
+		}
+		length = putRun(out, length, value, run);
+		return Arrays.copyOf(out, length);
+	}
+
+	private static int putRun(byte[] out, int length, byte value, long run) {
+		out[length++] = value;
+		while (run >= 0x80) {
+			out[length++] = (byte) (run | 0x80);
+			run >>>= 7;
+		}
+		out[length++] = (byte) run;
+		return length;
+	}
+
+	/**
+	 * One undoable edit, made of the parts it wrote
+	 */
+	private static final class Edit {
+
+		// the parts, in the order written, in the first count entries
+		Part[] parts = new Part[1];
+		int count = 0;
+		boolean hasAfter = false;
+
+		void add(Part part) {
+			if (count == parts.length) {
+				parts = Arrays.copyOf(parts, parts.length * 2);
+			}
+			parts[count++] = part;
+		}
+
+		long bytes() {
+			long total = 0;
+			for (int k = 0; k < count; k++) {
+				total += PART_OVERHEAD + parts[k].beforeBytes() + (hasAfter ? parts[k].afterBytes() : 0);
+			}
+			return total;
+		}
+	}
+
+	/**
+	 * Part of an edit, which can restore the tiles before or after it
+	 */
+	private interface Part {
+
+		/**
+		 * Records the tiles the edit wrote, before the edit is first undone
+		 */
+		void saveAfter(TileGrid grid);
+
+		/**
+		 * Writes back the tiles before the edit, if undo, or after it
+		 */
+		void restore(TiledMap map, boolean undo);
+
+		long beforeBytes();
+
+		long afterBytes();
+	}
+
+	/**
+	 * A rectangle, with its tiles before and after the edit
+	 */
+	private static final class RectanglePart implements Part {
+
+		final int x;
+		final int y;
+		final int endX;
+		final int endY;
+		byte[] before;
+		byte[] after;
+
+		RectanglePart(int x, int y, int endX, int endY) {
+			this.x = x;
+			this.y = y;
+			this.endX = endX;
+			this.endY = endY;
+		}
+
+		@Override
+		public void saveAfter(TileGrid grid) {
+			after = encode(grid, x, y, endX, endY);
+		}
+
+		@Override
+		public void restore(TiledMap map, boolean undo) {
+			map.restore(x, y, endX, endY, undo ? before : after);
+		}
+
+		@Override
+		public long beforeBytes() {
+			return before.length;
+		}
+
+		@Override
+		public long afterBytes() {
+			return after == null ? 0 : after.length;
+		}
+	}
+
+	/**
+	 * The spans of a flood fill, which all held one tile and were all
+	 * given another
+	 */
+	private static final class SpanPart implements Part {
+
+		final int[] spans;
+		final byte before;
+		final byte after;
+
+		SpanPart(int[] spans, byte before, byte after) {
+			this.spans = spans;
+			this.before = before;
+			this.after = after;
+		}
+
+		@Override
+		public void saveAfter(TileGrid grid) {
+			// every span holds the tile written
+		}
+
+		@Override
+		public void restore(TiledMap map, boolean undo) {
+			map.restoreSpans(spans, undo ? before : after);
+		}
+
+		@Override
+		public long beforeBytes() {
+			return 4L * spans.length;
+		}
+
+		@Override
+		public long afterBytes() {
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,278 @@
+package model;
+
+import java.util.stream.IntStream;
+
+/**
+ *
+ * A FieldOfView answers what can be seen from a tile of a map. Opaque
+ * tiles, such as a hedge or a closed door, block sight but can themselves
+ * be seen.
+ *
+ * The tiles seen within a radius are found by recursive shadowcasting.
+ * Each of the eight octants around the viewer is scanned a row at a time
+ * outwards, keeping the range of slopes still lit; an opaque tile narrows
+ * the range, and each gap between opaque tiles is scanned further by a
+ * recursive call, so only the tiles in the light are visited. Line of
+ * sight between two tiles follows the Bresenham line between them.
+ *
+ * The opaque tiles are copied into a bitset, one bit per tile, when the
+ * FieldOfView is created. Added as a listener to its map, it updates the
+ * bitset after each edit. The updates are synchronized, since edits to a
+ * ConcurrentTiledMap from several threads may touch the same words of
+ * the bitset. Queries only read the bitset, so any number of threads may
+ * query at once while the map is not being edited, and the batch methods
+ * evaluate many viewers in parallel.
+ *
+ * Co-ordinates are the same as getTerrain's.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public final class FieldOfView implements MapListener {
+
+	// the transform of each octant's row and column offsets to x and y
+	private static final int[][] OCTANTS = {
+			{ 1, 0, 0, 1 }, { 0, 1, 1, 0 }, { 0, -1, 1, 0 }, { -1, 0, 0, 1 },
+			{ -1, 0, 0, -1 }, { 0, -1, -1, 0 }, { 0, 1, -1, 0 }, { 1, 0, 0, -1 } };
+
+	private final Mappable map;
+	private final int width;
+	private final int height;
+	private final boolean[] opaqueTypes;
+
+	// a bit per tile, set if the tile is opaque
+	private final int words;
+	private final long[] opaque;
+
+	// input parameter validation return indicators
+	private static final boolean INVALID = false;
+	private static final boolean SUCCESS = true;
+
+	/**
+	 * @param map the map
+	 */
+	public FieldOfView(Mappable map) {
+		this.map = map;
+		this.width = map.getWidth();
+		this.height = map.getHeight();
+		this.words = (width + 63) >> 6;
+		this.opaque = new long[height * words];
+
+		Tileable[] tileTypes = map.getTileTypes();
+		opaqueTypes = new boolean[tileTypes.length];
+		for (int k = 0; k < tileTypes.length; k++) {
+			opaqueTypes[k] = tileTypes[k].isOpaque();
+		}
+
+		IntStream.range(0, height).parallel().forEach(y -> readRows(y, 1, 0, width));
+	}
+
+	/**
+	 * Finds the tiles seen from a tile within a radius
+	 *
+	 * @param x the viewer's x position
+	 * @param y the viewer's y position
+	 * @param radius the view radius, no larger than the visibility map's
+	 * @param visible receives the tiles seen
+	 *
+	 * @return True if the view was computed successfully
+	 */
+	public boolean computeView(int x, int y, int radius, VisibilityMap visible) {
+		if (!isInMap(x, y)) {
+			System.err.println("Invalid Viewer position:"+"("+x+","+y+")");
+			return INVALID;
+		}
+		if (radius < 0 || radius > visible.getRadius()) {
+			System.err.println("Invalid View radius: "+radius);
+			return INVALID;
+		}
+
+		visible.reset(x, y);
+		visible.set(x, y);
+		long limit = (long) radius * radius + radius;
+		for (int[] octant : OCTANTS) {
+			castLight(x, y, 1, 1.0, 0.0, radius, limit, octant, visible);
+		}
+		return SUCCESS;
+	}
+
+	/**
+	 * Finds the tiles seen from many tiles in parallel
+	 *
+	 * @param viewers the viewers' positions as x, y pairs
+	 * @param radius the view radius, no larger than any visibility map's
+	 * @param visible receives the tiles seen by each viewer, one map per viewer
+	 *
+	 * @return True if every view was computed successfully
+	 */
+	public boolean computeViews(final int[] viewers, final int radius, final VisibilityMap[] visible) {
+		if (visible.length < viewers.length / 2) {
+			System.err.println("Invalid Batch size: "+visible.length+" maps for "+viewers.length / 2+" viewers");
+			return INVALID;
+		}
+		return IntStream.range(0, viewers.length / 2).parallel()
+				.mapToObj(v -> computeView(viewers[2 * v], viewers[2 * v + 1], radius, visible[v]))
+				.reduce(SUCCESS, Boolean::logicalAnd);
+	}
+
+	/**
+	 * Checks if one tile can be seen from another, along the Bresenham
+	 * line between them. Only the tiles strictly between the two can
+	 * block sight.
+	 *
+	 * @param x1 the first tile's x position
+	 * @param y1 the first tile's y position
+	 * @param x2 the second tile's x position
+	 * @param y2 the second tile's y position
+	 * @return True if no opaque tile lies between them
+	 */
+	public boolean hasLineOfSight(int x1, int y1, int x2, int y2) {
+		if (!isInMap(x1, y1) || !isInMap(x2, y2)) {
+			System.err.println("Invalid Line parameters:"+"("+x1+","+y1+","+x2+","+y2+")");
+			return INVALID;
+		}
+
+		if (x1 == x2 && y1 == y2) {
+			return SUCCESS;
+		}
+
+		int dx = Math.abs(x2 - x1);
+		int dy = -Math.abs(y2 - y1);
+		int sx = x1 < x2 ? 1 : -1;
+		int sy = y1 < y2 ? 1 : -1;
+		int error = dx + dy;
+		int x = x1;
+		int y = y1;
+
+		while (true) {
+			int e2 = 2 * error;
+			if (e2 >= dy) {
+				error += dy;
+				x += sx;
+			}
+			if (e2 <= dx) {
+				error += dx;
+				y += sy;
+			}
+			if (x == x2 && y == y2) {
+				return SUCCESS;
+			}
+			if (isOpaque(x, y)) {
+				return INVALID;
+			}
+		}
+	}
+
+	/**
+	 * Checks many lines of sight in parallel
+	 *
+	 * @param lines the lines, each stored as x1, y1, x2 and y2
+	 * @param results receives True for each line with nothing opaque
+	 *        between its ends
+	 */
+	public void hasLinesOfSight(final int[] lines, final boolean[] results) {
+		IntStream.range(0, lines.length / 4).parallel().forEach(q -> {
+			int k = q * 4;
+			results[q] = hasLineOfSight(lines[k], lines[k + 1], lines[k + 2], lines[k + 3]);
+		});
+	}
+
+	/**
+	 * Updates the opaque tiles after a rectangle of the map has been written
+	 *
+	 * @param map the map that changed
+	 * @param x the rectangle's left x position
+	 * @param y the rectangle's top y position
+	 * @param width the rectangle's width
+	 * @param height the rectangle's height
+	 */
+	public synchronized void tilesChanged(Mappable map, int x, int y, int width, int height) {
+		if (map != this.map || width <= 0 || height <= 0) {
+			return;
+		}
+		readRows(y, height, x, x + width);
+	}
+
+	/**
+	 * Scans one octant outwards from a row, lighting the tiles between the
+	 * slopes start and end
+	 *
+	 * @param limit the largest squared distance seen, rounded to give a
+	 *        round view
+	 * @param octant the transform of the octant's offsets to x and y
+	 */
+	private void castLight(int viewerX, int viewerY, int row, double start, double end, int radius, long limit,
+			int[] octant, VisibilityMap visible) {
+		if (start < end) {
+			return;
+		}
+		double nextStart = start;
+		for (int j = row; j <= radius; j++) {
+			boolean blocked = false;
+			int dy = -j;
+			for (int dx = -j; dx <= 0; dx++) {
+				double leftSlope = (dx - 0.5) / (dy + 0.5);
+				double rightSlope = (dx + 0.5) / (dy - 0.5);
+				if (start < rightSlope) {
+					continue;
+				}
+				if (end > leftSlope) {
+					break;
+				}
+
+				int x = viewerX + dx * octant[0] + dy * octant[1];
+				int y = viewerY + dx * octant[2] + dy * octant[3];
+				boolean inMap = isInMap(x, y);
+				if (inMap && (long) dx * dx + (long) dy * dy <= limit) {
+					visible.set(x, y);
+				}
+
+				boolean wall = !inMap || isOpaque(x, y);
+				if (blocked) {
+					if (wall) {
+						nextStart = rightSlope;
+					} else {
+						blocked = false;
+						start = nextStart;
+					}
+				} else if (wall && j < radius) {
+					// scan the light before this wall, then carry on past it
+					blocked = true;
+					castLight(viewerX, viewerY, j + 1, start, leftSlope, radius, limit, octant, visible);
+					nextStart = rightSlope;
+				}
+			}
+			if (blocked) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Copies the opaque tiles of the columns [fromX, toX) of some rows
+	 */
+	private void readRows(int y, int rows, int fromX, int toX) {
+		byte[] row = new byte[width];
+		for (int j = y; j < y + rows; j++) {
+			map.getTerrainRow(j, row);
+			for (int i = fromX; i < toX; i++) {
+				long bit = 1L << i;
+				if (opaqueTypes[row[i]]) {
+					opaque[j * words + (i >> 6)] |= bit;
+				} else {
+					opaque[j * words + (i >> 6)] &= ~bit;
+				}
+			}
+		}
+	}
+
+	private boolean isOpaque(int x, int y) {
+		return (opaque[y * words + (x >> 6)] & 1L << x) != 0;
+	}
+
+	private boolean isInMap(int x, int y) {
+		return x >= 0 && y >= 0 && x < width && y < height;
+	}
+}
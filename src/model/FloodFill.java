@@ -0,0 +1,212 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ *
+ * FloodFill replaces a 4-connected area of one tile type with another.
+ *
+ * It is a scanline fill: each step fills a whole horizontal span and pushes
+ * the spans above and below it onto an explicit stack, so there is no
+ * recursion and the stack holds spans rather than individual tiles.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+final class FloodFill {
+
+	// each stack entry holds x1, x2, row and direction
+	private int[] stack = new int[64 * 4];
+	private int size = 0;
+
+	private final TileGrid grid;
+	private final byte target;
+	private final byte replacement;
+
+	// the area touched by the fill
+	private int minRow = Integer.MAX_VALUE;
+	private int maxRow = Integer.MIN_VALUE;
+	private int minX = Integer.MAX_VALUE;
+	private int maxX = Integer.MIN_VALUE;
+	private long filled = 0;
+
+	// each span filled as row, from and to, when kept for an undo journal
+	private int[] spans = null;
+	private int spanCount = 0;
+
+	/**
+	 * @param grid the map's tiles
+	 * @param target the ordinal being replaced
+	 * @param replacement the new ordinal, which must differ from the target
+	 */
+	FloodFill(TileGrid grid, byte target, byte replacement) {
+		this.grid = grid;
+		this.target = target;
+		this.replacement = replacement;
+	}
+
+	/**
+	 * Keeps each span filled, so the fill can be undone
+	 */
+	void keepSpans() {
+		spans = new int[64 * 3];
+	}
+
+	/**
+	 * Fills the area connected to (x, row)
+	 *
+	 * @param x the seed column
+	 * @param row the seed row
+	 */
+	void fill(int x, int row) {
+		if (!inside(x, row)) {
+			return;
+		}
+		push(x, x, row, 1);
+		push(x, x, row - 1, -1);
+
+		while (size > 0) {
+			size -= 4;
+			int x1 = stack[size];
+			int x2 = stack[size + 1];
+			int y = stack[size + 2];
+			int dy = stack[size + 3];
+
+			if (y < 0 || y >= grid.getHeight()) {
+				continue;
+			}
+			byte[] cells = grid.writableRow(y);
+			int offset = grid.rowOffset(y);
+
+			int left = x1;
+			if (inside(cells, offset, left)) {
+				// extend the span to the left
+				while (inside(cells, offset, left - 1)) {
+					left--;
+				}
+				fillSpan(cells, offset, y, left, x1);
+				if (left < x1) {
+					push(left, x1 - 1, y - dy, -dy);
+				}
+			}
+
+			while (x1 <= x2) {
+				int start = x1;
+				while (inside(cells, offset, x1)) {
+					x1++;
+				}
+				fillSpan(cells, offset, y, start, x1);
+				if (x1 > left) {
+					push(left, x1 - 1, y + dy, dy);
+				}
+				if (x1 - 1 > x2) {
+					push(x2 + 1, x1 - 1, y - dy, -dy);
+				}
+
+				// skip to the next span within [x1, x2]
+				x1++;
+				while (x1 < x2 && !inside(cells, offset, x1)) {
+					x1++;
+				}
+				left = x1;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of tiles replaced
+	 */
+	long getFilled() {
+		return filled;
+	}
+
+	/**
+	 * @return each span filled as its row, first column and the column after
+	 *         its last, if keepSpans() was called
+	 */
+	int[] getSpans() {
+		return spans;
+	}
+
+	/**
+	 * @return the number of spans filled, if keepSpans() was called
+	 */
+	int getSpanCount() {
+		return spanCount;
+	}
+
+	/**
+	 * @return the lowest row written, or Integer.MAX_VALUE if none were
+	 */
+	int getMinRow() {
+		return minRow;
+	}
+
+	/**
+	 * @return the highest row written, or Integer.MIN_VALUE if none were
+	 */
+	int getMaxRow() {
+		return maxRow;
+	}
+
+	/**
+	 * @return the lowest column written, or Integer.MAX_VALUE if none were
+	 */
+	int getMinX() {
+		return minX;
+	}
+
+	/**
+	 * @return the highest column written, or Integer.MIN_VALUE if none were
+	 */
+	int getMaxX() {
+		return maxX;
+	}
+
+	private boolean inside(int x, int row) {
+		return row >= 0 && row < grid.getHeight() && x >= 0 && x < grid.getWidth()
+				&& grid.get(x, row) == target;
+	}
+
+	private boolean inside(byte[] cells, int offset, int x) {
+		return x >= 0 && x < grid.getWidth() && cells[offset + x] == target;
+	}
+
+	/**
+	 * Replaces the tiles [from, to) of a row
+	 */
+	private void fillSpan(byte[] cells, int offset, int row, int from, int to) {
+		if (from >= to) {
+			return;
+		}
+		Arrays.fill(cells, offset + from, offset + to, replacement);
+		filled += to - from;
+		minRow = Math.min(minRow, row);
+		maxRow = Math.max(maxRow, row);
+		minX = Math.min(minX, from);
+		maxX = Math.max(maxX, to - 1);
+
+		if (spans != null) {
+			if (spanCount * 3 == spans.length) {
+				spans = Arrays.copyOf(spans, spans.length * 2);
+			}
+			spans[spanCount * 3] = row;
+			spans[spanCount * 3 + 1] = from;
+			spans[spanCount * 3 + 2] = to;
+			spanCount++;
+		}
+	}
+
+	private void push(int x1, int x2, int row, int dy) {
+		if (size == stack.length) {
+			stack = Arrays.copyOf(stack, stack.length * 2);
+		}
+		stack[size] = x1;
+		stack[size + 1] = x2;
+		stack[size + 2] = row;
+		stack[size + 3] = dy;
+		size += 4;
+	}
+}
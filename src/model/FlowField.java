@@ -0,0 +1,473 @@
+package model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ *
+ * A FlowField holds, for every tile of a map, the number of steps to the
+ * nearest goal and the direction of the first step, so any number of
+ * agents can head for their nearest goal with one lookup each.
+ *
+ * The goals are either every tile of one type, such as IndoorTile.Door,
+ * or a fixed set of tiles. Steps are to the four neighbouring tiles and
+ * only onto passable tiles, although a goal may itself be impassable.
+ * The field is built by a breadth first search from all the goals at
+ * once, one wavefront at a time, with large wavefronts expanded in
+ * parallel.
+ *
+ * Added as a listener to its map, the field repairs itself after each
+ * edit. The tiles whose route ran through a blocked tile or a lost goal
+ * are cleared, then the distances are spread again from their edges and
+ * from any new tiles, in order of distance, using the sorted edge
+ * distances and a queue of the tiles reached. The work is in proportion
+ * to the tiles whose distance changes.
+ *
+ * Repairs are synchronized, so the map may be edited from several threads
+ * at once, as a ConcurrentTiledMap may be, and each edit's repair runs in
+ * turn. Queries are not locked, so a query made while a repair is running
+ * may see the field part way through it.
+ *
+ * Co-ordinates are the same as getTerrain's. The map must hold at most
+ * Integer.MAX_VALUE - 8 tiles.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public final class FlowField implements MapListener {
+
+	// the direction of the first step from a tile towards its nearest goal
+	public static final byte NONE = 0;
+	public static final byte NORTH = 1;
+	public static final byte EAST = 2;
+	public static final byte SOUTH = 3;
+	public static final byte WEST = 4;
+
+	private static final int[] STEP_X = { 0, 0, 1, 0, -1 };
+	private static final int[] STEP_Y = { 0, -1, 0, 1, 0 };
+
+	private static final int UNREACHED = Integer.MAX_VALUE;
+
+	// the smallest wavefront expanded in parallel
+	private static final int PARALLEL_FRONTIER = 4096;
+
+	// the state of each tile
+	private static final byte BLOCKED = 0;
+	private static final byte OPEN = 1;
+	private static final byte GOAL = 2;
+
+	private final Mappable map;
+	private final int width;
+	private final int height;
+	private final boolean[] passable;
+
+	// the goal tile type's ordinal, or -1 if the goals are fixed tiles
+	private final int goalOrdinal;
+	private final long[] goalTiles;
+
+	private final byte[] state;
+	private final int[] distance;
+	private final byte[] direction;
+
+	/**
+	 * Builds the field towards every tile of a type
+	 *
+	 * @param map the map
+	 * @param goal the goal tile type
+	 */
+	public FlowField(Mappable map, Tileable goal) {
+		this(map, goal.ordinal(), null);
+	}
+
+	/**
+	 * Builds the field towards a set of tiles
+	 *
+	 * @param map the map
+	 * @param goals the goal tiles as x, y pairs
+	 */
+	public FlowField(Mappable map, int[] goals) {
+		this(map, -1, goalTiles(map, goals));
+	}
+
+	private FlowField(Mappable map, int goalOrdinal, long[] goalTiles) {
+		this.map = map;
+		this.width = map.getWidth();
+		this.height = map.getHeight();
+		this.goalOrdinal = goalOrdinal;
+		this.goalTiles = goalTiles;
+
+		Tileable[] tileTypes = map.getTileTypes();
+		passable = new boolean[tileTypes.length];
+		for (int k = 0; k < tileTypes.length; k++) {
+			passable[k] = tileTypes[k].isPassable();
+		}
+
+		int cells = cellCount(map);
+		state = new byte[cells];
+		distance = new int[cells];
+		direction = new byte[cells];
+		build();
+	}
+
+	/**
+	 * Returns the number of steps from a tile to its nearest goal
+	 *
+	 * @param x the tile's x position
+	 * @param y the tile's y position
+	 * @return the number of steps, or -1 if no goal can be reached
+	 */
+	public int getDistance(int x, int y) {
+		int d = distance[index(x, y)];
+		return d == UNREACHED ? -1 : d;
+	}
+
+	/**
+	 * Returns the direction of the first step from a tile towards its
+	 * nearest goal
+	 *
+	 * @param x the tile's x position
+	 * @param y the tile's y position
+	 * @return NORTH, EAST, SOUTH or WEST, or NONE at a goal or where no goal
+	 *         can be reached
+	 */
+	public byte getDirection(int x, int y) {
+		return direction[index(x, y)];
+	}
+
+	/**
+	 * @param direction a direction
+	 * @return the change in x of a step in that direction
+	 */
+	public static int stepX(byte direction) {
+		return STEP_X[direction];
+	}
+
+	/**
+	 * @param direction a direction
+	 * @return the change in y of a step in that direction, as for getTerrain
+	 */
+	public static int stepY(byte direction) {
+		return STEP_Y[direction];
+	}
+
+	/**
+	 * Repairs the field after a rectangle of its map has been written
+	 *
+	 * @param map the map that changed
+	 * @param x the rectangle's left x position
+	 * @param y the rectangle's top y position
+	 * @param width the rectangle's width
+	 * @param height the rectangle's height
+	 */
+	public synchronized void tilesChanged(Mappable map, int x, int y, int width, int height) {
+		if (map != this.map || width <= 0 || height <= 0) {
+			return;
+		}
+
+		IntList cleared = new IntList();
+		IntList changed = new IntList();
+		byte[] row = new byte[this.width];
+		for (int j = y; j < y + height; j++) {
+			map.getTerrainRow(j, row);
+			for (int i = x; i < x + width; i++) {
+				int cell = j * this.width + i;
+				byte old = state[cell];
+				byte now = state(cell, row[i]);
+				if (now == old) {
+					continue;
+				}
+				state[cell] = now;
+				changed.add(cell);
+
+				// the routes through a blocked tile or a lost goal are cleared
+				if (distance[cell] != UNREACHED && (now == BLOCKED || old == GOAL)) {
+					clear(cell, cleared);
+				}
+			}
+		}
+		if (changed.size == 0) {
+			return;
+		}
+
+		// spread again from new goals and from the tiles around the change
+		IntList seeds = new IntList();
+		IntList touched = new IntList();
+		for (IntList cells : new IntList[] { changed, cleared }) {
+			for (int k = 0; k < cells.size; k++) {
+				int cell = cells.values[k];
+				if (state[cell] == GOAL && distance[cell] != 0) {
+					distance[cell] = 0;
+					direction[cell] = NONE;
+					touched.add(cell);
+				}
+				if (state[cell] == GOAL) {
+					seeds.add(cell);
+				}
+				for (int d = NORTH; d <= WEST; d++) {
+					int next = neighbour(cell, d);
+					if (next >= 0 && distance[next] != UNREACHED) {
+						seeds.add(next);
+					}
+				}
+			}
+		}
+		spread(seeds, touched);
+
+		for (int k = 0; k < touched.size; k++) {
+			direction[touched.values[k]] = direction(touched.values[k]);
+		}
+	}
+
+	/**
+	 * Builds the whole field, one wavefront at a time
+	 */
+	private void build() {
+		final IntList[] rowGoals = new IntList[height];
+		IntStream.range(0, height).parallel().forEach(j -> {
+			byte[] row = new byte[width];
+			map.getTerrainRow(j, row);
+			IntList goals = new IntList();
+			for (int i = 0; i < width; i++) {
+				int cell = j * width + i;
+				state[cell] = state(cell, row[i]);
+				if (state[cell] == GOAL) {
+					distance[cell] = 0;
+					goals.add(cell);
+				} else {
+					distance[cell] = UNREACHED;
+				}
+			}
+			rowGoals[j] = goals;
+		});
+
+		int[] frontier = IntList.concat(rowGoals);
+		for (int d = 1; frontier.length > 0; d++) {
+			frontier = expand(frontier, d);
+		}
+
+		IntStream.range(0, height).parallel().forEach(j -> {
+			for (int cell = j * width; cell < (j + 1) * width; cell++) {
+				direction[cell] = direction(cell);
+			}
+		});
+	}
+
+	/**
+	 * Reaches the open tiles next to a wavefront
+	 *
+	 * @param frontier the tiles d - 1 steps from a goal
+	 * @param d the distance of the tiles reached
+	 * @return the tiles reached, which may hold a tile more than once when
+	 *         the wavefront is expanded in parallel
+	 */
+	private int[] expand(final int[] frontier, final int d) {
+		if (frontier.length < PARALLEL_FRONTIER) {
+			IntList next = new IntList();
+			expand(frontier, 0, frontier.length, d, next);
+			return Arrays.copyOf(next.values, next.size);
+		}
+
+		final int chunks = (frontier.length + PARALLEL_FRONTIER - 1) / PARALLEL_FRONTIER;
+		final IntList[] next = new IntList[chunks];
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			next[c] = new IntList();
+			int from = c * PARALLEL_FRONTIER;
+			expand(frontier, from, Math.min(frontier.length, from + PARALLEL_FRONTIER), d, next[c]);
+		});
+		return IntList.concat(next);
+	}
+
+	private void expand(int[] frontier, int from, int to, int d, IntList next) {
+		for (int k = from; k < to; k++) {
+			int cell = frontier[k];
+			for (int dir = NORTH; dir <= WEST; dir++) {
+				int n = neighbour(cell, dir);
+
+				// tasks racing for a tile all write the same distance
+				if (n >= 0 && state[n] == OPEN && distance[n] == UNREACHED) {
+					distance[n] = d;
+					next.add(n);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Clears the distance of a tile and of every tile whose first step
+	 * leads to a cleared tile
+	 */
+	private void clear(int cell, IntList cleared) {
+		IntList stack = new IntList();
+		distance[cell] = UNREACHED;
+		direction[cell] = NONE;
+		stack.add(cell);
+
+		while (stack.size > 0) {
+			int c = stack.values[--stack.size];
+			cleared.add(c);
+			for (int d = NORTH; d <= WEST; d++) {
+				int n = neighbour(c, d);
+				if (n >= 0 && distance[n] != UNREACHED && direction[n] != NONE
+						&& neighbour(n, direction[n]) == c) {
+					distance[n] = UNREACHED;
+					direction[n] = NONE;
+					stack.add(n);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Spreads distances from a set of tiles, nearest first. The seeds are
+	 * sorted by distance and merged with a queue of the tiles they reach,
+	 * whose distances never decrease.
+	 */
+	private void spread(IntList seeds, IntList touched) {
+		long[] sorted = new long[seeds.size];
+		for (int k = 0; k < seeds.size; k++) {
+			int cell = seeds.values[k];
+			sorted[k] = (long) distance[cell] << 32 | cell;
+		}
+		Arrays.sort(sorted);
+
+		IntList queue = new IntList();
+		int head = 0;
+		int next = 0;
+		while (next < sorted.length || head < queue.size) {
+			int cell;
+			if (head == queue.size
+					|| (next < sorted.length && (int) (sorted[next] >>> 32) <= distance[queue.values[head]])) {
+				cell = (int) sorted[next];
+				if (distance[cell] != (int) (sorted[next++] >>> 32)) {
+					continue;
+				}
+			} else {
+				cell = queue.values[head++];
+			}
+
+			int d = distance[cell] + 1;
+			for (int dir = NORTH; dir <= WEST; dir++) {
+				int n = neighbour(cell, dir);
+				if (n >= 0 && state[n] == OPEN && d < distance[n]) {
+					distance[n] = d;
+					queue.add(n);
+					touched.add(n);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the direction of a neighbour one step nearer a goal
+	 */
+	private byte direction(int cell) {
+		int d = distance[cell];
+		if (d == 0 || d == UNREACHED) {
+			return NONE;
+		}
+		for (byte dir = NORTH; dir <= WEST; dir++) {
+			int n = neighbour(cell, dir);
+			if (n >= 0 && distance[n] == d - 1) {
+				return dir;
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * @return the state of a tile holding an ordinal
+	 */
+	private byte state(int cell, byte ordinal) {
+		boolean goal = goalTiles == null ? ordinal == goalOrdinal
+				: (goalTiles[cell >> 6] & 1L << cell) != 0;
+		if (goal) {
+			return GOAL;
+		}
+		return passable[ordinal] ? OPEN : BLOCKED;
+	}
+
+	/**
+	 * @return the neighbour of a tile in a direction, or -1 if it is off the map
+	 */
+	private int neighbour(int cell, int dir) {
+		switch (dir) {
+		case NORTH:
+			return cell >= width ? cell - width : -1;
+		case SOUTH:
+			return cell < (height - 1) * width ? cell + width : -1;
+		case EAST:
+			return cell % width < width - 1 ? cell + 1 : -1;
+		default:
+			return cell % width > 0 ? cell - 1 : -1;
+		}
+	}
+
+	private int index(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height) {
+			throw new IndexOutOfBoundsException("Invalid position: (" + x + "," + y + ")");
+		}
+		return y * width + x;
+	}
+
+	/**
+	 * @return the number of tiles in a map
+	 * @throws IllegalArgumentException if the map has too many tiles to index
+	 */
+	private static int cellCount(Mappable map) {
+		long cells = (long) map.getWidth() * map.getHeight();
+		if (cells > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Invalid map size: " + map.getWidth() + " by " + map.getHeight());
+		}
+		return (int) cells;
+	}
+
+	/**
+	 * @return a bitset of the goal tiles
+	 */
+	private static long[] goalTiles(Mappable map, int[] goals) {
+		int width = map.getWidth();
+		long[] tiles = new long[(int) (((long) cellCount(map) + 63) >> 6)];
+		for (int k = 0; k + 1 < goals.length; k += 2) {
+			int x = goals[k];
+			int y = goals[k + 1];
+			if (x < 0 || x >= width || y < 0 || y >= map.getHeight()) {
+				throw new IndexOutOfBoundsException("Invalid goal: (" + x + "," + y + ")");
+			}
+			int cell = y * width + x;
+			tiles[cell >> 6] |= 1L << cell;
+		}
+		return tiles;
+	}
+
+	/**
+	 * A growable list of tiles
+	 */
+	private static final class IntList {
+
+		int[] values = new int[16];
+		int size;
+
+		void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		static int[] concat(IntList[] lists) {
+			int total = 0;
+			for (IntList list : lists) {
+				total += list.size;
+			}
+			int[] all = new int[total];
+			int next = 0;
+			for (IntList list : lists) {
+				System.arraycopy(list.values, 0, all, next, list.size);
+				next += list.size;
+			}
+			return all;
+		}
+	}
+}
@@ -34,6 +34,16 @@ public enum IndoorTile implements Tileable {
 			0xf04020,
 	};
 	
+	// The Color object for each tile type, cached so that toColor() does
+	// not allocate. An entry is replaced whenever setColor() is called.
+	static private Color[] colors = new Color[tileColors.length];
+	
+	static {
+		for (int k = 0; k < tileColors.length; k++) {
+			colors[k] = new Color(tileColors[k]);
+		}
+	}
+	
 	private IndoorTile(char value) {
 		this.value = value;
 	}
@@ -48,6 +58,8 @@ public enum IndoorTile implements Tileable {
 		if (index < tileColors.length) {
 			// prevent invalid colours from raising an exception
 			tileColors[index] = color % 0xffffff;
+			colors[index] = new Color(tileColors[index]);
+			TileColors.changed();
 		}
 	}
 
@@ -62,7 +74,7 @@ public enum IndoorTile implements Tileable {
 	 * @return the Tile colour
 	 */
 	public Color toColor() {
-		return new Color(tileColors[this.ordinal()]);	
+		return colors[this.ordinal()];
 	}
 	
 	/**
@@ -78,4 +90,11 @@ public enum IndoorTile implements Tileable {
 	public boolean isPassable() {
 		return this != Chair && this != Desk && this != Student && this != Lecturer;
 	}
+
+	/**
+	 * @return True if a tile blocks sight (i.e. you cannot see through a closed door)
+	 */
+	public boolean isOpaque() {
+		return this == Door;
+	}
 }
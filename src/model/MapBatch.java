@@ -0,0 +1,277 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ *
+ * A MapBatch records setTerrain fills and applies them to a TiledMap
+ * in one pass when committed.
+ *
+ * Overlapping fills are resolved before anything is written: a later fill
+ * hides an earlier one, so every tile in the batch is written exactly once,
+ * row by row. The batch's bounds are checked once, when it is committed.
+ *
+ * The map is divided into bands of rows between the fills' top and bottom
+ * edges. Every row in a band is covered by the same fills, so the band's
+ * spans are resolved once and then written to each of its rows.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public final class MapBatch {
+
+	// each recorded fill is stored as x, y, endX, endY and tile ordinal
+	private static final int FIELDS = 5;
+
+	private final TiledMap map;
+	private final Tileable initTile;
+	private int[] fills = new int[16 * FIELDS];
+	private int fillCount = 0;
+
+	// the number of spans produced by the last resolveBand
+	private int spanCount;
+
+	// input parameter validation return indicators
+	private static final boolean INVALID = false;
+	private static final boolean SUCCESS = true;
+
+	/**
+	 * @param map the map the batch is committed to
+	 * @param initTile a tile of the map's tile type family
+	 */
+	MapBatch(TiledMap map, Tileable initTile) {
+		this.map = map;
+		this.initTile = initTile;
+	}
+
+	/**
+	 * Records a fill of the Terrain area with the defined type.
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the new region's width
+	 * @param height the new region's height
+	 * @param tileType the Tile type
+	 *
+	 * @return True if the fill was recorded
+	 */
+	public boolean setTerrain(int x, int y, int width, int height, Tileable tileType) {
+		if (tileType.getClass() != initTile.getClass()) {
+			System.err.println("Invalid Tile type: "+tileType);
+			return INVALID;
+		}
+		if (width <= 0 || height <= 0) {
+			return SUCCESS;
+		}
+		if (fillCount * FIELDS == fills.length) {
+			fills = Arrays.copyOf(fills, fills.length * 2);
+		}
+		int index = fillCount++ * FIELDS;
+		fills[index] = x;
+		fills[index + 1] = y;
+		fills[index + 2] = x + width;
+		fills[index + 3] = y + height;
+		fills[index + 4] = tileType.ordinal();
+		return SUCCESS;
+	}
+
+	/**
+	 * Records a fill of the Terrain area with a random type
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the new region's width
+	 * @param height the new region's height
+	 *
+	 * @return True if the fill was recorded
+	 */
+	public boolean setTerrain(int x, int y, int width, int height) {
+		return setTerrain(x, y, width, height, initTile.getRandom());
+	}
+
+	/**
+	 * @return the number of fills recorded since the last commit
+	 */
+	public int size() {
+		return fillCount;
+	}
+
+	/**
+	 * Discards the recorded fills
+	 */
+	public void clear() {
+		fillCount = 0;
+	}
+
+	/**
+	 * Applies the recorded fills to the map and clears the batch. Nothing
+	 * is written if any fill lies outside the map.
+	 *
+	 * @return True if the fills were applied
+	 */
+	public boolean commit() {
+		boolean result = map.applyBatch(this);
+		if (result) {
+			fillCount = 0;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the bounding box of the recorded fills as x, y, endX and endY
+	 */
+	int[] getBounds() {
+		int[] bounds = { Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE };
+		for (int f = 0; f < fillCount * FIELDS; f += FIELDS) {
+			bounds[0] = Math.min(bounds[0], fills[f]);
+			bounds[1] = Math.min(bounds[1], fills[f + 1]);
+			bounds[2] = Math.max(bounds[2], fills[f + 2]);
+			bounds[3] = Math.max(bounds[3], fills[f + 3]);
+		}
+		return bounds;
+	}
+
+	/**
+	 * Resolves the fills into bands of rows, each with a list of disjoint
+	 * spans, and passes them to the writer in row order.
+	 *
+	 * @param writer receives each band
+	 */
+	void resolve(BandWriter writer) {
+
+		// the band edges are every fill's top and bottom row
+		int[] edges = new int[fillCount * 2];
+		for (int k = 0; k < fillCount; k++) {
+			edges[2 * k] = fills[k * FIELDS + 1];
+			edges[2 * k + 1] = fills[k * FIELDS + 3];
+		}
+		Arrays.sort(edges);
+
+		// fills ordered by their first row, so they can join the band as it
+		// moves down, each stored as its first row over its index
+		long[] byStart = new long[fillCount];
+		for (int k = 0; k < fillCount; k++) {
+			byStart[k] = ((long) fills[k * FIELDS + 1] << 32) | k;
+		}
+		Arrays.sort(byStart);
+
+		// the indices of the fills covering the band, in recording order
+		int[] active = new int[fillCount];
+		int activeCount = 0;
+		int[] spans = new int[16 * 3];
+		int next = 0;
+
+		for (int e = 0; e < edges.length - 1; e++) {
+			int top = edges[e];
+			int bottom = edges[e + 1];
+			if (top == bottom) {
+				continue;
+			}
+			int kept = 0;
+			for (int a = 0; a < activeCount; a++) {
+				if (fills[active[a] * FIELDS + 3] > top) {
+					active[kept++] = active[a];
+				}
+			}
+			activeCount = kept;
+			while (next < fillCount && (int) (byStart[next] >> 32) <= top) {
+				int k = (int) byStart[next++];
+				int at = -Arrays.binarySearch(active, 0, activeCount, k) - 1;
+				System.arraycopy(active, at, active, at + 1, activeCount - at);
+				active[at] = k;
+				activeCount++;
+			}
+			if (activeCount == 0) {
+				continue;
+			}
+			spans = resolveBand(active, activeCount, spans);
+			writer.writeBand(top, bottom, spans, spanCount);
+		}
+	}
+
+	/**
+	 * Resolves the fills covering a band into disjoint spans of x, endX and
+	 * ordinal, in which the most recent fill wins.
+	 *
+	 * @param active the fills covering the band, in recording order
+	 * @param count the number of fills covering the band
+	 * @param spans a buffer for the spans, which may be replaced if too small
+	 * @return the span buffer
+	 */
+	private int[] resolveBand(int[] active, int count, int[] spans) {
+
+		// x edges of the fills, each tagged with the fill's place a in active:
+		// +a+1 opens, -(a+1) closes
+		long[] events = new long[count * 2];
+		int n = 0;
+		for (int a = 0; a < count; a++) {
+			int k = active[a];
+			events[n++] = ((long) fills[k * FIELDS] << 32) | (0x80000000L + a + 1);
+			events[n++] = ((long) fills[k * FIELDS + 2] << 32) | (0x80000000L - a - 1);
+		}
+		Arrays.sort(events);
+
+		// the fills covering the current x, as a bitset over their places in
+		// active, so the highest set bit is the most recent fill
+		long[] live = new long[(count + 63) >>> 6];
+		int liveCount = 0;
+		spanCount = 0;
+		int e = 0;
+		while (e < n) {
+			int x = (int) (events[e] >> 32);
+			while (e < n && (int) (events[e] >> 32) == x) {
+				int tag = (int) ((events[e] & 0xffffffffL) - 0x80000000L);
+				if (tag > 0) {
+					live[(tag - 1) >>> 6] |= 1L << (tag - 1);
+					liveCount++;
+				} else {
+					live[(-tag - 1) >>> 6] &= ~(1L << (-tag - 1));
+					liveCount--;
+				}
+				e++;
+			}
+			if (liveCount == 0 || e == n) {
+				continue;
+			}
+			int endX = (int) (events[e] >> 32);
+			int word = live.length - 1;
+			while (live[word] == 0) {
+				word--;
+			}
+			int last = (word << 6) + 63 - Long.numberOfLeadingZeros(live[word]);
+			int ordinal = fills[active[last] * FIELDS + 4];
+
+			// extend the previous span when it has the same type
+			if (spanCount > 0 && spans[spanCount * 3 - 2] == x && spans[spanCount * 3 - 1] == ordinal) {
+				spans[spanCount * 3 - 2] = endX;
+				continue;
+			}
+			if (spanCount * 3 == spans.length) {
+				spans = Arrays.copyOf(spans, spans.length * 2);
+			}
+			spans[spanCount * 3] = x;
+			spans[spanCount * 3 + 1] = endX;
+			spans[spanCount * 3 + 2] = ordinal;
+			spanCount++;
+		}
+		return spans;
+	}
+
+	/**
+	 * Receives the resolved bands of a batch
+	 */
+	interface BandWriter {
+
+		/**
+		 * Writes the spans to every row of a band
+		 *
+		 * @param y the band's first row
+		 * @param endY the row after the band's last
+		 * @param spans the spans, stored as x, endX and ordinal
+		 * @param count the number of spans
+		 */
+		void writeBand(int y, int endY, int[] spans, int count);
+	}
+}
@@ -0,0 +1,342 @@
+package model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ *
+ * MapFile saves maps to, and loads them from, a compact binary file.
+ *
+ * The file starts with a header holding the map's dimensions, its tile type
+ * family and the number of tiles of each type. The body holds one byte per
+ * tile, row by row in getTerrainRow order, either as they are or with
+ * each row run-length encoded. Encoded rows are found through a table of
+ * row offsets, so any row can be read without decoding the rows before it.
+ *
+ * Files are read and written through memory mapped buffers. open() returns
+ * the file itself as a read-only map, whose pages are only read from disk
+ * when its tiles are, so even a very large map opens at once. load() copies
+ * the file into a TiledMap, in parallel stripes of rows.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public final class MapFile {
+
+	static final int MAGIC = 0x544d4150;
+	static final int VERSION = 1;
+
+	// the body encodings
+	static final int RAW = 0;
+	static final int RUN_LENGTH = 1;
+
+	// the header's fixed part, ending with the offset of the row table or body
+	static final int FIXED_HEADER = 28;
+
+	// the largest part of a file written or mapped in one buffer
+	static final int WINDOW_BYTES = 1 << 30;
+
+	// the size of the blocks encoded rows are written in
+	private static final int WRITE_BYTES = 1 << 20;
+
+	private MapFile() {
+	}
+
+	/**
+	 * Saves a map, replacing the file
+	 *
+	 * @param map the map
+	 * @param file the file written
+	 * @param runLength True to run-length encode each row, which suits maps
+	 * with large areas of one tile type
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void save(Mappable map, File file, boolean runLength) throws IOException {
+		int width = map.getWidth();
+		int height = map.getHeight();
+		Tileable[] tileTypes = map.getTileTypes();
+
+		// the variable part of the header, written after the fixed part
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream header = new DataOutputStream(bytes);
+		header.writeUTF(tileTypes[0].getClass().getName());
+		header.writeInt(tileTypes.length);
+		for (Tileable tileType : tileTypes) {
+			header.writeUTF(tileType.toString());
+			header.writeLong(map.getTileCount(tileType));
+		}
+		header.flush();
+
+		// the row table, if any, is aligned to eight bytes
+		long tableOffset = (FIXED_HEADER + bytes.size() + 7) & ~7L;
+
+		ByteBuffer fixed = ByteBuffer.allocate((int) tableOffset);
+		fixed.putInt(MAGIC);
+		fixed.putInt(VERSION);
+		fixed.putInt(width);
+		fixed.putInt(height);
+		fixed.putInt(runLength ? RUN_LENGTH : RAW);
+		fixed.putLong(tableOffset);
+		fixed.put(bytes.toByteArray());
+		fixed.clear();
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			write(channel, fixed, 0);
+			if (runLength) {
+				saveEncoded(map, channel, tableOffset);
+			} else {
+				saveRaw(map, channel, tableOffset);
+			}
+		}
+	}
+
+	/**
+	 * Loads a map into memory
+	 *
+	 * @param file the file read
+	 * @return the map
+	 * @throws IOException if the file cannot be read, or is not a map file
+	 */
+	public static TiledMap load(File file) throws IOException {
+		MappedMap source = open(file);
+		TiledMap map = new TiledMap(source.getWidth(), source.getHeight(), source.getTileTypes()[0]);
+		if (!map.load(source::readRow)) {
+			throw new IOException("Invalid map file: a corrupt row or unknown tile type in " + file);
+		}
+		return map;
+	}
+
+	/**
+	 * Opens a map file as a read-only map. Tiles are read from the file
+	 * as they are needed, so the file must not be changed while it is open.
+	 *
+	 * @param file the file read
+	 * @return the map
+	 * @throws IOException if the file cannot be read, or is not a map file
+	 */
+	public static MappedMap open(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+			if (channel.size() < FIXED_HEADER || in.readInt() != MAGIC) {
+				throw new IOException("Invalid map file: " + file);
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Invalid map file version: " + version);
+			}
+			int width = in.readInt();
+			int height = in.readInt();
+			int encoding = in.readInt();
+			long tableOffset = in.readLong();
+			if (width <= 0 || height <= 0 || (encoding != RAW && encoding != RUN_LENGTH)) {
+				throw new IOException("Invalid map file: " + file);
+			}
+
+			Tileable[] tileTypes = readTileTypes(in.readUTF());
+			int types = in.readInt();
+			if (types != tileTypes.length) {
+				throw new IOException("Invalid map file: the tile types have changed");
+			}
+			long[] tileCounts = new long[types];
+			for (int k = 0; k < types; k++) {
+				if (!in.readUTF().equals(tileTypes[k].toString())) {
+					throw new IOException("Invalid map file: the tile types have changed");
+				}
+				tileCounts[k] = in.readLong();
+			}
+
+			// the offset of each row within the file, and one past the last
+			long[] rows = new long[height + 1];
+			if (encoding == RAW) {
+				for (int y = 0; y <= height; y++) {
+					rows[y] = tableOffset + (long) y * width;
+				}
+			} else {
+				long bodyOffset = tableOffset + 8L * (height + 1);
+				MappedByteBuffer table = channel.map(MapMode.READ_ONLY, tableOffset, 8L * (height + 1));
+				for (int y = 0; y <= height; y++) {
+					rows[y] = bodyOffset + table.getLong(y * 8);
+				}
+			}
+			if (rows[height] > channel.size()) {
+				throw new IOException("Invalid map file: " + file + " is truncated");
+			}
+
+			int[] rowWindow = new int[height];
+			int[] rowStart = new int[height];
+			MappedByteBuffer[] windows = map(channel, rows, rowWindow, rowStart);
+			return new MappedMap(width, height, tileTypes, tileCounts, encoding == RUN_LENGTH,
+					windows, rowWindow, rowStart);
+		}
+	}
+
+	/**
+	 * Maps whole rows into buffers of at most WINDOW_BYTES
+	 *
+	 * @param channel the open file
+	 * @param rows the offset of each row, and one past the last
+	 * @param rowWindow receives the buffer holding each row
+	 * @param rowStart receives the offset of each row within its buffer
+	 * @return the buffers
+	 * @throws IOException if a row is too long or the file cannot be mapped
+	 */
+	static MappedByteBuffer[] map(FileChannel channel, long[] rows, int[] rowWindow, int[] rowStart)
+			throws IOException {
+		int height = rows.length - 1;
+		int count = 0;
+		MappedByteBuffer[] windows = new MappedByteBuffer[4];
+		int first = 0;
+		while (first < height) {
+			int last = first + 1;
+			if (rows[last] - rows[first] > Integer.MAX_VALUE) {
+				throw new IOException("Invalid map file: row " + first + " is too long");
+			}
+			while (last < height && rows[last + 1] - rows[first] <= WINDOW_BYTES) {
+				last++;
+			}
+			for (int y = first; y < last; y++) {
+				rowWindow[y] = count;
+				rowStart[y] = (int) (rows[y] - rows[first]);
+			}
+			if (count == windows.length) {
+				windows = Arrays.copyOf(windows, count * 2);
+			}
+			windows[count++] = channel.map(MapMode.READ_ONLY, rows[first], rows[last] - rows[first]);
+			first = last;
+		}
+		return Arrays.copyOf(windows, count);
+	}
+
+	/**
+	 * Returns the tile type family named in a file. The class is only
+	 * initialised once it is known to be a Tileable enum, so a file cannot
+	 * run the static initialiser of any other class.
+	 */
+	private static Tileable[] readTileTypes(String name) throws IOException {
+		try {
+			Class<?> family = Class.forName(name, false, Tileable.class.getClassLoader());
+			if (!family.isEnum() || !Tileable.class.isAssignableFrom(family)) {
+				throw new IOException("Invalid tile type family: " + name);
+			}
+			return (Tileable[]) family.getEnumConstants();
+		} catch (ClassNotFoundException e) {
+			throw new IOException("Invalid tile type family: " + name, e);
+		}
+	}
+
+	/**
+	 * Writes the rows as they are, through mapped windows of the file
+	 */
+	private static void saveRaw(Mappable map, FileChannel channel, long bodyOffset) throws IOException {
+		int width = map.getWidth();
+		int height = map.getHeight();
+		int windowRows = Math.max(1, WINDOW_BYTES / width);
+		byte[] row = new byte[width];
+
+		for (int first = 0; first < height; first += windowRows) {
+			int last = Math.min(height, first + windowRows);
+			MappedByteBuffer window = channel.map(MapMode.READ_WRITE,
+					bodyOffset + (long) first * width, (long) (last - first) * width);
+			for (int y = first; y < last; y++) {
+				map.getTerrainRow(y, row);
+				window.put(row);
+			}
+			window.force();
+		}
+	}
+
+	/**
+	 * Writes each row as runs of one ordinal followed by the run's length,
+	 * which is stored seven bits to a byte, lowest first. The row table is
+	 * written last, once the length of every row is known.
+	 */
+	private static void saveEncoded(Mappable map, FileChannel channel, long tableOffset) throws IOException {
+		int width = map.getWidth();
+		int height = map.getHeight();
+		long bodyOffset = tableOffset + 8L * (height + 1);
+		byte[] row = new byte[width];
+
+		// an encoded row takes at most two bytes for each tile
+		ByteBuffer block = ByteBuffer.allocate((int) Math.max(WRITE_BYTES, Math.min(Integer.MAX_VALUE - 8, 2L * width)));
+		ByteBuffer table = ByteBuffer.allocate(WRITE_BYTES);
+		long tablePosition = tableOffset;
+		long position = bodyOffset;
+		long offset = 0;
+
+		for (int y = 0; y < height; y++) {
+			if (!table.hasRemaining()) {
+				table.flip();
+				tablePosition += write(channel, table, tablePosition);
+				table.clear();
+			}
+			table.putLong(offset);
+
+			map.getTerrainRow(y, row);
+			if (block.remaining() < 2L * width) {
+				block.flip();
+				position += write(channel, block, position);
+				block.clear();
+			}
+			int start = block.position();
+			encodeRow(row, block);
+			offset += block.position() - start;
+		}
+		if (!table.hasRemaining()) {
+			table.flip();
+			tablePosition += write(channel, table, tablePosition);
+			table.clear();
+		}
+		table.putLong(offset);
+		table.flip();
+		write(channel, table, tablePosition);
+		block.flip();
+		write(channel, block, position);
+	}
+
+	/**
+	 * Run-length encodes a row into a buffer
+	 */
+	private static void encodeRow(byte[] row, ByteBuffer out) {
+		int i = 0;
+		while (i < row.length) {
+			byte ordinal = row[i];
+			int start = i;
+			while (i < row.length && row[i] == ordinal) {
+				i++;
+			}
+			out.put(ordinal);
+			int run = i - start;
+			while (run >= 0x80) {
+				out.put((byte) (run | 0x80));
+				run >>>= 7;
+			}
+			out.put((byte) run);
+		}
+	}
+
+	/**
+	 * Writes the whole of a buffer at a position in the file
+	 *
+	 * @return the number of bytes written
+	 */
+	private static int write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		int length = buffer.remaining();
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+		return length;
+	}
+}
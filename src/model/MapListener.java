@@ -0,0 +1,26 @@
+package model;
+
+/**
+ *
+ * The MapListener interface is notified of the tiles written to a map,
+ * so that renderers and other observers can update only what changed.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public interface MapListener {
+
+	/**
+	 * Called after a rectangle of tiles has been written. The rectangle is
+	 * given in the same co-ordinates as getTerrain, i.e. as it is rendered.
+	 *
+	 * @param map the map that changed
+	 * @param x the rectangle's left x position
+	 * @param y the rectangle's top y position
+	 * @param width the rectangle's width
+	 * @param height the rectangle's height
+	 */
+	public void tilesChanged(Mappable map, int x, int y, int width, int height);
+}
@@ -0,0 +1,339 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *
+ * A MapPyramid holds downsampled overviews of a map for drawing it zoomed
+ * out. Each tile of level k stands for a 2^k x 2^k block of map tiles.
+ *
+ * The first stored level holds the majority tile type of each block. Every
+ * level above it holds the majority of the four tiles below it, which is a
+ * close and much cheaper stand-in for the majority of the whole block. Ties
+ * go to the lowest ordinal.
+ *
+ * A pyramid made by listenTo() listens to its map and recomputes only the
+ * blocks above each rectangle written, so it stays current while the map
+ * is edited. It is added as a listener before it is built, and the
+ * rectangles written during the build are queued and recomputed once the
+ * build is done, so no edit is lost. Updates and reads hold the pyramid's
+ * lock, so the map may be edited from several threads, as a
+ * ConcurrentTiledMap is, while another thread draws the pyramid.
+ *
+ * Co-ordinates are the same as getTerrain's, divided by 2^k.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public final class MapPyramid implements MapListener {
+
+	private final Mappable map;
+	private final Tileable[] tileTypes;
+	private final int baseLevel;
+
+	// levels[k - baseLevel] holds level k, row after row
+	private final byte[][] levels;
+	private final int[] widths;
+	private final int[] heights;
+
+	// the rectangles written while the pyramid was being built
+	private final List<int[]> pending = new ArrayList<>();
+	private boolean built = false;
+
+	/**
+	 * Builds a pyramid from level 1 upwards, or from the first level small
+	 * enough to be held in an array
+	 *
+	 * @param map the map
+	 */
+	public MapPyramid(Mappable map) {
+		this(map, firstLevel(map.getWidth(), map.getHeight()));
+	}
+
+	/**
+	 * Builds a pyramid from a given level upwards, up to a single tile
+	 *
+	 * @param map the map
+	 * @param baseLevel the first level stored, at least 1
+	 */
+	public MapPyramid(Mappable map, int baseLevel) {
+		this(map, baseLevel, true);
+	}
+
+	/**
+	 * Builds a pyramid that listens to its map, so it stays current as the
+	 * map is edited. Remove it from the map's listeners once it is no
+	 * longer needed.
+	 *
+	 * @param map the map
+	 * @return the pyramid, built from level 1 upwards or from the first
+	 *         level small enough to be held in an array
+	 */
+	public static MapPyramid listenTo(Mappable map) {
+		MapPyramid pyramid = new MapPyramid(map, firstLevel(map.getWidth(), map.getHeight()), false);
+		map.addMapListener(pyramid);
+		pyramid.build();
+		return pyramid;
+	}
+
+	/**
+	 * Allocates a pyramid's levels, building them now or leaving them to build()
+	 */
+	private MapPyramid(Mappable map, int baseLevel, boolean build) {
+		this.map = map;
+		this.tileTypes = map.getTileTypes();
+		this.baseLevel = Math.max(1, baseLevel);
+
+		int count = 1;
+		while (size(map.getWidth(), this.baseLevel + count - 1) > 1
+				|| size(map.getHeight(), this.baseLevel + count - 1) > 1) {
+			count++;
+		}
+		levels = new byte[count][];
+		widths = new int[count];
+		heights = new int[count];
+		for (int k = 0; k < count; k++) {
+			widths[k] = size(map.getWidth(), this.baseLevel + k);
+			heights[k] = size(map.getHeight(), this.baseLevel + k);
+			levels[k] = new byte[widths[k] * heights[k]];
+		}
+		if (build) {
+			build();
+		}
+	}
+
+	/**
+	 * @return the first level stored
+	 */
+	public int getBaseLevel() {
+		return baseLevel;
+	}
+
+	/**
+	 * @return the last level stored, which is a single tile
+	 */
+	public int getTopLevel() {
+		return baseLevel + levels.length - 1;
+	}
+
+	/**
+	 * @param level the level
+	 * @return the level's width in tiles
+	 */
+	public int getWidth(int level) {
+		return widths[level - baseLevel];
+	}
+
+	/**
+	 * @param level the level
+	 * @return the level's height in tiles
+	 */
+	public int getHeight(int level) {
+		return heights[level - baseLevel];
+	}
+
+	/**
+	 * Returns the ordinal of a level's tile, which indexes the map's
+	 * getTileTypes(). Above the first stored level this is the majority of
+	 * the four tiles below it, which may differ from the majority of the
+	 * tile's whole block of map tiles.
+	 *
+	 * @param level the level
+	 * @param x the level's x position
+	 * @param y the level's y position
+	 * @return the tile ordinal
+	 */
+	public synchronized int getOrdinal(int level, int x, int y) {
+		int k = level - baseLevel;
+		return levels[k][y * widths[k] + x];
+	}
+
+	/**
+	 * Returns the Tile type of a level's tile
+	 *
+	 * @param level the level
+	 * @param x the level's x position
+	 * @param y the level's y position
+	 * @return the Tile type
+	 */
+	public Tileable getTerrain(int level, int x, int y) {
+		return tileTypes[getOrdinal(level, x, y)];
+	}
+
+	/**
+	 * Copies the ordinals of part of a level's row, which index the map's
+	 * getTileTypes()
+	 *
+	 * @param level the level
+	 * @param x the level's x position of the first tile
+	 * @param y the level's y position
+	 * @param count the number of tiles
+	 * @param ordinals receives the ordinals, at least count long
+	 */
+	public synchronized void getOrdinals(int level, int x, int y, int count, byte[] ordinals) {
+		int k = level - baseLevel;
+		System.arraycopy(levels[k], y * widths[k] + x, ordinals, 0, count);
+	}
+
+	/**
+	 * Recomputes the blocks above the written tiles, level by level, or
+	 * queues them if the pyramid is still being built
+	 */
+	@Override
+	public synchronized void tilesChanged(Mappable map, int x, int y, int width, int height) {
+		if (map != this.map || width <= 0 || height <= 0) {
+			return;
+		}
+		if (!built) {
+			pending.add(new int[] { x, y, width, height });
+			return;
+		}
+		update(x, y, width, height);
+	}
+
+	/**
+	 * Fills every level from the map, then recomputes the rectangles
+	 * written while it did so. The levels are filled without holding the
+	 * lock, so edits made meanwhile are queued rather than held up.
+	 */
+	private void build() {
+		buildBase();
+		for (int k = 1; k < levels.length; k++) {
+			reduce(k, 0, 0, widths[k], heights[k]);
+		}
+		synchronized (this) {
+			for (int[] area : pending) {
+				update(area[0], area[1], area[2], area[3]);
+			}
+			pending.clear();
+			built = true;
+		}
+	}
+
+	/**
+	 * Recomputes the blocks above a rectangle of map tiles, level by level
+	 */
+	private void update(int x, int y, int width, int height) {
+		int shift = baseLevel;
+		int fromX = x >> shift;
+		int fromY = y >> shift;
+		int toX = ((x + width - 1) >> shift) + 1;
+		int toY = ((y + height - 1) >> shift) + 1;
+		updateBase(fromX, fromY, toX, toY);
+
+		for (int k = 1; k < levels.length; k++) {
+			fromX >>= 1;
+			fromY >>= 1;
+			toX = ((toX - 1) >> 1) + 1;
+			toY = ((toY - 1) >> 1) + 1;
+			reduce(k, fromX, fromY, toX, toY);
+		}
+	}
+
+	/**
+	 * Fills the base level from the map, streaming one band of rows at a time
+	 */
+	private void buildBase() {
+		int block = 1 << baseLevel;
+		int mapWidth = map.getWidth();
+		int types = tileTypes.length;
+		int[] counts = new int[widths[0] * types];
+		byte[] row = new byte[mapWidth];
+
+		for (int by = 0; by < heights[0]; by++) {
+			Arrays.fill(counts, 0);
+			int toRow = Math.min(map.getHeight(), (by + 1) * block);
+			for (int j = by * block; j < toRow; j++) {
+				map.getTerrainRow(j, row);
+				for (int i = 0; i < mapWidth; i++) {
+					counts[(i >> baseLevel) * types + row[i]]++;
+				}
+			}
+			for (int bx = 0; bx < widths[0]; bx++) {
+				levels[0][by * widths[0] + bx] = majority(counts, bx * types, types);
+			}
+		}
+	}
+
+	/**
+	 * Recomputes the base level blocks [fromX, toX) x [fromY, toY) from the map
+	 */
+	private void updateBase(int fromX, int fromY, int toX, int toY) {
+		int block = 1 << baseLevel;
+		int types = tileTypes.length;
+		int[] counts = new int[types];
+
+		for (int by = fromY; by < toY; by++) {
+			for (int bx = fromX; bx < toX; bx++) {
+				Arrays.fill(counts, 0);
+				int toRow = Math.min(map.getHeight(), (by + 1) * block);
+				int toColumn = Math.min(map.getWidth(), (bx + 1) * block);
+				for (int j = by * block; j < toRow; j++) {
+					for (int i = bx * block; i < toColumn; i++) {
+						counts[map.getTerrain(i, j).ordinal()]++;
+					}
+				}
+				levels[0][by * widths[0] + bx] = majority(counts, 0, types);
+			}
+		}
+	}
+
+	/**
+	 * Recomputes the tiles [fromX, toX) x [fromY, toY) of level k from the
+	 * level below
+	 */
+	private void reduce(int k, int fromX, int fromY, int toX, int toY) {
+		byte[] below = levels[k - 1];
+		int belowWidth = widths[k - 1];
+		int belowHeight = heights[k - 1];
+		int types = tileTypes.length;
+		int[] counts = new int[types];
+
+		for (int y = fromY; y < toY; y++) {
+			for (int x = fromX; x < toX; x++) {
+				Arrays.fill(counts, 0);
+				for (int j = 2 * y; j < Math.min(belowHeight, 2 * y + 2); j++) {
+					for (int i = 2 * x; i < Math.min(belowWidth, 2 * x + 2); i++) {
+						counts[below[j * belowWidth + i]]++;
+					}
+				}
+				levels[k][y * widths[k] + x] = majority(counts, 0, types);
+			}
+		}
+	}
+
+	/**
+	 * @return the ordinal with the highest count, ties going to the lowest
+	 */
+	private static byte majority(int[] counts, int offset, int types) {
+		int best = 0;
+		for (int t = 1; t < types; t++) {
+			if (counts[offset + t] > counts[offset + best]) {
+				best = t;
+			}
+		}
+		return (byte) best;
+	}
+
+	/**
+	 * @return the number of level tiles covering a length of map tiles
+	 */
+	private static int size(int length, int level) {
+		return (int) (((long) length + (1L << level) - 1) >> level);
+	}
+
+	/**
+	 * @return the first level whose tiles fit in an array
+	 */
+	private static int firstLevel(int width, int height) {
+		int level = 1;
+		while ((long) size(width, level) * size(height, level) > Integer.MAX_VALUE - 8) {
+			level++;
+		}
+		return level;
+	}
+}
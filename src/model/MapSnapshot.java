@@ -0,0 +1,358 @@
+package model;
+
+import view.MapRenderer;
+
+/**
+ *
+ * A MapSnapshot is a read-only view of a TiledMap as it was when
+ * TiledMap.snapshot() was called. It shares the map's tiles rather than
+ * copying them, and the map copies a band of rows before it next writes
+ * to it, so the snapshot never changes however the map is edited.
+ *
+ * The tiles may be read by any number of threads while the map is being
+ * edited, so renderers, exporters and analysis jobs can work on a
+ * consistent frame. Region counts build their tables on first use and
+ * are synchronized; the passable regions must be used by one thread.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public final class MapSnapshot implements Mappable {
+
+	// The stored map dimensions
+	private final int mapWidth;
+	private final int mapHeight;
+
+	private final TileGrid tiledMap;
+	private final Tileable[] tileTypes;
+	private final long[] tileCounts;
+	private final boolean[] passable;
+	private MapRenderer myRenderer;
+
+	// Rectangle counts and passable regions, created on first use
+	private SummedAreaTables regionTables;
+	private PassableRegions regions;
+
+	// input parameter validation return indicators
+	private static final boolean INVALID = false;
+
+	// the ordinal counted for a tile type outside the family, which no tile has
+	private static final int NO_TILES = -2;
+
+	/**
+	 * @param grid the snapshot of the map's tiles
+	 * @param tileTypes the tile type family
+	 * @param tileCounts the number of tiles of each type, which is kept
+	 */
+	MapSnapshot(TileGrid grid, Tileable[] tileTypes, long[] tileCounts) {
+		this.tiledMap = grid;
+		this.mapWidth = grid.getWidth();
+		this.mapHeight = grid.getHeight();
+		this.tileTypes = tileTypes;
+		this.tileCounts = tileCounts;
+
+		passable = new boolean[tileTypes.length];
+		for (int k = 0; k < tileTypes.length; k++) {
+			passable[k] = tileTypes[k].isPassable();
+		}
+	}
+
+	/**
+	 * Returns the width of the map
+	 *
+	 * @return the map's width
+	 */
+	public int getWidth() {
+		return mapWidth;
+	}
+
+	/**
+	 * Returns the height of the map
+	 *
+	 * @return the map's height
+	 */
+	public int getHeight() {
+		return mapHeight;
+	}
+
+	/**
+	 * Sets the map renderer
+	 *
+	 * @param renderer the User specified renderer
+	 */
+	public void setRenderer(MapRenderer renderer) {
+		this.myRenderer = renderer;
+	}
+
+	/**
+	 * Returns the Tile type at co-ordinate (x, y).
+	 *
+	 * @param x the map's x position
+	 * @param y the map's y position
+	 * @return the Tile type
+	 */
+	public Tileable getTerrain(int x, int y) {
+		return tileTypes[tiledMap.get(x, translateY(y))];
+	}
+
+	/**
+	 * Checks if the tile at co-ordinate (x, y) is passable. The co-ordinates
+	 * are the same as getTerrain's.
+	 *
+	 * @param x the map's x position
+	 * @param y the map's y position
+	 * @return True if the tile is passable
+	 */
+	public boolean isPassable(int x, int y) {
+		return passable[tiledMap.get(x, translateY(y))];
+	}
+
+	/**
+	 * Returns the map's tile type family, indexed by ordinal
+	 *
+	 * @return the tile types that can be stored in the map
+	 */
+	public Tileable[] getTileTypes() {
+		return tileTypes.clone();
+	}
+
+	/**
+	 * Copies the tile ordinals of row y into an array. The row is copied in one step.
+	 *
+	 * @param y the map's y position
+	 * @param ordinals receives the row's ordinals, at least getWidth() long
+	 */
+	public void getTerrainRow(int y, byte[] ordinals) {
+		int row = translateY(y);
+		System.arraycopy(tiledMap.rowArray(row), tiledMap.rowOffset(row), ordinals, 0, mapWidth);
+	}
+
+	/**
+	 * The snapshot is read only, so nothing is set
+	 *
+	 * @return False
+	 */
+	public boolean setTerrain(int x, int y, int width, int height, Tileable tileType) {
+		return readOnly();
+	}
+
+	/**
+	 * The snapshot is read only, so nothing is set
+	 *
+	 * @return False
+	 */
+	public boolean setTerrain(int x, int y, int width, int height) {
+		return readOnly();
+	}
+
+	/**
+	 * The snapshot is read only, so nothing is set
+	 *
+	 * @return False
+	 */
+	public boolean setTerrainRandomly(int x, int y, int width, int height) {
+		return readOnly();
+	}
+
+	/**
+	 * The snapshot is read only, so nothing is set
+	 *
+	 * @return False
+	 */
+	public boolean setTerrainRandomly(int x, int y, int width, int height, long seed) {
+		return readOnly();
+	}
+
+	/**
+	 * The snapshot is read only, so no border is set
+	 *
+	 * @return False
+	 */
+	public boolean setBorder(Tileable tileType, int borderWidth) {
+		return readOnly();
+	}
+
+	/**
+	 * The snapshot is read only, so no border is set
+	 *
+	 * @return False
+	 */
+	public boolean setBorder(Tileable tileType) {
+		return readOnly();
+	}
+
+	/**
+	 * Draws the map using the user defined renderer.
+	 *
+	 */
+	public void render() {
+
+		if (myRenderer == null) {
+			System.out.println("Error: No render defined.");
+			return;
+		}
+		myRenderer.render(this);
+	}
+
+	/**
+	 * Calculates the percentage of passable area in the map
+	 *
+	 * @return percentage of passable area
+	 */
+	public double getPassableArea() {
+		double totalItems = (double) mapWidth * mapHeight;
+		double nonPassableItems = 0;
+
+		for (int k = 0; k < tileTypes.length; k++) {
+			if (!passable[k]) {
+				nonPassableItems += tileCounts[k];
+			}
+		}
+		return (1 - nonPassableItems / totalItems) * 100;
+	}
+
+	/**
+	 * Returns the number of tiles of a given type in the map
+	 *
+	 * @param tileType the tile type
+	 *
+	 * @return the number of tiles of that type
+	 */
+	public long getTileCount(Tileable tileType) {
+		if (!isTileType(tileType)) {
+			return 0;
+		}
+		return tileCounts[tileType.ordinal()];
+	}
+
+	/**
+	 * Returns the number of passable tiles in a rectangle. The rectangle is
+	 * given in the same co-ordinates as setTerrain.
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the region's width
+	 * @param height the region's height
+	 *
+	 * @return the number of passable tiles, or -1 if the region is invalid
+	 */
+	public synchronized long getPassableCount(int x, int y, int width, int height) {
+		return countRegion(x, y, width, height, -1);
+	}
+
+	/**
+	 * Returns the number of tiles of a given type in a rectangle. The
+	 * rectangle is given in the same co-ordinates as setTerrain.
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the region's width
+	 * @param height the region's height
+	 * @param tileType the tile type
+	 *
+	 * @return the number of tiles of that type, or -1 if the region is invalid
+	 */
+	public synchronized long getTileCount(int x, int y, int width, int height, Tileable tileType) {
+		return countRegion(x, y, width, height, isTileType(tileType) ? tileType.ordinal() : NO_TILES);
+	}
+
+	/**
+	 * Returns the snapshot's passable regions, which are labelled on first use
+	 *
+	 * @return the passable regions
+	 */
+	public PassableRegions getPassableRegions() {
+		if (regions == null) {
+			regions = new PassableRegions(tiledMap, passable);
+		}
+		return regions;
+	}
+
+	/**
+	 * The snapshot never changes, so listeners are not kept
+	 *
+	 * @param listener the listener
+	 */
+	public void addMapListener(MapListener listener) {
+	}
+
+	/**
+	 * The snapshot never changes, so listeners are not kept
+	 *
+	 * @param listener the listener
+	 */
+	public void removeMapListener(MapListener listener) {
+	}
+
+	/**
+	 * Counts tiles in a rectangle using the summed-area tables, or directly
+	 * if the map is too large for them
+	 *
+	 * @return the number of tiles, or -1 if the region is invalid
+	 */
+	private long countRegion(int x, int y, int width, int height, int ordinal) {
+
+		// calculate the region end co-ordinate
+		int endX = x+width;
+		int endY = y+height;
+
+		if (width < 0 || height < 0 || x < 0 || y < 0 || endX > mapWidth || endY > mapHeight) {
+			System.err.println("Invalid Region parameters:"+"("+x+","+y+","+width+","+height+")");
+			return -1;
+		}
+		if (ordinal == NO_TILES) {
+			return 0;
+		}
+
+		if (SummedAreaTables.fits(mapWidth, mapHeight)) {
+			if (regionTables == null) {
+				regionTables = new SummedAreaTables(tiledMap, tileTypes);
+			}
+			if (ordinal < 0) {
+				return regionTables.countPassable(x, y, endX, endY);
+			}
+			return regionTables.countType(ordinal, x, y, endX, endY);
+		}
+
+		long count = 0;
+		for (int i = y; i < endY; i++) {
+			byte[] row = tiledMap.rowArray(i);
+			int offset = tiledMap.rowOffset(i);
+			for (int j = offset + x; j < offset + endX; j++) {
+				if (ordinal < 0 ? passable[row[j]] : row[j] == ordinal) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Checks if a tile belongs to this map's tile type family
+	 */
+	private boolean isTileType(Tileable tileType) {
+		int ordinal = tileType.ordinal();
+		return ordinal < tileTypes.length && tileTypes[ordinal] == tileType;
+	}
+
+	/**
+	 * Reports an attempt to change the snapshot
+	 */
+	private boolean readOnly() {
+		System.err.println("Invalid operation: the snapshot is read only");
+		return INVALID;
+	}
+
+	/**
+	 * Translates the y-axis so that the origin becomes
+	 * bottom left, instead of top left.
+	 *
+	 * @param value the original y value
+	 * @return the translated y value
+	 */
+	private int translateY(int value) {
+		return mapHeight - 1 - value;
+	}
+}
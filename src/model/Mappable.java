@@ -46,6 +46,33 @@ public interface Mappable {
 	 * @return the Tile type
 	 */
 	public Tileable getTerrain(int x, int y);
+
+	/**
+	 * Checks if the tile at co-ordinate (x, y) is passable. The co-ordinates
+	 * are the same as getTerrain's.
+	 * 
+	 * @param x the map's x position
+	 * @param y the map's y position
+	 * @return True if the tile is passable
+	 */
+	public boolean isPassable(int x, int y);
+
+	/**
+	 * Returns the map's tile type family, indexed by ordinal
+	 * 
+	 * @return the tile types that can be stored in the map
+	 */
+	public Tileable[] getTileTypes();
+
+	/**
+	 * Copies the tile ordinals of row y into an array, so that a whole row
+	 * can be read without decoding each tile. The row is the same as
+	 * getTerrain's, and the ordinals index getTileTypes().
+	 * 
+	 * @param y the map's y position
+	 * @param ordinals receives the row's ordinals, at least getWidth() long
+	 */
+	public void getTerrainRow(int y, byte[] ordinals);
 	
 	/**
 	 * Sets the Terrain area to the defined type.
@@ -84,6 +111,20 @@ public interface Mappable {
 	 */
 	public boolean setTerrainRandomly(int x, int y, int width, int height);
 
+	/**
+	 * Sets the Terrain area's individual tiles randomly from a seed. The
+	 * same seed and area always produce the same tiles.
+	 * 
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the new region's width
+	 * @param height the new region's height
+	 * @param seed the random seed
+	 * 
+	 * @return True if terrain was set successfully
+	 */
+	public boolean setTerrainRandomly(int x, int y, int width, int height, long seed);
+
 	/**
 	 * Draws the map using the user defined renderer. 
 	 * 
@@ -115,5 +156,55 @@ public interface Mappable {
 	 * @return percentage of passable area
 	 */
 	public double getPassableArea();
+
+	/**
+	 * Returns the number of tiles of a given type in the map
+	 * 
+	 * @param tileType the tile type
+	 * 
+	 * @return the number of tiles of that type
+	 */
+	public long getTileCount(Tileable tileType);
+
+	/**
+	 * Returns the number of passable tiles in a rectangle. The rectangle is
+	 * given in the same co-ordinates as setTerrain.
+	 * 
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the region's width
+	 * @param height the region's height
+	 * 
+	 * @return the number of passable tiles, or -1 if the region is invalid
+	 */
+	public long getPassableCount(int x, int y, int width, int height);
+
+	/**
+	 * Returns the number of tiles of a given type in a rectangle. The
+	 * rectangle is given in the same co-ordinates as setTerrain.
+	 * 
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the region's width
+	 * @param height the region's height
+	 * @param tileType the tile type
+	 * 
+	 * @return the number of tiles of that type, or -1 if the region is invalid
+	 */
+	public long getTileCount(int x, int y, int width, int height, Tileable tileType);
+
+	/**
+	 * Registers a listener to be told of every rectangle of tiles written
+	 * 
+	 * @param listener the listener
+	 */
+	public void addMapListener(MapListener listener);
+
+	/**
+	 * Removes a previously registered listener
+	 * 
+	 * @param listener the listener
+	 */
+	public void removeMapListener(MapListener listener);
 }
 	
\ No newline at end of file
@@ -0,0 +1,447 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+import view.MapRenderer;
+
+/**
+ *
+ * A MappedMap is a read-only map backed by a memory mapped map file, which
+ * is opened with MapFile.open(). Its tiles are read straight from the
+ * mapped file, so only the pages holding the tiles actually used are ever
+ * loaded, and the tile counts come from the file's header.
+ *
+ * The setTerrain and setBorder methods are rejected, and as the map never
+ * changes its listeners are never called.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public final class MappedMap implements Mappable {
+
+	// The stored map dimensions
+	private final int mapWidth;
+	private final int mapHeight;
+
+	private final Tileable[] tileTypes;
+	private final long[] tileCounts;
+	private final boolean[] passable;
+	private MapRenderer myRenderer;
+
+	// True if each row is run-length encoded
+	private final boolean runLength;
+
+	// the mapped file, with the buffer holding each row and the row's offset in it
+	private final MappedByteBuffer[] windows;
+	private final int[] rowWindow;
+	private final int[] rowStart;
+
+	// input parameter validation return indicators
+	private static final boolean INVALID = false;
+	private static final boolean SUCCESS = true;
+
+	// the ordinal counted for a tile type outside the family, which no tile has
+	private static final int NO_TILES = -2;
+
+	/**
+	 * @param width the map width
+	 * @param height the map height
+	 * @param tileTypes the tile type family
+	 * @param tileCounts the number of tiles of each type
+	 * @param runLength True if each row is run-length encoded
+	 * @param windows the mapped file
+	 * @param rowWindow the buffer holding each row
+	 * @param rowStart the offset of each row within its buffer
+	 */
+	MappedMap(int width, int height, Tileable[] tileTypes, long[] tileCounts, boolean runLength,
+			MappedByteBuffer[] windows, int[] rowWindow, int[] rowStart) {
+		this.mapWidth = width;
+		this.mapHeight = height;
+		this.tileTypes = tileTypes;
+		this.tileCounts = tileCounts;
+		this.runLength = runLength;
+		this.windows = windows;
+		this.rowWindow = rowWindow;
+		this.rowStart = rowStart;
+
+		passable = new boolean[tileTypes.length];
+		for (int k = 0; k < tileTypes.length; k++) {
+			passable[k] = tileTypes[k].isPassable();
+		}
+	}
+
+	/**
+	 * Returns the width of the map
+	 *
+	 * @return the map's width
+	 */
+	public int getWidth() {
+		return mapWidth;
+	}
+
+	/**
+	 * Returns the height of the map
+	 *
+	 * @return the map's height
+	 */
+	public int getHeight() {
+		return mapHeight;
+	}
+
+	/**
+	 * Sets the map renderer
+	 *
+	 * @param renderer the User specified renderer
+	 */
+	public void setRenderer(MapRenderer renderer) {
+		this.myRenderer = renderer;
+	}
+
+	/**
+	 * Returns the Tile type at co-ordinate (x, y).
+	 *
+	 * @param x the map's x position
+	 * @param y the map's y position
+	 * @return the Tile type
+	 */
+	public Tileable getTerrain(int x, int y) {
+		return tileTypes[ordinal(x, y)];
+	}
+
+	/**
+	 * Checks if the tile at co-ordinate (x, y) is passable. The co-ordinates
+	 * are the same as getTerrain's.
+	 *
+	 * @param x the map's x position
+	 * @param y the map's y position
+	 * @return True if the tile is passable
+	 */
+	public boolean isPassable(int x, int y) {
+		return passable[ordinal(x, y)];
+	}
+
+	/**
+	 * Returns the map's tile type family, indexed by ordinal
+	 *
+	 * @return the tile types that can be stored in the map
+	 */
+	public Tileable[] getTileTypes() {
+		return tileTypes.clone();
+	}
+
+	/**
+	 * Copies the tile ordinals of row y into an array, decoding the row if
+	 * it is run-length encoded.
+	 *
+	 * @param y the map's y position
+	 * @param ordinals receives the row's ordinals, at least getWidth() long
+	 */
+	public void getTerrainRow(int y, byte[] ordinals) {
+		if (!readRow(y, ordinals, 0)) {
+			throw corrupt(y);
+		}
+	}
+
+	/**
+	 * Copies the tile ordinals of row y into an array. An encoded row is
+	 * checked as it is decoded, so a corrupt run is reported rather than
+	 * read past the end of the row.
+	 *
+	 * @param y the map's y position, as for getTerrain
+	 * @param cells receives the row's ordinals
+	 * @param offset the index of the row's first cell in the array
+	 * @return True if the row was read, or False if its encoding is corrupt
+	 */
+	boolean readRow(int y, byte[] cells, int offset) {
+		ByteBuffer window = windows[rowWindow[y]];
+		int position = rowStart[y];
+		if (!runLength) {
+			ByteBuffer row = window.duplicate();
+			row.position(position);
+			row.get(cells, offset, mapWidth);
+			return SUCCESS;
+		}
+
+		int limit = rowLimit(y);
+		int end = offset + mapWidth;
+		while (offset < end) {
+			if (position >= limit) {
+				return INVALID;
+			}
+			byte ordinal = window.get(position++);
+			int run = 0;
+			int shift = 0;
+			byte b;
+			do {
+				if (position >= limit || shift > 28) {
+					return INVALID;
+				}
+				b = window.get(position++);
+				run |= (b & 0x7f) << shift;
+				shift += 7;
+			} while (b < 0);
+			if (run <= 0 || run > end - offset) {
+				return INVALID;
+			}
+			int to = offset + run;
+			while (offset < to) {
+				cells[offset++] = ordinal;
+			}
+		}
+		return SUCCESS;
+	}
+
+	/**
+	 * The map is read only, so nothing is set
+	 *
+	 * @return False
+	 */
+	public boolean setTerrain(int x, int y, int width, int height, Tileable tileType) {
+		return readOnly();
+	}
+
+	/**
+	 * The map is read only, so nothing is set
+	 *
+	 * @return False
+	 */
+	public boolean setTerrain(int x, int y, int width, int height) {
+		return readOnly();
+	}
+
+	/**
+	 * The map is read only, so nothing is set
+	 *
+	 * @return False
+	 */
+	public boolean setTerrainRandomly(int x, int y, int width, int height) {
+		return readOnly();
+	}
+
+	/**
+	 * The map is read only, so nothing is set
+	 *
+	 * @return False
+	 */
+	public boolean setTerrainRandomly(int x, int y, int width, int height, long seed) {
+		return readOnly();
+	}
+
+	/**
+	 * The map is read only, so no border is set
+	 *
+	 * @return False
+	 */
+	public boolean setBorder(Tileable tileType, int borderWidth) {
+		return readOnly();
+	}
+
+	/**
+	 * The map is read only, so no border is set
+	 *
+	 * @return False
+	 */
+	public boolean setBorder(Tileable tileType) {
+		return readOnly();
+	}
+
+	/**
+	 * Draws the map using the user defined renderer. 
+	 * 
+	 */
+	public void render() {
+
+		if (myRenderer == null) {
+			System.out.println("Error: No render defined.");
+			return;
+		}
+		myRenderer.render(this);
+	}
+
+	/**
+	 * Calculates the percentage of passable area in the map
+	 *
+	 * @return percentage of passable area
+	 */
+	public double getPassableArea() {
+		double totalItems = (double) mapWidth * mapHeight;
+		double nonPassableItems = 0;
+
+		for (int k = 0; k < tileTypes.length; k++) {
+			if (!passable[k]) {
+				nonPassableItems += tileCounts[k];
+			}
+		}
+		return (1 - nonPassableItems / totalItems) * 100;
+	}
+
+	/**
+	 * Returns the number of tiles of a given type in the map
+	 *
+	 * @param tileType the tile type
+	 *
+	 * @return the number of tiles of that type
+	 */
+	public long getTileCount(Tileable tileType) {
+		if (!isTileType(tileType)) {
+			return 0;
+		}
+		return tileCounts[tileType.ordinal()];
+	}
+
+	/**
+	 * Returns the number of passable tiles in a rectangle. The rectangle is
+	 * given in the same co-ordinates as setTerrain.
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the region's width
+	 * @param height the region's height
+	 *
+	 * @return the number of passable tiles, or -1 if the region is invalid
+	 */
+	public long getPassableCount(int x, int y, int width, int height) {
+		return countRegion(x, y, width, height, -1);
+	}
+
+	/**
+	 * Returns the number of tiles of a given type in a rectangle. The
+	 * rectangle is given in the same co-ordinates as setTerrain.
+	 *
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the region's width
+	 * @param height the region's height
+	 * @param tileType the tile type
+	 *
+	 * @return the number of tiles of that type, or -1 if the region is invalid
+	 */
+	public long getTileCount(int x, int y, int width, int height, Tileable tileType) {
+		return countRegion(x, y, width, height, isTileType(tileType) ? tileType.ordinal() : NO_TILES);
+	}
+
+	/**
+	 * The map never changes, so listeners are not kept
+	 *
+	 * @param listener the listener
+	 */
+	public void addMapListener(MapListener listener) {
+	}
+
+	/**
+	 * The map never changes, so listeners are not kept
+	 *
+	 * @param listener the listener
+	 */
+	public void removeMapListener(MapListener listener) {
+	}
+
+	/**
+	 * Counts tiles in a rectangle by reading its rows. The rectangle is
+	 * given in the same co-ordinates as setTerrain.
+	 *
+	 * @return the number of tiles, or -1 if the region is invalid
+	 */
+	private long countRegion(int x, int y, int width, int height, int ordinal) {
+		int endX = x+width;
+		int endY = y+height;
+
+		if (width < 0 || height < 0 || x < 0 || y < 0 || endX > mapWidth || endY > mapHeight) {
+			System.err.println("Invalid Region parameters:"+"("+x+","+y+","+width+","+height+")");
+			return -1;
+		}
+		if (ordinal == NO_TILES) {
+			return 0;
+		}
+
+		long count = 0;
+		byte[] row = new byte[mapWidth];
+		for (int i = y; i < endY; i++) {
+			if (!readRow(mapHeight - 1 - i, row, 0)) {
+				throw corrupt(mapHeight - 1 - i);
+			}
+			for (int j = x; j < endX; j++) {
+				if (ordinal < 0 ? passable[row[j]] : row[j] == ordinal) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the ordinal of the tile at (x, y), as for getTerrain
+	 */
+	private int ordinal(int x, int y) {
+		if (x < 0 || x >= mapWidth) {
+			throw new IndexOutOfBoundsException("Invalid x position: " + x);
+		}
+		ByteBuffer window = windows[rowWindow[y]];
+		int position = rowStart[y];
+		if (!runLength) {
+			return window.get(position + x);
+		}
+
+		// walk the row's runs until one covers x
+		int limit = rowLimit(y);
+		int covered = 0;
+		while (position < limit) {
+			byte ordinal = window.get(position++);
+			int run = 0;
+			int shift = 0;
+			byte b;
+			do {
+				if (position >= limit || shift > 28) {
+					throw corrupt(y);
+				}
+				b = window.get(position++);
+				run |= (b & 0x7f) << shift;
+				shift += 7;
+			} while (b < 0);
+			if (run <= 0 || run > mapWidth - covered) {
+				throw corrupt(y);
+			}
+			covered += run;
+			if (x < covered) {
+				return ordinal;
+			}
+		}
+		throw corrupt(y);
+	}
+
+	/**
+	 * @return the offset, within its buffer, one past the end of row y
+	 */
+	private int rowLimit(int y) {
+		if (y + 1 < mapHeight && rowWindow[y + 1] == rowWindow[y]) {
+			return rowStart[y + 1];
+		}
+		return windows[rowWindow[y]].limit();
+	}
+
+	/**
+	 * @return the exception reporting a row whose encoding is corrupt
+	 */
+	private static IllegalStateException corrupt(int y) {
+		return new IllegalStateException("Invalid map file: row " + y + " is corrupt");
+	}
+
+	/**
+	 * Checks if a tile belongs to this map's tile type family
+	 */
+	private boolean isTileType(Tileable tileType) {
+		int ordinal = tileType.ordinal();
+		return ordinal < tileTypes.length && tileTypes[ordinal] == tileType;
+	}
+
+	/**
+	 * Reports an attempt to change the map
+	 */
+	private boolean readOnly() {
+		System.err.println("Invalid operation: the map is read only");
+		return INVALID;
+	}
+}
@@ -0,0 +1,457 @@
+package model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ *
+ * PassableRegions labels the 4-connected regions of passable tiles in a
+ * TiledMap, so reachability, region sizes and the number of enclosed pockets
+ * can be looked up without searching.
+ *
+ * The regions are kept as a union-find forest over the tiles. It is built in
+ * parallel stripes of rows, which are then joined across the stripe edges.
+ * Edits that only make tiles passable are merged into the forest directly.
+ * An edit that blocks a labelled tile may split a region, so the regions
+ * crossing the edited rectangle are labelled again: whatever is left of
+ * them outside the rectangle touches its one tile halo, so they are found
+ * by a flood from the halo, and every other region keeps its labels. The
+ * cost is in proportion to the size of the regions crossing the edit.
+ *
+ * A pocket is a region that does not reach the edge of the map, such as the
+ * area enclosed by setBorder(Tile.Fence).
+ *
+ * Point co-ordinates are the same as getTerrain's. Queries compress the
+ * forest as they go, so a PassableRegions must not be used by several
+ * threads at once.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public final class PassableRegions {
+
+	// the number of rows labelled by one task
+	private static final int STRIPE_ROWS = 64;
+
+	// forest entries: 0 is impassable, a negative value is a root holding
+	// -size, otherwise the entry holds the parent's index + 1
+	private static final int BLOCKED = 0;
+
+	// the root of a region being labelled again, which is never a size
+	private static final int FORGOTTEN = Integer.MIN_VALUE;
+
+	private final TileGrid grid;
+	private final boolean[] passable;
+	private final int width;
+	private final int height;
+
+	private int[] forest;
+	private boolean[] touchesEdge;
+	private int regionCount;
+	private int pocketCount;
+	private boolean rebuild = true;
+
+	// a bit per tile, set while a relabel's flood has reached the tile
+	private long[] visited;
+
+	/**
+	 * @param grid the map's tiles
+	 * @param passable the passability of each tile type, indexed by ordinal
+	 */
+	PassableRegions(TileGrid grid, boolean[] passable) {
+		this.grid = grid;
+		this.passable = passable;
+		this.width = grid.getWidth();
+		this.height = grid.getHeight();
+	}
+
+	/**
+	 * Checks if one tile can be reached from another
+	 *
+	 * @param x1 the first tile's x position
+	 * @param y1 the first tile's y position
+	 * @param x2 the second tile's x position
+	 * @param y2 the second tile's y position
+	 * @return True if both tiles are passable and in the same region
+	 */
+	public boolean isReachable(int x1, int y1, int x2, int y2) {
+		int region = getRegion(x1, y1);
+		return region != 0 && region == getRegion(x2, y2);
+	}
+
+	/**
+	 * Returns an identifier for the region containing a tile. Identifiers
+	 * are only stable until the map is next edited.
+	 *
+	 * @param x the tile's x position
+	 * @param y the tile's y position
+	 * @return the region's identifier, or 0 if the tile is impassable
+	 */
+	public int getRegion(int x, int y) {
+		update();
+		int cell = index(x, y);
+		if (forest[cell] == BLOCKED) {
+			return 0;
+		}
+		return find(cell) + 1;
+	}
+
+	/**
+	 * Returns the number of tiles in the region containing a tile
+	 *
+	 * @param x the tile's x position
+	 * @param y the tile's y position
+	 * @return the region's size, or 0 if the tile is impassable
+	 */
+	public int getRegionSize(int x, int y) {
+		update();
+		int cell = index(x, y);
+		if (forest[cell] == BLOCKED) {
+			return 0;
+		}
+		return -forest[find(cell)];
+	}
+
+	/**
+	 * @return the number of passable regions in the map
+	 */
+	public int getRegionCount() {
+		update();
+		return regionCount;
+	}
+
+	/**
+	 * @return the number of passable regions that do not reach the map's edge
+	 */
+	public int getPocketCount() {
+		update();
+		return pocketCount;
+	}
+
+	/**
+	 * Updates the regions after the tiles [x, endX) x [y, endY) have been
+	 * written. The rectangle is in the same co-ordinates as setTerrain.
+	 */
+	void tilesChanged(int x, int y, int endX, int endY) {
+		if (rebuild) {
+			return;
+		}
+
+		// a blocked tile may split its region
+		for (int row = y; row < endY; row++) {
+			byte[] cells = grid.rowArray(row);
+			int offset = grid.rowOffset(row);
+			for (int j = x; j < endX; j++) {
+				if (!passable[cells[offset + j]] && forest[row * width + j] != BLOCKED) {
+					relabel(x, y, endX, endY);
+					return;
+				}
+			}
+		}
+
+		// otherwise tiles can only have joined regions
+		Counts counts = new Counts();
+		for (int row = y; row < endY; row++) {
+			byte[] cells = grid.rowArray(row);
+			int offset = grid.rowOffset(row);
+			for (int j = x; j < endX; j++) {
+				int cell = row * width + j;
+				if (passable[cells[offset + j]] && forest[cell] == BLOCKED) {
+					add(cell, j, row, counts);
+					joinNeighbours(cell, j, row, counts);
+				}
+			}
+		}
+		regionCount += counts.regions;
+		pocketCount += counts.pockets;
+	}
+
+	/**
+	 * Labels again the regions that crossed the rectangle [x, endX) x
+	 * [y, endY) before it was written, together with the rectangle itself
+	 */
+	private void relabel(int x, int y, int endX, int endY) {
+		Counts counts = new Counts();
+
+		// the regions labelled in the rectangle are forgotten
+		for (int row = y; row < endY; row++) {
+			for (int j = x; j < endX; j++) {
+				int cell = row * width + j;
+				if (forest[cell] != BLOCKED) {
+					int root = find(cell);
+					if (forest[root] != FORGOTTEN) {
+						forgetRegion(root, counts);
+					}
+				}
+			}
+		}
+
+		// what is left of them outside the rectangle is reached from the halo
+		if (visited == null) {
+			visited = new long[(width * height + 63) >> 6];
+		}
+		IntList left = new IntList();
+		int haloX = Math.max(0, x - 1);
+		int haloEndX = Math.min(width, endX + 1);
+		int haloY = Math.max(0, y - 1);
+		int haloEndY = Math.min(height, endY + 1);
+		for (int row = haloY; row < haloEndY; row++) {
+			for (int j = haloX; j < haloEndX; j++) {
+				boolean inside = row >= y && row < endY && j >= x && j < endX;
+				int cell = row * width + j;
+				if (!inside && forest[cell] != BLOCKED && !isVisited(cell) && forest[find(cell)] == FORGOTTEN) {
+					flood(cell, x, y, endX, endY, left);
+				}
+			}
+		}
+
+		// every tile of those regions, and of the rectangle, is labelled afresh
+		for (int k = 0; k < left.size; k++) {
+			int cell = left.values[k];
+			visited[cell >> 6] &= ~(1L << cell);
+			add(cell, cell % width, cell / width, counts);
+		}
+		for (int row = y; row < endY; row++) {
+			byte[] cells = grid.rowArray(row);
+			int offset = grid.rowOffset(row);
+			for (int j = x; j < endX; j++) {
+				int cell = row * width + j;
+				if (passable[cells[offset + j]]) {
+					add(cell, j, row, counts);
+				} else {
+					forest[cell] = BLOCKED;
+				}
+			}
+		}
+		for (int k = 0; k < left.size; k++) {
+			int cell = left.values[k];
+			joinNeighbours(cell, cell % width, cell / width, counts);
+		}
+		for (int row = y; row < endY; row++) {
+			for (int j = x; j < endX; j++) {
+				joinNeighbours(row * width + j, j, row, counts);
+			}
+		}
+		regionCount += counts.regions;
+		pocketCount += counts.pockets;
+	}
+
+	/**
+	 * Removes a region from the counts, and marks its root as forgotten
+	 */
+	private void forgetRegion(int root, Counts counts) {
+		counts.regions--;
+		if (!touchesEdge[root]) {
+			counts.pockets--;
+		}
+		forest[root] = FORGOTTEN;
+	}
+
+	/**
+	 * Collects the passable tiles outside the rectangle [x, endX) x
+	 * [y, endY) that are connected to a tile, marking each as visited
+	 */
+	private void flood(int start, int x, int y, int endX, int endY, IntList tiles) {
+		int first = tiles.size;
+		visit(start, tiles);
+		for (int k = first; k < tiles.size; k++) {
+			int cell = tiles.values[k];
+			int j = cell % width;
+			int row = cell / width;
+			if (j > 0) {
+				floodTo(cell - 1, j - 1, row, x, y, endX, endY, tiles);
+			}
+			if (j < width - 1) {
+				floodTo(cell + 1, j + 1, row, x, y, endX, endY, tiles);
+			}
+			if (row > 0) {
+				floodTo(cell - width, j, row - 1, x, y, endX, endY, tiles);
+			}
+			if (row < height - 1) {
+				floodTo(cell + width, j, row + 1, x, y, endX, endY, tiles);
+			}
+		}
+	}
+
+	private void floodTo(int cell, int j, int row, int x, int y, int endX, int endY, IntList tiles) {
+		boolean inside = row >= y && row < endY && j >= x && j < endX;
+		if (!inside && forest[cell] != BLOCKED && !isVisited(cell)) {
+			visit(cell, tiles);
+		}
+	}
+
+	private void visit(int cell, IntList tiles) {
+		visited[cell >> 6] |= 1L << cell;
+		tiles.add(cell);
+	}
+
+	private boolean isVisited(int cell) {
+		return (visited[cell >> 6] & 1L << cell) != 0;
+	}
+
+	/**
+	 * Joins a passable tile's region with those of its four neighbours
+	 */
+	private void joinNeighbours(int cell, int j, int row, Counts counts) {
+		if (j > 0) {
+			union(cell, cell - 1, counts);
+		}
+		if (j < width - 1) {
+			union(cell, cell + 1, counts);
+		}
+		if (row > 0) {
+			union(cell, cell - width, counts);
+		}
+		if (row < height - 1) {
+			union(cell, cell + width, counts);
+		}
+	}
+
+	/**
+	 * Rebuilds the forest if an edit has invalidated it
+	 */
+	private void update() {
+		if (!rebuild) {
+			return;
+		}
+		if (forest == null) {
+			forest = new int[width * height];
+			touchesEdge = new boolean[width * height];
+		}
+
+		int stripes = (height + STRIPE_ROWS - 1) / STRIPE_ROWS;
+		Counts[] stripeCounts = new Counts[stripes];
+
+		// label each stripe on its own
+		IntStream.range(0, stripes).parallel().forEach(s -> {
+			Counts counts = new Counts();
+			int fromRow = s * STRIPE_ROWS;
+			int toRow = Math.min(height, fromRow + STRIPE_ROWS);
+			for (int row = fromRow; row < toRow; row++) {
+				byte[] cells = grid.rowArray(row);
+				int offset = grid.rowOffset(row);
+				for (int j = 0; j < width; j++) {
+					int cell = row * width + j;
+					if (!passable[cells[offset + j]]) {
+						forest[cell] = BLOCKED;
+						continue;
+					}
+					add(cell, j, row, counts);
+					if (j > 0) {
+						union(cell, cell - 1, counts);
+					}
+					if (row > fromRow) {
+						union(cell, cell - width, counts);
+					}
+				}
+			}
+			stripeCounts[s] = counts;
+		});
+
+		Counts total = new Counts();
+		for (Counts counts : stripeCounts) {
+			total.regions += counts.regions;
+			total.pockets += counts.pockets;
+		}
+
+		// then join the stripes across their edges
+		for (int s = 1; s < stripes; s++) {
+			int row = s * STRIPE_ROWS;
+			for (int j = 0; j < width; j++) {
+				int cell = row * width + j;
+				union(cell, cell - width, total);
+			}
+		}
+		regionCount = total.regions;
+		pocketCount = total.pockets;
+		rebuild = false;
+	}
+
+	/**
+	 * Adds a passable tile as a region of its own
+	 */
+	private void add(int cell, int x, int row, Counts counts) {
+		boolean edge = x == 0 || row == 0 || x == width - 1 || row == height - 1;
+		forest[cell] = -1;
+		touchesEdge[cell] = edge;
+		counts.regions++;
+		if (!edge) {
+			counts.pockets++;
+		}
+	}
+
+	/**
+	 * Joins the regions of two tiles, if both are passable
+	 */
+	private void union(int a, int b, Counts counts) {
+		if (forest[a] == BLOCKED || forest[b] == BLOCKED) {
+			return;
+		}
+		int rootA = find(a);
+		int rootB = find(b);
+		if (rootA == rootB) {
+			return;
+		}
+
+		// the larger region becomes the root
+		if (forest[rootA] > forest[rootB]) {
+			int swap = rootA;
+			rootA = rootB;
+			rootB = swap;
+		}
+		boolean edgeA = touchesEdge[rootA];
+		boolean edgeB = touchesEdge[rootB];
+		forest[rootA] += forest[rootB];
+		forest[rootB] = rootA + 1;
+		touchesEdge[rootA] = edgeA || edgeB;
+
+		counts.regions--;
+		counts.pockets -= (edgeA ? 0 : 1) + (edgeB ? 0 : 1);
+		if (!(edgeA || edgeB)) {
+			counts.pockets++;
+		}
+	}
+
+	/**
+	 * Finds a tile's root, halving the path on the way
+	 */
+	private int find(int cell) {
+		while (forest[cell] > 0) {
+			int next = forest[cell] - 1;
+			if (forest[next] > 0) {
+				forest[cell] = forest[next];
+			}
+			cell = next;
+		}
+		return cell;
+	}
+
+	private int index(int x, int y) {
+		return (height - 1 - y) * width + x;
+	}
+
+	/**
+	 * A growable list of tile indices
+	 */
+	private static final class IntList {
+		int[] values = new int[16];
+		int size;
+
+		void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+	}
+
+	/**
+	 * Changes to the region and pocket counts
+	 */
+	private static final class Counts {
+		int regions;
+		int pockets;
+	}
+}
@@ -0,0 +1,438 @@
+package model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ *
+ * The PathFinder finds shortest paths between passable tiles of a Mappable,
+ * using either A* or Jump Point Search.
+ *
+ * Movement is to any of the eight neighbouring tiles. A diagonal step costs
+ * sqrt(2) and is only allowed when both tiles it passes between are passable,
+ * so paths never cut corners. Both searches return paths of the same cost.
+ *
+ * Co-ordinates are the same as getTerrain's. A path is returned as an array
+ * of x, y pairs holding every tile from the start to the goal, or null if
+ * the goal cannot be reached.
+ *
+ * Each thread keeps its own search buffers, sized to the map, which are
+ * reused between queries without being cleared. This makes the finder safe
+ * to use from several threads while the map is not being edited. The
+ * buffers are indexed by tile, so the map must hold at most
+ * Integer.MAX_VALUE - 8 tiles.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public final class PathFinder {
+
+	private static final float DIAGONAL = (float) Math.sqrt(2);
+
+	private final Mappable map;
+	private final ThreadLocal<Search> searches = ThreadLocal.withInitial(Search::new);
+
+	/**
+	 * @param map the map to search
+	 * @throws IllegalArgumentException if the map has too many tiles to index
+	 */
+	public PathFinder(Mappable map) {
+		if ((long) map.getWidth() * map.getHeight() > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Invalid map size: " + map.getWidth() + " by " + map.getHeight());
+		}
+		this.map = map;
+	}
+
+	/**
+	 * Finds a shortest path using A*
+	 *
+	 * @param startX the start's x position
+	 * @param startY the start's y position
+	 * @param goalX the goal's x position
+	 * @param goalY the goal's y position
+	 * @return the path's tiles as x, y pairs, or null if there is no path
+	 */
+	public int[] findPath(int startX, int startY, int goalX, int goalY) {
+		return searches.get().find(startX, startY, goalX, goalY, false);
+	}
+
+	/**
+	 * Finds a shortest path using Jump Point Search, which only expands the
+	 * tiles where a path may change direction
+	 *
+	 * @param startX the start's x position
+	 * @param startY the start's y position
+	 * @param goalX the goal's x position
+	 * @param goalY the goal's y position
+	 * @return the path's tiles as x, y pairs, or null if there is no path
+	 */
+	public int[] findJumpPath(int startX, int startY, int goalX, int goalY) {
+		return searches.get().find(startX, startY, goalX, goalY, true);
+	}
+
+	/**
+	 * Answers many path queries in parallel
+	 *
+	 * @param queries the queries, each stored as startX, startY, goalX and goalY
+	 * @param jumpPoints True to use Jump Point Search, false to use A*
+	 * @return one path per query, null where there is no path
+	 */
+	public int[][] findPaths(final int[] queries, final boolean jumpPoints) {
+		final int[][] paths = new int[queries.length / 4][];
+		IntStream.range(0, paths.length).parallel().forEach(q -> {
+			int k = q * 4;
+			paths[q] = searches.get().find(queries[k], queries[k + 1], queries[k + 2], queries[k + 3], jumpPoints);
+		});
+		return paths;
+	}
+
+	/**
+	 * Returns the cost of a path, counting sqrt(2) for each diagonal step
+	 *
+	 * @param path the path as x, y pairs
+	 * @return the path's cost
+	 */
+	public static double getCost(int[] path) {
+		double cost = 0;
+		for (int k = 2; k < path.length; k += 2) {
+			boolean diagonal = path[k] != path[k - 2] && path[k + 1] != path[k - 1];
+			cost += diagonal ? Math.sqrt(2) : 1;
+		}
+		return cost;
+	}
+
+	/**
+	 * The per-thread search state. A tile's entries are only valid when its
+	 * stamp matches the current search, so nothing is cleared between searches.
+	 */
+	private final class Search {
+		private int width;
+		private int height;
+
+		private float[] cost;
+		private int[] parent;
+		private int[] seen;
+		private int[] closed;
+		private int search;
+
+		// a binary heap of tiles ordered by estimated total cost
+		private int[] heap = new int[256];
+		private float[] keys = new float[256];
+		private int size;
+
+		private int goalX;
+		private int goalY;
+
+		/**
+		 * Runs one search
+		 */
+		int[] find(int startX, int startY, int goalX, int goalY, boolean jumpPoints) {
+			prepare();
+			if (!walkable(startX, startY) || !walkable(goalX, goalY)) {
+				return null;
+			}
+			this.goalX = goalX;
+			this.goalY = goalY;
+
+			int start = startY * width + startX;
+			int goal = goalY * width + goalX;
+			seen[start] = search;
+			cost[start] = 0;
+			parent[start] = -1;
+			size = 0;
+			push(start, heuristic(startX, startY));
+
+			while (size > 0) {
+				int node = pop();
+				if (closed[node] == search) {
+					continue;
+				}
+				closed[node] = search;
+				if (node == goal) {
+					return buildPath(goal);
+				}
+				if (jumpPoints) {
+					expandJumpPoints(node);
+				} else {
+					expandNeighbours(node);
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Sizes the buffers to the map and starts a new search stamp
+		 */
+		private void prepare() {
+			if (cost == null || width != map.getWidth() || height != map.getHeight()) {
+				width = map.getWidth();
+				height = map.getHeight();
+				cost = new float[width * height];
+				parent = new int[width * height];
+				seen = new int[width * height];
+				closed = new int[width * height];
+				search = 0;
+			}
+			if (++search == Integer.MAX_VALUE) {
+				Arrays.fill(seen, 0);
+				Arrays.fill(closed, 0);
+				search = 1;
+			}
+		}
+
+		/**
+		 * A* expansion: every passable neighbour
+		 */
+		private void expandNeighbours(int node) {
+			int x = node % width;
+			int y = node / width;
+			for (int dy = -1; dy <= 1; dy++) {
+				for (int dx = -1; dx <= 1; dx++) {
+					if ((dx != 0 || dy != 0) && canStep(x, y, dx, dy)) {
+						relax(node, x + dx, y + dy, dx != 0 && dy != 0 ? DIAGONAL : 1);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Jump Point Search expansion: the pruned neighbours of a node are
+		 * followed until they reach a jump point
+		 */
+		private void expandJumpPoints(int node) {
+			int x = node % width;
+			int y = node / width;
+			int from = parent[node];
+
+			if (from < 0) {
+				for (int dy = -1; dy <= 1; dy++) {
+					for (int dx = -1; dx <= 1; dx++) {
+						if ((dx != 0 || dy != 0) && canStep(x, y, dx, dy)) {
+							jumpFrom(node, x, y, dx, dy);
+						}
+					}
+				}
+				return;
+			}
+
+			int dx = Integer.signum(x - from % width);
+			int dy = Integer.signum(y - from / width);
+			if (dx != 0 && dy != 0) {
+				boolean vertical = walkable(x, y + dy);
+				boolean horizontal = walkable(x + dx, y);
+				if (vertical) {
+					jumpFrom(node, x, y, 0, dy);
+				}
+				if (horizontal) {
+					jumpFrom(node, x, y, dx, 0);
+				}
+				if (vertical && horizontal) {
+					jumpFrom(node, x, y, dx, dy);
+				}
+			} else if (dx != 0) {
+				boolean up = walkable(x, y - 1);
+				boolean down = walkable(x, y + 1);
+				if (walkable(x + dx, y)) {
+					jumpFrom(node, x, y, dx, 0);
+					if (up) {
+						jumpFrom(node, x, y, dx, -1);
+					}
+					if (down) {
+						jumpFrom(node, x, y, dx, 1);
+					}
+				}
+				if (up) {
+					jumpFrom(node, x, y, 0, -1);
+				}
+				if (down) {
+					jumpFrom(node, x, y, 0, 1);
+				}
+			} else {
+				boolean left = walkable(x - 1, y);
+				boolean right = walkable(x + 1, y);
+				if (walkable(x, y + dy)) {
+					jumpFrom(node, x, y, 0, dy);
+					if (left) {
+						jumpFrom(node, x, y, -1, dy);
+					}
+					if (right) {
+						jumpFrom(node, x, y, 1, dy);
+					}
+				}
+				if (left) {
+					jumpFrom(node, x, y, -1, 0);
+				}
+				if (right) {
+					jumpFrom(node, x, y, 1, 0);
+				}
+			}
+		}
+
+		/**
+		 * Jumps from a node in one direction and relaxes the jump point found
+		 */
+		private void jumpFrom(int node, int x, int y, int dx, int dy) {
+			int point = jump(x + dx, y + dy, dx, dy);
+			if (point < 0) {
+				return;
+			}
+			int steps = Math.max(Math.abs(point % width - x), Math.abs(point / width - y));
+			float step = dx != 0 && dy != 0 ? DIAGONAL : 1;
+			relax(node, point % width, point / width, steps * step);
+		}
+
+		/**
+		 * Moves from (x, y) in the direction (dx, dy) until a jump point, i.e. the
+		 * goal or a tile with a forced neighbour, is found
+		 *
+		 * @return the jump point's index, or -1 if the way is blocked first
+		 */
+		private int jump(int x, int y, int dx, int dy) {
+			while (true) {
+				if (!walkable(x, y)) {
+					return -1;
+				}
+				if (x == goalX && y == goalY) {
+					return y * width + x;
+				}
+				if (dx != 0 && dy != 0) {
+					if (jump(x + dx, y, dx, 0) >= 0 || jump(x, y + dy, 0, dy) >= 0) {
+						return y * width + x;
+					}
+					if (!walkable(x + dx, y) || !walkable(x, y + dy)) {
+						return -1;
+					}
+				} else if (dx != 0) {
+					if ((walkable(x, y - 1) && !walkable(x - dx, y - 1))
+							|| (walkable(x, y + 1) && !walkable(x - dx, y + 1))) {
+						return y * width + x;
+					}
+				} else {
+					if ((walkable(x - 1, y) && !walkable(x - 1, y - dy))
+							|| (walkable(x + 1, y) && !walkable(x + 1, y - dy))) {
+						return y * width + x;
+					}
+				}
+				x += dx;
+				y += dy;
+			}
+		}
+
+		/**
+		 * Offers a cheaper route to a tile
+		 */
+		private void relax(int node, int x, int y, float step) {
+			int next = y * width + x;
+			if (closed[next] == search) {
+				return;
+			}
+			float total = cost[node] + step;
+			if (seen[next] != search || total < cost[next]) {
+				seen[next] = search;
+				cost[next] = total;
+				parent[next] = node;
+				push(next, total + heuristic(x, y));
+			}
+		}
+
+		/**
+		 * Checks a step is passable and does not cut a corner
+		 */
+		private boolean canStep(int x, int y, int dx, int dy) {
+			if (!walkable(x + dx, y + dy)) {
+				return false;
+			}
+			return dx == 0 || dy == 0 || (walkable(x + dx, y) && walkable(x, y + dy));
+		}
+
+		private boolean walkable(int x, int y) {
+			return x >= 0 && y >= 0 && x < width && y < height && map.isPassable(x, y);
+		}
+
+		/**
+		 * The octile distance to the goal
+		 */
+		private float heuristic(int x, int y) {
+			int dx = Math.abs(x - goalX);
+			int dy = Math.abs(y - goalY);
+			return Math.max(dx, dy) + (DIAGONAL - 1) * Math.min(dx, dy);
+		}
+
+		/**
+		 * Follows the parents back from the goal, filling in the tiles
+		 * between jump points
+		 */
+		private int[] buildPath(int goal) {
+			int length = 1;
+			for (int node = goal; parent[node] >= 0; node = parent[node]) {
+				int from = parent[node];
+				length += Math.max(Math.abs(node % width - from % width), Math.abs(node / width - from / width));
+			}
+
+			int[] path = new int[length * 2];
+			int k = path.length;
+			for (int node = goal; node >= 0; node = parent[node]) {
+				int x = node % width;
+				int y = node / width;
+				int from = parent[node];
+				int fromX = from < 0 ? x : from % width;
+				int fromY = from < 0 ? y : from / width;
+				int dx = Integer.signum(fromX - x);
+				int dy = Integer.signum(fromY - y);
+				do {
+					path[--k] = y;
+					path[--k] = x;
+					x += dx;
+					y += dy;
+				} while (from >= 0 && (x != fromX || y != fromY));
+			}
+			return path;
+		}
+
+		private void push(int node, float key) {
+			if (size == heap.length) {
+				heap = Arrays.copyOf(heap, size * 2);
+				keys = Arrays.copyOf(keys, size * 2);
+			}
+			int k = size++;
+			while (k > 0) {
+				int up = (k - 1) >> 1;
+				if (keys[up] <= key) {
+					break;
+				}
+				heap[k] = heap[up];
+				keys[k] = keys[up];
+				k = up;
+			}
+			heap[k] = node;
+			keys[k] = key;
+		}
+
+		private int pop() {
+			int top = heap[0];
+			int node = heap[--size];
+			float key = keys[size];
+			int k = 0;
+			while (true) {
+				int child = 2 * k + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && keys[child + 1] < keys[child]) {
+					child++;
+				}
+				if (key <= keys[child]) {
+					break;
+				}
+				heap[k] = heap[child];
+				keys[k] = keys[child];
+				k = child;
+			}
+			heap[k] = node;
+			keys[k] = key;
+			return top;
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package model;
+
+import java.util.SplittableRandom;
+
+/**
+ *
+ * RandomFill defines the seeded random tile streams used by
+ * setTerrainRandomly(x, y, width, height, seed).
+ *
+ * The region is divided into stripes of STRIPE_ROWS rows, counted from the
+ * region's first row, and each stripe draws from its own stream split from
+ * the seed. The tiles therefore depend only on the seed and the region, never
+ * on how many threads fill the stripes or in which order.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+final class RandomFill {
+
+	// the number of rows filled from one random stream
+	static final int STRIPE_ROWS = 16;
+
+	private RandomFill() {}
+
+	/**
+	 * @param rows the number of rows in the region
+	 * @return the number of stripes covering the rows
+	 */
+	static int stripes(int rows) {
+		return (rows + STRIPE_ROWS - 1) / STRIPE_ROWS;
+	}
+
+	/**
+	 * Splits one random stream per stripe from the seed
+	 *
+	 * @param seed the fill seed
+	 * @param rows the number of rows in the region
+	 * @return the stripe streams, in stripe order
+	 */
+	static SplittableRandom[] streams(long seed, int rows) {
+		SplittableRandom root = new SplittableRandom(seed);
+		SplittableRandom[] streams = new SplittableRandom[stripes(rows)];
+		for (int s = 0; s < streams.length; s++) {
+			streams[s] = root.split();
+		}
+		return streams;
+	}
+
+	/**
+	 * Writes random ordinals into part of a row
+	 *
+	 * @param random the stripe's stream
+	 * @param cells the row's backing array
+	 * @param from the first index written
+	 * @param to the index after the last written
+	 * @param types the number of tile types
+	 */
+	static void fillRow(SplittableRandom random, byte[] cells, int from, int to, int types) {
+		for (int j = from; j < to; j++) {
+			cells[j] = (byte) random.nextInt(types);
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package model;
+
+/**
+ *
+ * A RowSource supplies the tile ordinals of a map a row at a time, so a
+ * map can be filled from a file without going through setTerrain. Rows may
+ * be read by several threads at once.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+interface RowSource {
+
+	/**
+	 * Copies the tile ordinals of row y into an array
+	 *
+	 * @param y the map's y position, as for getTerrain
+	 * @param cells receives the row's ordinals
+	 * @param offset the index of the row's first cell in the array
+	 * @return True if the row was read successfully
+	 */
+	boolean readRow(int y, byte[] cells, int offset);
+}
@@ -0,0 +1,28 @@
+package model;
+
+/**
+ *
+ * A StripeFill writes the tiles of a rectangle a stripe of rows at a time.
+ * TiledMap hands the stripes to several threads at once, so a fill must
+ * only write the rows and columns of the stripe it is given.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+interface StripeFill {
+
+	/**
+	 * Writes the tiles [x, endX) of the rows [fromRow, toRow). The rows are
+	 * in the same co-ordinates as setTerrain and are already writable.
+	 *
+	 * @param grid the map's tiles
+	 * @param stripe the stripe's index, counted from the rectangle's first row
+	 * @param fromRow the first row
+	 * @param toRow the row after the last
+	 * @param x the first column
+	 * @param endX the column after the last
+	 */
+	void fill(TileGrid grid, int stripe, int fromRow, int toRow, int x, int endX);
+}
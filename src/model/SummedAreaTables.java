@@ -0,0 +1,235 @@
+package model;
+
+/**
+ *
+ * SummedAreaTables answers rectangle tile counts for a TiledMap. A table
+ * is kept for passable tiles and one for each tile type, each built the
+ * first time it is queried.
+ *
+ * The rows are grouped into blocks of BLOCK_ROWS. Within a block, entry
+ * (r, c) of a table holds the count over the block's rows up to and
+ * including r and columns [0, c). The block totals of each column are
+ * summed across blocks by a Fenwick tree, so the count over rows [0, r)
+ * is one tree lookup plus one table entry, and a rectangle count takes
+ * time in proportion to the log of the number of blocks.
+ *
+ * An edit only marks the blocks holding its rows as out of date. An out
+ * of date block is rebuilt the next time a query needs it, which costs a
+ * pass over its rows plus one tree update per column, so the cost of an
+ * edit does not depend on how far down the map it is.
+ *
+ * Each table holds an int per tile, so a table takes 4 bytes per tile of
+ * the map, plus 4 bytes per column for each block. Only the tables of the
+ * tile types queried are allocated.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+final class SummedAreaTables {
+
+	// the number of rows summed within each block
+	private static final int BLOCK_ROWS = 64;
+
+	private final TileGrid grid;
+	private final int width;
+	private final int height;
+	private final int stride;
+	private final int blocks;
+
+	// one match mask and table per tile type, followed by the passable table
+	private final boolean[][] matches;
+	private final int[][] tables;
+
+	// each table's Fenwick tree of block totals, node i at [i * stride]
+	private final int[][] trees;
+
+	// the blocks of each table that are out of date, and how many there are
+	private final boolean[][] stale;
+	private final int[] staleCounts;
+
+	/**
+	 * @param grid the map's tiles
+	 * @param tileTypes the map's tile type family
+	 */
+	SummedAreaTables(TileGrid grid, Tileable[] tileTypes) {
+		this.grid = grid;
+		this.width = grid.getWidth();
+		this.height = grid.getHeight();
+		this.stride = width + 1;
+		this.blocks = (height + BLOCK_ROWS - 1) / BLOCK_ROWS;
+
+		int types = tileTypes.length;
+		matches = new boolean[types + 1][types];
+		for (int k = 0; k < types; k++) {
+			matches[k][k] = true;
+			matches[types][k] = tileTypes[k].isPassable();
+		}
+		tables = new int[types + 1][];
+		trees = new int[types + 1][];
+		stale = new boolean[types + 1][];
+		staleCounts = new int[types + 1];
+	}
+
+	/**
+	 * Checks if the tables of a map this size can be held in an array
+	 *
+	 * @param width the map width
+	 * @param height the map height
+	 * @return True if tables can be built
+	 */
+	static boolean fits(int width, int height) {
+		return (long) (width + 1) * (height + 1) <= Integer.MAX_VALUE - 8;
+	}
+
+	/**
+	 * Marks the blocks holding the rows [fromRow, toRow) as out of date
+	 *
+	 * @param fromRow the first edited row
+	 * @param toRow the row after the last edited
+	 */
+	void invalidate(int fromRow, int toRow) {
+		int fromBlock = fromRow / BLOCK_ROWS;
+		int toBlock = (toRow - 1) / BLOCK_ROWS;
+		for (int k = 0; k < tables.length; k++) {
+			if (tables[k] == null) {
+				continue;
+			}
+			for (int b = fromBlock; b <= toBlock; b++) {
+				if (!stale[k][b]) {
+					stale[k][b] = true;
+					staleCounts[k]++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Counts the passable tiles in [x, endX) x [y, endY)
+	 */
+	int countPassable(int x, int y, int endX, int endY) {
+		return count(tables.length - 1, x, y, endX, endY);
+	}
+
+	/**
+	 * Counts the tiles with the given ordinal in [x, endX) x [y, endY)
+	 */
+	int countType(int ordinal, int x, int y, int endX, int endY) {
+		return count(ordinal, x, y, endX, endY);
+	}
+
+	private int count(int table, int x, int y, int endX, int endY) {
+		update(table);
+		return prefix(table, endY, endX) - prefix(table, y, endX)
+				- prefix(table, endY, x) + prefix(table, y, x);
+	}
+
+	/**
+	 * @return the count over rows [0, rows) and columns [0, columns)
+	 */
+	private int prefix(int table, int rows, int columns) {
+		if (rows == 0) {
+			return 0;
+		}
+		int last = rows - 1;
+		int[] tree = trees[table];
+		int sum = tables[table][last * stride + columns];
+		for (int i = last / BLOCK_ROWS; i > 0; i -= i & -i) {
+			sum += tree[i * stride + columns];
+		}
+		return sum;
+	}
+
+	/**
+	 * Builds a table on first use, or rebuilds its out of date blocks
+	 *
+	 * @param table the table index
+	 */
+	private void update(int table) {
+		if (tables[table] == null) {
+			build(table);
+			return;
+		}
+		if (staleCounts[table] == 0) {
+			return;
+		}
+
+		int[] sums = tables[table];
+		int[] tree = trees[table];
+		int[] before = new int[stride];
+		for (int b = 0; b < blocks; b++) {
+			if (!stale[table][b]) {
+				continue;
+			}
+			int last = Math.min(height, (b + 1) * BLOCK_ROWS) - 1;
+			System.arraycopy(sums, last * stride, before, 0, stride);
+			sumBlock(table, b);
+
+			// the change in each column's block total is added up the tree
+			for (int c = 1; c < stride; c++) {
+				int delta = sums[last * stride + c] - before[c];
+				if (delta == 0) {
+					continue;
+				}
+				for (int i = b + 1; i <= blocks; i += i & -i) {
+					tree[i * stride + c] += delta;
+				}
+			}
+			stale[table][b] = false;
+		}
+		staleCounts[table] = 0;
+	}
+
+	/**
+	 * Builds a table and its tree of block totals
+	 */
+	private void build(int table) {
+		int[] sums = new int[stride * height];
+		int[] tree = new int[stride * (blocks + 1)];
+		tables[table] = sums;
+		trees[table] = tree;
+		stale[table] = new boolean[blocks];
+		staleCounts[table] = 0;
+
+		for (int b = 0; b < blocks; b++) {
+			sumBlock(table, b);
+			int last = Math.min(height, (b + 1) * BLOCK_ROWS) - 1;
+			System.arraycopy(sums, last * stride, tree, (b + 1) * stride, stride);
+		}
+
+		// each node adds itself to its parent, giving the tree in one pass
+		for (int i = 1; i <= blocks; i++) {
+			int parent = i + (i & -i);
+			if (parent <= blocks) {
+				for (int c = 1; c < stride; c++) {
+					tree[parent * stride + c] += tree[i * stride + c];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sums the rows of one block, each row adding to the one above it
+	 */
+	private void sumBlock(int table, int block) {
+		int[] sums = tables[table];
+		boolean[] match = matches[table];
+		int fromRow = block * BLOCK_ROWS;
+		int toRow = Math.min(height, fromRow + BLOCK_ROWS);
+
+		for (int r = fromRow; r < toRow; r++) {
+			byte[] cells = grid.rowArray(r);
+			int offset = grid.rowOffset(r);
+			int below = r * stride;
+			int above = below - stride;
+			int rowSum = 0;
+			for (int c = 0; c < width; c++) {
+				if (match[cells[offset + c]]) {
+					rowSum++;
+				}
+				sums[below + c + 1] = r == fromRow ? rowSum : sums[above + c + 1] + rowSum;
+			}
+		}
+	}
+}
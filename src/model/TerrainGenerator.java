@@ -0,0 +1,352 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ *
+ * A TerrainGenerator fills a TiledMap with terrain drawn from two seeded
+ * noise fields, height and moisture. Low ground becomes water and high
+ * ground rock, and the land between is tree where it is moist and grass
+ * where it is not.
+ *
+ * Each field is fractal value noise: several octaves of random values on
+ * a square lattice, smoothly interpolated, each octave half the period
+ * and half the weight of the one before. The lattice values are hashed
+ * from the seed and their co-ordinates, so the same seed always produces
+ * the same terrain, and any part of a map comes out as it would in the
+ * whole map. Rows are generated in parallel stripes on the common
+ * fork-join pool.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public final class TerrainGenerator {
+
+	// the number of rows generated by one task
+	private static final int STRIPE_ROWS = 32;
+
+	// separates the moisture field from the height field
+	private static final long MOISTURE_SALT = 0x6a09e667f3bcc909L;
+
+	private final long seed;
+
+	// the period in tiles of the coarsest octave, and the number of octaves
+	private int scale = 64;
+	private int octaves = 5;
+
+	// the field values dividing the bands, from -1 to 1
+	private double waterLevel = -0.15;
+	private double rockLevel = 0.3;
+	private double treeLevel = 0.1;
+
+	// the tile type of each band
+	private Tileable water = Tile.Water;
+	private Tileable grass = Tile.Grass;
+	private Tileable tree = Tile.Tree;
+	private Tileable rock = Tile.Rock;
+
+	// input parameter validation return indicators
+	private static final boolean INVALID = false;
+	private static final boolean SUCCESS = true;
+
+	/**
+	 * @param seed the seed the terrain is drawn from
+	 */
+	public TerrainGenerator(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets the size of the largest features
+	 *
+	 * @param tiles the period of the coarsest octave, in tiles
+	 */
+	public void setScale(int tiles) {
+		if (tiles > 0) {
+			scale = tiles;
+		}
+	}
+
+	/**
+	 * Sets the number of octaves, each adding detail at half the size of
+	 * the one before
+	 *
+	 * @param count from 1 to 16
+	 */
+	public void setOctaves(int count) {
+		if (count > 0 && count <= 16) {
+			octaves = count;
+		}
+	}
+
+	/**
+	 * Sets the field values dividing the bands. Heights below the water
+	 * level are water and above the rock level are rock; the land between
+	 * is tree where the moisture is above the tree level.
+	 *
+	 * @param waterLevel the highest water, from -1 to 1
+	 * @param rockLevel the lowest rock, above the water level
+	 * @param treeLevel the driest tree, from -1 to 1
+	 */
+	public void setLevels(double waterLevel, double rockLevel, double treeLevel) {
+		if (waterLevel < rockLevel) {
+			this.waterLevel = waterLevel;
+			this.rockLevel = rockLevel;
+			this.treeLevel = treeLevel;
+		}
+	}
+
+	/**
+	 * Sets the tile type of each band, which must all belong to the
+	 * family of the maps generated
+	 *
+	 * @param water the lowest band
+	 * @param grass dry land
+	 * @param tree moist land
+	 * @param rock the highest band
+	 */
+	public void setTileTypes(Tileable water, Tileable grass, Tileable tree, Tileable rock) {
+		this.water = water;
+		this.grass = grass;
+		this.tree = tree;
+		this.rock = rock;
+	}
+
+	/**
+	 * Generates terrain over the whole map
+	 *
+	 * @param map the map
+	 *
+	 * @return True if terrain was generated successfully
+	 */
+	public boolean generate(TiledMap map) {
+		return generate(map, 0, 0, map.getWidth(), map.getHeight());
+	}
+
+	/**
+	 * Generates terrain over the Terrain area. The co-ordinates are the
+	 * same as setTerrain's.
+	 *
+	 * @param map the map
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the region's width
+	 * @param height the region's height
+	 *
+	 * @return True if terrain was generated successfully
+	 */
+	public boolean generate(TiledMap map, int x, int y, int width, int height) {
+
+		// calculate the terrain end co-ordinate
+		int endX = x+width;
+		int endY = y+height;
+
+		if (width < 0 || height < 0 || x < 0 || y < 0 || endX > map.getWidth() || endY > map.getHeight()) {
+			System.err.println("Invalid Terrain parameters:"+"("+x+","+y+","+width+","+height+")");
+			return INVALID;
+		}
+		Tileable[] tileTypes = map.getTileTypes();
+		for (Tileable tileType : new Tileable[] { water, grass, tree, rock }) {
+			int ordinal = tileType.ordinal();
+			if (ordinal >= tileTypes.length || tileTypes[ordinal] != tileType) {
+				System.err.println("Invalid Tile type: "+tileType);
+				return INVALID;
+			}
+		}
+
+		map.fillStripes(x, y, endX, endY, STRIPE_ROWS, new Bands());
+		return SUCCESS;
+	}
+
+	/**
+	 * Writes the tiles of each stripe from the noise fields, using the
+	 * settings at the time it was created
+	 */
+	private final class Bands implements StripeFill {
+
+		// each octave's period, seed and weight, and its interpolation weights
+		private final int[] periods;
+		private final long[] heightSeeds;
+		private final long[] moistureSeeds;
+		private final float[] weights;
+		private final float[][] fades;
+
+		// the field values dividing the bands, scaled to the octave weights
+		private final float waterBelow;
+		private final float rockAbove;
+		private final float treeAbove;
+
+		private final byte waterOrdinal = (byte) water.ordinal();
+		private final byte grassOrdinal = (byte) grass.ordinal();
+		private final byte treeOrdinal = (byte) tree.ordinal();
+		private final byte rockOrdinal = (byte) rock.ordinal();
+
+		Bands() {
+			periods = new int[octaves];
+			heightSeeds = new long[octaves];
+			moistureSeeds = new long[octaves];
+			weights = new float[octaves];
+			fades = new float[octaves][];
+
+			float weight = 1;
+			float total = 0;
+			for (int o = 0; o < octaves; o++) {
+				int period = Math.max(1, scale >> o);
+				periods[o] = period;
+				heightSeeds[o] = mix(seed + o);
+				moistureSeeds[o] = mix((seed ^ MOISTURE_SALT) + o);
+				weights[o] = weight;
+				total += weight;
+				weight /= 2;
+
+				// smootherstep, 6t^5 - 15t^4 + 10t^3, at each offset in a period
+				float[] fade = new float[period];
+				for (int k = 0; k < period; k++) {
+					float t = (float) k / period;
+					fade[k] = t * t * t * (t * (t * 6 - 15) + 10);
+				}
+				fades[o] = fade;
+			}
+			waterBelow = (float) waterLevel * total;
+			rockAbove = (float) rockLevel * total;
+			treeAbove = (float) treeLevel * total;
+		}
+
+		@Override
+		public void fill(TileGrid grid, int stripe, int fromRow, int toRow, int x, int endX) {
+			int width = endX - x;
+			float[] heights = new float[width];
+			float[] moisture = new float[width];
+			float[] column = new float[width + 2];
+			LatticeRows[] heightRows = new LatticeRows[periods.length];
+			LatticeRows[] moistureRows = new LatticeRows[periods.length];
+			for (int o = 0; o < periods.length; o++) {
+				heightRows[o] = new LatticeRows(heightSeeds[o], periods[o], x, endX);
+				moistureRows[o] = new LatticeRows(moistureSeeds[o], periods[o], x, endX);
+			}
+
+			for (int i = fromRow; i < toRow; i++) {
+				Arrays.fill(heights, 0);
+				Arrays.fill(moisture, 0);
+				for (int o = 0; o < periods.length; o++) {
+					addOctave(heights, column, heightRows[o], o, i, x);
+					addOctave(moisture, column, moistureRows[o], o, i, x);
+				}
+
+				byte[] cells = grid.writableRow(i);
+				int offset = grid.rowOffset(i) + x;
+				for (int j = 0; j < width; j++) {
+					float h = heights[j];
+					byte ordinal;
+					if (h < waterBelow) {
+						ordinal = waterOrdinal;
+					} else if (h > rockAbove) {
+						ordinal = rockOrdinal;
+					} else if (moisture[j] > treeAbove) {
+						ordinal = treeOrdinal;
+					} else {
+						ordinal = grassOrdinal;
+					}
+					cells[offset + j] = ordinal;
+				}
+			}
+		}
+
+		/**
+		 * Adds one octave of a field along part of a row. The lattice rows
+		 * either side are interpolated once per lattice column, leaving one
+		 * interpolation per tile.
+		 */
+		private void addOctave(float[] field, float[] column, LatticeRows rows, int o, int row, int x) {
+			int period = periods[o];
+			float[] fade = fades[o];
+			float weight = weights[o];
+
+			int iy = row / period;
+			float fy = fade[row - iy * period];
+			rows.moveTo(iy);
+			float[] above = rows.above;
+			float[] below = rows.below;
+			for (int k = 0; k < above.length; k++) {
+				column[k] = above[k] + (below[k] - above[k]) * fy;
+			}
+
+			int k = 0;
+			int fx = x - rows.first * period;
+			for (int j = 0; j < field.length; j++) {
+				float a = column[k];
+				float b = column[k + 1];
+				field[j] += weight * (a + (b - a) * fade[fx]);
+				if (++fx == period) {
+					fx = 0;
+					k++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The lattice values of one octave in the two lattice rows either side
+	 * of the row being generated, which are hashed again only when the
+	 * generated row crosses a lattice row
+	 */
+	private static final class LatticeRows {
+
+		private final long octaveSeed;
+		final int first;
+		float[] above;
+		float[] below;
+		private int iy = -2;
+
+		LatticeRows(long octaveSeed, int period, int x, int endX) {
+			this.octaveSeed = octaveSeed;
+			this.first = x / period;
+			int columns = (endX - 1) / period + 2 - first;
+			above = new float[columns];
+			below = new float[columns];
+		}
+
+		/**
+		 * Holds lattice rows iy and iy + 1
+		 */
+		void moveTo(int iy) {
+			if (iy == this.iy) {
+				return;
+			}
+			if (iy == this.iy + 1) {
+				float[] swap = above;
+				above = below;
+				below = swap;
+			} else {
+				hashRow(above, iy);
+			}
+			hashRow(below, iy + 1);
+			this.iy = iy;
+		}
+
+		private void hashRow(float[] values, int iy) {
+			for (int k = 0; k < values.length; k++) {
+				values[k] = lattice(octaveSeed, first + k, iy);
+			}
+		}
+	}
+
+	/**
+	 * @return the random value, from -1 to 1, at a lattice point
+	 */
+	private static float lattice(long octaveSeed, int ix, int iy) {
+		long h = mix(octaveSeed ^ (ix * 0x9e3779b97f4a7c15L) ^ (iy * 0xc2b2ae3d27d4eb4fL));
+		return (h >>> 40) * (2f / (1 << 24)) - 1;
+	}
+
+	/**
+	 * Scrambles the bits of a value, as the last step of SplitMix64
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
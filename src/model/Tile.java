@@ -34,6 +34,16 @@ public enum Tile implements Tileable {
 			0x604020,
 	};
 	
+	// The Color object for each tile type, cached so that toColor() does
+	// not allocate. An entry is replaced whenever setColor() is called.
+	static private Color[] colors = new Color[tileColors.length];
+	
+	static {
+		for (int k = 0; k < tileColors.length; k++) {
+			colors[k] = new Color(tileColors[k]);
+		}
+	}
+	
 	private Tile(char value) {
 		this.value = value;
 	}
@@ -47,6 +57,8 @@ public enum Tile implements Tileable {
 		int index = ((Tile)tile).ordinal();
 		if (index < tileColors.length) {
 			tileColors[index] = color % 0xffffff;
+			colors[index] = new Color(tileColors[index]);
+			TileColors.changed();
 		}
 	}
 
@@ -61,7 +73,7 @@ public enum Tile implements Tileable {
 	 * @return the Tile colour
 	 */
 	public Color toColor() {
-		return new Color(tileColors[this.ordinal()]);	
+		return colors[this.ordinal()];
 	}
 	
 	/**
@@ -77,4 +89,11 @@ public enum Tile implements Tileable {
 	public boolean isPassable() {
 		return this != Hedge && this != Rock && this != Fence && this != Tree;
 	}
+
+	/**
+	 * @return True if a tile blocks sight (i.e. you cannot see through a hedge)
+	 */
+	public boolean isOpaque() {
+		return this == Hedge || this == Rock || this == Tree;
+	}
 }
@@ -0,0 +1,36 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * TileColors counts the changes made to the tile colours by Tile.setColor()
+ * and IndoorTile.setColor(), so a renderer can tell whether the colours it
+ * has cached are still current without reading them.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public final class TileColors {
+
+	private static final AtomicInteger VERSION = new AtomicInteger();
+
+	private TileColors() {
+	}
+
+	/**
+	 * @return the number of colour changes so far, of any tile type family
+	 */
+	public static int getVersion() {
+		return VERSION.get();
+	}
+
+	/**
+	 * Records a change to a tile colour
+	 */
+	static void changed() {
+		VERSION.incrementAndGet();
+	}
+}
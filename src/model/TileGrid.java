@@ -0,0 +1,199 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ *
+ * TileGrid stores a map's tiles as tile ordinals, one byte per cell. Rows
+ * are contiguous, and are grouped into bands of about 64KB, so scans walk
+ * memory sequentially.
+ *
+ * Bands are copied on write. snapshot() returns a grid sharing every band
+ * with this one, and this grid copies a shared band before it next writes
+ * to it, so a snapshot costs one reference per band and each band is
+ * copied at most once per snapshot.
+ *
+ * Rows are addressed in the map's internal co-ordinates, i.e. the
+ * co-ordinates used by the setTerrain methods.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+final class TileGrid {
+
+	// the size aimed for in each band of rows
+	private static final int BAND_BYTES = 1 << 16;
+
+	// The grid dimensions
+	private final int width;
+	private final int height;
+
+	// the bands of rows, each holding 2^bandShift rows
+	private final byte[][] bands;
+	private final int bandShift;
+	private final int bandMask;
+
+	// a band is only owned by this grid, and may be written in place, when
+	// its epoch matches the grid's. Taking a snapshot starts a new epoch.
+	private final int[] bandEpochs;
+	private int epoch = 0;
+
+	/**
+	 * Allocates a grid with every cell set to ordinal zero
+	 *
+	 * @param width the grid width
+	 * @param height the grid height
+	 */
+	TileGrid(int width, int height) {
+		if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Invalid grid size: " + width + " by " + height);
+		}
+		this.width = width;
+		this.height = height;
+
+		int shift = 0;
+		while (shift < 30 && (long) width << (shift + 1) <= BAND_BYTES) {
+			shift++;
+		}
+		bandShift = shift;
+		bandMask = (1 << shift) - 1;
+
+		int count = (int) (((long) height + bandMask) >> bandShift);
+		bands = new byte[count][];
+		for (int b = 0; b < count; b++) {
+			bands[b] = new byte[bandRows(b) * width];
+		}
+		bandEpochs = new int[count];
+	}
+
+	/**
+	 * Creates a grid sharing another grid's bands
+	 */
+	private TileGrid(TileGrid grid) {
+		width = grid.width;
+		height = grid.height;
+		bands = grid.bands.clone();
+		bandShift = grid.bandShift;
+		bandMask = grid.bandMask;
+
+		// none of the bands are owned, so any write copies first
+		bandEpochs = new int[bands.length];
+		epoch = 1;
+	}
+
+	int getWidth() {
+		return width;
+	}
+
+	int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns a grid holding the same cells, which shares this grid's bands
+	 * until either grid writes to them
+	 *
+	 * @return the snapshot
+	 */
+	TileGrid snapshot() {
+		TileGrid copy = new TileGrid(this);
+		epoch++;
+		return copy;
+	}
+
+	/**
+	 * Reads one cell. A column outside the grid is rejected rather than
+	 * read from the neighbouring row.
+	 *
+	 * @param x the column
+	 * @param row the row
+	 * @return the ordinal stored at (x, row)
+	 * @throws ArrayIndexOutOfBoundsException if (x, row) is outside the grid
+	 */
+	byte get(int x, int row) {
+		if (x < 0 || x >= width) {
+			throw new ArrayIndexOutOfBoundsException("Invalid x position: " + x);
+		}
+		return bands[row >> bandShift][(row & bandMask) * width + x];
+	}
+
+	/**
+	 * @param x the column
+	 * @param row the row
+	 * @param ordinal the new ordinal
+	 */
+	void set(int x, int row, byte ordinal) {
+		writableRow(row)[(row & bandMask) * width + x] = ordinal;
+	}
+
+	/**
+	 * Sets the cells [x, endX) of a row to the same ordinal
+	 *
+	 * @param x the first column
+	 * @param row the row
+	 * @param endX the column after the last one written
+	 * @param ordinal the new ordinal
+	 */
+	void fill(int x, int row, int endX, byte ordinal) {
+		int base = (row & bandMask) * width;
+		Arrays.fill(writableRow(row), base + x, base + endX, ordinal);
+	}
+
+	/**
+	 * Returns the array holding a row. The row starts at rowOffset(row).
+	 * The array must only be read.
+	 *
+	 * @param row the row
+	 * @return the backing array of the row
+	 */
+	byte[] rowArray(int row) {
+		return bands[row >> bandShift];
+	}
+
+	/**
+	 * Returns the array holding a row, ready to be written. The row starts
+	 * at rowOffset(row). A shared band is copied first, so threads writing
+	 * rows in parallel must call makeWritable() for those rows beforehand.
+	 *
+	 * @param row the row
+	 * @return the backing array of the row
+	 */
+	byte[] writableRow(int row) {
+		int band = row >> bandShift;
+		if (bandEpochs[band] != epoch) {
+			bands[band] = bands[band].clone();
+			bandEpochs[band] = epoch;
+		}
+		return bands[band];
+	}
+
+	/**
+	 * Copies any shared bands holding the rows [fromRow, toRow), so they
+	 * can then be written by several threads at once
+	 *
+	 * @param fromRow the first row
+	 * @param toRow the row after the last
+	 */
+	void makeWritable(int fromRow, int toRow) {
+		for (int row = fromRow; row < toRow; row = (row | bandMask) + 1) {
+			writableRow(row);
+		}
+	}
+
+	/**
+	 * @param row the row
+	 * @return the index of the row's first cell within its backing array
+	 */
+	int rowOffset(int row) {
+		return (row & bandMask) * width;
+	}
+
+	/**
+	 * @return the number of rows in a band, which is less for the last
+	 */
+	private int bandRows(int band) {
+		return Math.min(bandMask + 1, height - (band << bandShift));
+	}
+}
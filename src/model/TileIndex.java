@@ -0,0 +1,477 @@
+package model;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ *
+ * A TileIndex finds the tiles of a given type in a TiledMap without
+ * scanning the map: the nearest tile of a type to a point, every tile of
+ * a type in a rectangle, and the number of them.
+ *
+ * Each tile type is indexed the first time it is asked for. Its index is
+ * a bitset per row, one bit per tile, and a pyramid of tile counts over
+ * square blocks, 64 tiles a side at the bottom and doubling at each level
+ * until one block covers the map. Queries go down the pyramid, skipping
+ * every block without the type and counting whole blocks inside a
+ * rectangle, so they take time in proportion to the tiles found and the
+ * rectangle's edge rather than to the map. The indexes are updated as the
+ * map is edited, in time in proportion to the tiles written.
+ *
+ * Co-ordinates are the same as getTerrain's for points and rectangles
+ * alike, so the rectangle (x, y, width, height) holds the rows y to
+ * y + height - 1 as getTerrain numbers them. Tiles are returned as an
+ * array of x, y pairs. A TileIndex must not be used by several threads
+ * at once.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public final class TileIndex {
+
+	// the bits in a word, and the side of a bottom level block
+	private static final int BLOCK_SHIFT = 6;
+	private static final int BLOCK = 1 << BLOCK_SHIFT;
+
+	private static final int[] NONE = new int[0];
+
+	private final TileGrid grid;
+	private final Tileable[] tileTypes;
+	private final int width;
+	private final int height;
+
+	// the words in a row of bits, and the number of levels in the pyramid
+	private final int words;
+	private final int levels;
+
+	// the index of each tile type, or null until it is first asked for
+	private final TypeIndex[] indexes;
+
+	// the ordinals indexed so far, and a word per type used by updates
+	private int[] indexed = new int[0];
+	private final long[] updated;
+
+	/**
+	 * @param grid the map's tiles
+	 * @param tileTypes the tile type family
+	 */
+	TileIndex(TileGrid grid, Tileable[] tileTypes) {
+		this.grid = grid;
+		this.tileTypes = tileTypes;
+		this.width = grid.getWidth();
+		this.height = grid.getHeight();
+		this.words = (width + BLOCK - 1) >> BLOCK_SHIFT;
+		this.indexes = new TypeIndex[tileTypes.length];
+		this.updated = new long[tileTypes.length];
+
+		int count = 1;
+		while ((long) BLOCK << (count - 1) < Math.max(width, height)) {
+			count++;
+		}
+		this.levels = count;
+	}
+
+	/**
+	 * Finds the tile of a type nearest to a point, measured in a straight
+	 * line. Of tiles equally near, any one may be returned.
+	 *
+	 * @param tileType the tile type
+	 * @param x the point's x position
+	 * @param y the point's y position
+	 * @return the tile's x, y position, or null if the map has none
+	 */
+	public int[] findNearest(Tileable tileType, int x, int y) {
+		TypeIndex index = index(tileType);
+		if (index == null || index.counts[levels - 1][0] == 0) {
+			return null;
+		}
+
+		// search the blocks nearest first, until none can hold a nearer tile
+		PriorityQueue<Block> queue = new PriorityQueue<>();
+		queue.add(new Block(levels - 1, 0, 0, 0));
+		long best = Long.MAX_VALUE;
+		int bestX = -1;
+		int bestY = -1;
+
+		while (!queue.isEmpty()) {
+			Block block = queue.poll();
+			if (block.distance >= best) {
+				break;
+			}
+			if (block.level > 0) {
+				int level = block.level - 1;
+				int size = BLOCK << level;
+				int across = columns(level);
+				for (int by = block.by * 2; by < block.by * 2 + 2 && (long) by * size < height; by++) {
+					for (int bx = block.bx * 2; bx < block.bx * 2 + 2 && (long) bx * size < width; bx++) {
+						if (index.counts[level][by * across + bx] > 0) {
+							long distance = distance(x, y, bx * size, by * size, size);
+							if (distance < best) {
+								queue.add(new Block(level, bx, by, distance));
+							}
+						}
+					}
+				}
+				continue;
+			}
+
+			// a bottom block is a word of each of its rows
+			int toY = Math.min(height, (block.by + 1) * BLOCK);
+			for (int row = block.by * BLOCK; row < toY; row++) {
+				long bits = index.bits[row * words + block.bx];
+				long dy = row - y;
+				while (bits != 0) {
+					int column = (block.bx << BLOCK_SHIFT) + Long.numberOfTrailingZeros(bits);
+					bits &= bits - 1;
+					long dx = column - x;
+					long distance = dx * dx + dy * dy;
+					if (distance < best) {
+						best = distance;
+						bestX = column;
+						bestY = row;
+					}
+				}
+			}
+		}
+		return new int[] { bestX, bestY };
+	}
+
+	/**
+	 * Finds every tile of a type in the map
+	 *
+	 * @param tileType the tile type
+	 * @return the tiles as x, y pairs, in row order
+	 */
+	public int[] findAll(Tileable tileType) {
+		return findAll(tileType, 0, 0, width, height);
+	}
+
+	/**
+	 * Finds every tile of a type in a rectangle
+	 *
+	 * @param tileType the tile type
+	 * @param x the rectangle's left x position
+	 * @param y the rectangle's top y position
+	 * @param width the rectangle's width
+	 * @param height the rectangle's height
+	 * @return the tiles as x, y pairs, in row order, or null if the
+	 *         rectangle is invalid
+	 */
+	public int[] findAll(Tileable tileType, int x, int y, int width, int height) {
+		if (!isInMap(x, y, width, height)) {
+			return null;
+		}
+		TypeIndex index = index(tileType);
+		if (index == null) {
+			return NONE;
+		}
+		long count = count(index, levels - 1, 0, 0, x, y, x + width, y + height);
+		if (count > Integer.MAX_VALUE / 2) {
+			throw new IllegalStateException("Invalid query: " + count + " tiles are too many to return");
+		}
+
+		int[] found = new int[(int) count * 2];
+		if (count > 0) {
+			collect(index, levels - 1, 0, 0, x, y, x + width, y + height, found, 0);
+			sortByRow(found);
+		}
+		return found;
+	}
+
+	/**
+	 * Returns the number of tiles of a type in a rectangle
+	 *
+	 * @param tileType the tile type
+	 * @param x the rectangle's left x position
+	 * @param y the rectangle's top y position
+	 * @param width the rectangle's width
+	 * @param height the rectangle's height
+	 * @return the number of tiles, or -1 if the rectangle is invalid
+	 */
+	public long getCount(Tileable tileType, int x, int y, int width, int height) {
+		if (!isInMap(x, y, width, height)) {
+			return -1;
+		}
+		TypeIndex index = index(tileType);
+		if (index == null) {
+			return 0;
+		}
+		return count(index, levels - 1, 0, 0, x, y, x + width, y + height);
+	}
+
+	/**
+	 * Updates the indexes after the tiles [x, endX) x [y, endY) have been
+	 * written. The rectangle is in the same co-ordinates as setTerrain.
+	 */
+	void tilesChanged(int x, int y, int endX, int endY) {
+		if (indexed.length == 0) {
+			return;
+		}
+		for (int row = y; row < endY; row++) {
+			byte[] cells = grid.rowArray(row);
+			int offset = grid.rowOffset(row);
+			int r = height - 1 - row;
+
+			for (int w = x >> BLOCK_SHIFT; w <= (endX - 1) >> BLOCK_SHIFT; w++) {
+				int from = Math.max(x, w << BLOCK_SHIFT);
+				int to = Math.min(endX, (w + 1) << BLOCK_SHIFT);
+				long mask = to - from == BLOCK ? -1L : ((1L << (to - from)) - 1) << (from & (BLOCK - 1));
+
+				for (int t : indexed) {
+					updated[t] = indexes[t].bits[r * words + w] & ~mask;
+				}
+				for (int j = from; j < to; j++) {
+					int t = cells[offset + j];
+					if (indexes[t] != null) {
+						updated[t] |= 1L << (j & (BLOCK - 1));
+					}
+				}
+				for (int t : indexed) {
+					TypeIndex index = indexes[t];
+					long old = index.bits[r * words + w];
+					if (old != updated[t]) {
+						index.bits[r * words + w] = updated[t];
+						index.add(w, r, Long.bitCount(updated[t]) - Long.bitCount(old));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the index of a tile type, built if it is first asked for, or
+	 *         null if the type is not in the family or the map is empty
+	 */
+	private TypeIndex index(Tileable tileType) {
+		int ordinal = tileType.ordinal();
+		if (ordinal >= tileTypes.length || tileTypes[ordinal] != tileType || width == 0 || height == 0) {
+			return null;
+		}
+		if (indexes[ordinal] == null) {
+			indexes[ordinal] = new TypeIndex((byte) ordinal);
+			indexed = Arrays.copyOf(indexed, indexed.length + 1);
+			indexed[indexed.length - 1] = ordinal;
+		}
+		return indexes[ordinal];
+	}
+
+	/**
+	 * Counts the tiles of the block at (bx, by) of a level that lie in
+	 * the rectangle [x, endX) x [y, endY)
+	 */
+	private long count(TypeIndex index, int level, int bx, int by, int x, int y, int endX, int endY) {
+		int count = index.counts[level][by * columns(level) + bx];
+		long size = (long) BLOCK << level;
+		long left = bx * size;
+		long top = by * size;
+		if (count == 0 || left >= endX || top >= endY || left + size <= x || top + size <= y) {
+			return 0;
+		}
+		if (left >= x && top >= y && left + size <= endX && top + size <= endY) {
+			return count;
+		}
+
+		if (level == 0) {
+			long mask = mask(bx, x, endX);
+			long total = 0;
+			for (int row = Math.max(y, (int) top); row < Math.min(endY, top + size); row++) {
+				total += Long.bitCount(index.bits[row * words + bx] & mask);
+			}
+			return total;
+		}
+
+		long total = 0;
+		for (int cy = by * 2; cy < by * 2 + 2 && (long) cy * (size / 2) < height; cy++) {
+			for (int cx = bx * 2; cx < bx * 2 + 2 && (long) cx * (size / 2) < width; cx++) {
+				total += count(index, level - 1, cx, cy, x, y, endX, endY);
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Adds the tiles of the block at (bx, by) of a level that lie in the
+	 * rectangle [x, endX) x [y, endY) to an array of x, y pairs
+	 *
+	 * @return the next free index of the array
+	 */
+	private int collect(TypeIndex index, int level, int bx, int by, int x, int y, int endX, int endY,
+			int[] found, int next) {
+		long size = (long) BLOCK << level;
+		long left = bx * size;
+		long top = by * size;
+		if (index.counts[level][by * columns(level) + bx] == 0 || left >= endX || top >= endY
+				|| left + size <= x || top + size <= y) {
+			return next;
+		}
+
+		if (level == 0) {
+			long mask = mask(bx, x, endX);
+			for (int row = Math.max(y, (int) top); row < Math.min(endY, top + size); row++) {
+				long bits = index.bits[row * words + bx] & mask;
+				while (bits != 0) {
+					found[next++] = (bx << BLOCK_SHIFT) + Long.numberOfTrailingZeros(bits);
+					found[next++] = row;
+					bits &= bits - 1;
+				}
+			}
+			return next;
+		}
+
+		for (int cy = by * 2; cy < by * 2 + 2 && (long) cy * (size / 2) < height; cy++) {
+			for (int cx = bx * 2; cx < bx * 2 + 2 && (long) cx * (size / 2) < width; cx++) {
+				next = collect(index, level - 1, cx, cy, x, y, endX, endY, found, next);
+			}
+		}
+		return next;
+	}
+
+	/**
+	 * Puts x, y pairs found block by block into row order. Each pair is
+	 * packed into a long so they sort together.
+	 */
+	private static void sortByRow(int[] found) {
+		long[] packed = new long[found.length / 2];
+		for (int k = 0; k < packed.length; k++) {
+			packed[k] = (long) found[2 * k + 1] << 32 | found[2 * k];
+		}
+		Arrays.sort(packed);
+		for (int k = 0; k < packed.length; k++) {
+			found[2 * k] = (int) packed[k];
+			found[2 * k + 1] = (int) (packed[k] >>> 32);
+		}
+	}
+
+	/**
+	 * @return the bits of word bx that lie in the columns [x, endX)
+	 */
+	private static long mask(int bx, int x, int endX) {
+		int from = Math.max(x - (bx << BLOCK_SHIFT), 0);
+		int to = Math.min(endX - (bx << BLOCK_SHIFT), BLOCK);
+		if (from >= to) {
+			return 0;
+		}
+		return (to - from == BLOCK ? -1L : (1L << (to - from)) - 1) << from;
+	}
+
+	/**
+	 * @return the squared distance from a point to the nearest tile of a block
+	 */
+	private static long distance(int x, int y, int left, int top, int size) {
+		long dx = x < left ? left - x : Math.max(0, x - ((long) left + size - 1));
+		long dy = y < top ? top - y : Math.max(0, y - ((long) top + size - 1));
+		return dx * dx + dy * dy;
+	}
+
+	/**
+	 * @return the number of blocks across a level
+	 */
+	private int columns(int level) {
+		return (int) ((width + ((long) BLOCK << level) - 1) >> (BLOCK_SHIFT + level));
+	}
+
+	private int rows(int level) {
+		return (int) ((height + ((long) BLOCK << level) - 1) >> (BLOCK_SHIFT + level));
+	}
+
+	private boolean isInMap(int x, int y, int width, int height) {
+		if (width < 0 || height < 0 || x < 0 || y < 0 || x + width > this.width || y + height > this.height) {
+			System.err.println("Invalid Region parameters:"+"("+x+","+y+","+width+","+height+")");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * The bits and block counts of one tile type
+	 */
+	private final class TypeIndex {
+
+		// a word per 64 columns of each row, rows numbered as for getTerrain
+		final long[] bits;
+
+		// the tiles in each block of each level
+		final int[][] counts;
+
+		/**
+		 * Indexes every tile of a type, a row of bottom level blocks per task
+		 */
+		TypeIndex(byte ordinal) {
+			bits = new long[height * words];
+			counts = new int[levels][];
+			for (int level = 0; level < levels; level++) {
+				counts[level] = new int[rows(level) * columns(level)];
+			}
+
+			int[] bottom = counts[0];
+			IntStream.range(0, rows(0)).parallel().forEach(by -> {
+				int toRow = Math.min(height, (by + 1) * BLOCK);
+				for (int r = by * BLOCK; r < toRow; r++) {
+					int row = height - 1 - r;
+					byte[] cells = grid.rowArray(row);
+					int offset = grid.rowOffset(row);
+					for (int j = 0; j < width; j++) {
+						if (cells[offset + j] == ordinal) {
+							bits[r * words + (j >> BLOCK_SHIFT)] |= 1L << (j & (BLOCK - 1));
+						}
+					}
+					for (int w = 0; w < words; w++) {
+						bottom[by * words + w] += Long.bitCount(bits[r * words + w]);
+					}
+				}
+			});
+
+			// each block above sums the four below it
+			for (int level = 1; level < levels; level++) {
+				int across = columns(level);
+				int below = columns(level - 1);
+				int belowRows = rows(level - 1);
+				for (int by = 0; by < belowRows; by++) {
+					for (int bx = 0; bx < below; bx++) {
+						counts[level][(by >> 1) * across + (bx >> 1)] += counts[level - 1][by * below + bx];
+					}
+				}
+			}
+		}
+
+		/**
+		 * Adds to the count of the bottom block holding word w of row r,
+		 * and of every block above it
+		 */
+		void add(int w, int r, int delta) {
+			int bx = w;
+			int by = r >> BLOCK_SHIFT;
+			for (int level = 0; level < levels; level++) {
+				counts[level][by * columns(level) + bx] += delta;
+				bx >>= 1;
+				by >>= 1;
+			}
+		}
+	}
+
+	/**
+	 * A block waiting to be searched by findNearest, nearest first
+	 */
+	private static final class Block implements Comparable<Block> {
+
+		final int level;
+		final int bx;
+		final int by;
+		final long distance;
+
+		Block(int level, int bx, int by, long distance) {
+			this.level = level;
+			this.bx = bx;
+			this.by = by;
+			this.distance = distance;
+		}
+
+		@Override
+		public int compareTo(Block other) {
+			return Long.compare(distance, other.distance);
+		}
+	}
+}
@@ -26,9 +26,21 @@ public interface Tileable {
 	 * @return True if a tile is considered passable (i.e. it's difficult to walk through trees)
 	 */
 	public boolean isPassable();
+
+	/**
+	 * @return True if a tile blocks sight (i.e. you cannot see through a hedge)
+	 */
+	public boolean isOpaque();
 	
 	/**
 	 * @return a random Terrain type
 	 */
 	public Tileable getRandom();
+
+	/**
+	 * Tile types are enums, so this is provided by Enum.
+	 *
+	 * @return the tile's position within its tile type family
+	 */
+	public int ordinal();
 }
@@ -1,5 +1,11 @@
 package model;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
 import view.MapRenderer;
 
 /**
@@ -23,27 +29,89 @@ final public class TiledMap implements Mappable {
 	// method getRandom() to be called on an instance object.
 	private Tileable initTile;
 
-	private Tileable[][] tiledMap;
+	// The tiles are stored as ordinals of the tile type family, one byte per
+	// tile, and only decoded to Tileable objects at the API boundary.
+	private Tileable[] tileTypes;
+	private TileGrid tiledMap;
 	private MapRenderer myRenderer;
 
+	// The number of tiles of each type, kept up to date by every write so
+	// that area queries never need to scan the map
+	private long[] tileCounts;
+	private boolean[] passable;
+
+	// Rectangle counts, created on the first region query
+	private SummedAreaTables regionTables;
+
+	// The passable regions, created when first requested
+	private PassableRegions regions;
+
+	// The index of each tile type's positions, created when first requested
+	private TileIndex index;
+
+	// The listeners told of each rectangle written
+	private List<MapListener> listeners = new CopyOnWriteArrayList<>();
+
+	// The journal recording each edit for undo, if there is one
+	private EditJournal journal;
+
 	// input parameter validation return indicators
 	private static final boolean INVALID = false;
 	private static final boolean SUCCESS = true;
+
+	// the ordinal counted for a tile type outside the family, which no tile has
+	private static final int NO_TILES = -2;
+
+	// the number of rows copied by each task when a map file is loaded
+	private static final int LOAD_ROWS = 256;
 	
 	/**
 	 * Initialises the map tiles
 	 * 
-	 * @param map a 2D tileable map
+	 * @param width the map width
+	 * @param height the map height
 	 * @param tileType the default tile type
 	 */
-	public TiledMap(Tileable[][] map, Tileable tileType) {
-		mapWidth = map.length;
-		mapHeight = map[0].length;
+	public TiledMap(int width, int height, Tileable tileType) {
+		mapWidth = width;
+		mapHeight = height;
 		
 		initTile = tileType;
-		tiledMap = map;
+		tileTypes = tileType.getClass().getEnumConstants();
+		tiledMap = new TileGrid(width, height);
+
+		tileCounts = new long[tileTypes.length];
+		passable = new boolean[tileTypes.length];
+		for (int k = 0; k < tileTypes.length; k++) {
+			passable[k] = tileTypes[k].isPassable();
+		}
 		createMap(tileType);
 	}
+
+	/**
+	 * Initialises a tiled map as above, but also defines a map renderer
+	 * 
+	 * @param width the map width
+	 * @param height the map height
+	 * @param tileType the default terrain type
+	 * @param renderer the initial renderer
+	 */
+	public TiledMap(int width, int height, Tileable tileType, MapRenderer renderer) 
+	{
+		this(width, height, tileType);
+		setRenderer(renderer);
+	}
+
+	/**
+	 * Initialises the map tiles. Only the dimensions of the factory map
+	 * are used, the tiles themselves are stored compactly as ordinals.
+	 * 
+	 * @param map a 2D tileable map
+	 * @param tileType the default tile type
+	 */
+	public TiledMap(Tileable[][] map, Tileable tileType) {
+		this(map.length, map[0].length, tileType);
+	}
 	
 	/**
 	 * Initialises a tiled map as above, but also defines a map renderer
@@ -98,9 +166,41 @@ final public class TiledMap implements Mappable {
 	 * @return the IndoorTiletype
 	 */
 	public Tileable getTerrain(int x, int y) {
-		return tiledMap[x][translateY(y)];
+		return tileTypes[tiledMap.get(x, translateY(y))];
+	}
+	
+	/**
+	 * Checks if the tile at co-ordinate (x, y) is passable. The co-ordinates
+	 * are the same as getTerrain's.
+	 * 
+	 * @param x the map's x position
+	 * @param y the map's y position
+	 * @return True if the tile is passable
+	 */
+	public boolean isPassable(int x, int y) {
+		return passable[tiledMap.get(x, translateY(y))];
 	}
 	
+	/**
+	 * Returns the map's tile type family, indexed by ordinal
+	 * 
+	 * @return the tile types that can be stored in the map
+	 */
+	public Tileable[] getTileTypes() {
+		return tileTypes.clone();
+	}
+
+	/**
+	 * Copies the tile ordinals of row y into an array. The row is copied in one step.
+	 * 
+	 * @param y the map's y position
+	 * @param ordinals receives the row's ordinals, at least getWidth() long
+	 */
+	public void getTerrainRow(int y, byte[] ordinals) {
+		int row = translateY(y);
+		System.arraycopy(tiledMap.rowArray(row), tiledMap.rowOffset(row), ordinals, 0, mapWidth);
+	}
+
 	/**
 	 * Sets the Terrain area to the defined type.
 	 * 
@@ -122,12 +222,18 @@ final public class TiledMap implements Mappable {
 			System.err.println("Invalid Terrain parameters:"+"("+x+","+y+","+width+","+height+")");
 			return INVALID;
 		}
+		if (!isTileType(tileType)) {
+			System.err.println("Invalid Tile type: "+tileType);
+			return INVALID;
+		}
 		
-		for (int j = x; j < endX ; j++) {
-			for (int i = y; i < endY; i++) {
-				tiledMap[j][i] = tileType;
-			}
+		record(x, y, endX, endY);
+		byte ordinal = (byte) tileType.ordinal();
+		for (int i = y; i < endY; i++) {
+			fillRow(x, i, endX, ordinal);
 		}
+		commit();
+		tilesChanged(x, y, endX, endY);
 		return SUCCESS;
 	}
 
@@ -166,34 +272,511 @@ final public class TiledMap implements Mappable {
 			return INVALID;
 		}
 		
-		for (int j = x; j < endX ; j++) {
+		record(x, y, endX, endY);
+		for (int i = y; i < endY; i++) {
+			byte[] row = tiledMap.writableRow(i);
+			int offset = tiledMap.rowOffset(i);
+			for (int j = x; j < endX ; j++) {
+				byte ordinal = (byte) initTile.getRandom().ordinal();
+				tileCounts[row[offset + j]]--;
+				tileCounts[ordinal]++;
+				row[offset + j] = ordinal;
+			}
+		}
+		commit();
+		tilesChanged(x, y, endX, endY);
+		return SUCCESS;
+	}
+
+	/**
+	 * Sets the Terrain area's individual tiles randomly from a seed. The rows
+	 * are filled in parallel stripes, each with its own random stream, and the
+	 * same seed always produces the same tiles however many threads run.
+	 * 
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the new region's width
+	 * @param height the new region's height
+	 * @param seed the random seed
+	 * 
+	 * @return True if terrain was set successfully
+	 */
+	public boolean setTerrainRandomly(final int x, final int y, int width, int height, long seed) {
+
+		// calculate the terrain end co-ordinate
+		final int endX = x+width;
+		final int endY = y+height;
+		
+		if (!isInMap(x, y, endX, endY)){
+			System.err.println("Invalid Terrain parameters:"+"("+x+","+y+","+width+","+height+")");
+			return INVALID;
+		}
+		if (width <= 0 || height <= 0) {
+			return SUCCESS;
+		}
+
+		final SplittableRandom[] streams = RandomFill.streams(seed, height);
+		final int types = tileTypes.length;
+		fillStripes(x, y, endX, endY, RandomFill.STRIPE_ROWS, (grid, s, fromRow, toRow, fromX, toX) -> {
+			for (int i = fromRow; i < toRow; i++) {
+				int offset = grid.rowOffset(i);
+				RandomFill.fillRow(streams[s], grid.writableRow(i), offset + fromX, offset + toX, types);
+			}
+		});
+		return SUCCESS;
+	}
+
+	/**
+	 * Fills a rectangle in parallel stripes of rows, keeping the tile
+	 * counts and everything derived from the tiles up to date. The
+	 * rectangle must be in the map and the fill must write only tiles of
+	 * this map's family.
+	 * 
+	 * @param x the first column
+	 * @param y the first row
+	 * @param endX the column after the last
+	 * @param endY the row after the last
+	 * @param stripeRows the number of rows in each stripe
+	 * @param fill writes the tiles of each stripe
+	 */
+	void fillStripes(final int x, final int y, final int endX, final int endY, final int stripeRows,
+			final StripeFill fill) {
+		if (endX <= x || endY <= y) {
+			return;
+		}
+
+		// shared bands are copied before the stripes write to them in parallel
+		record(x, y, endX, endY);
+		tiledMap.makeWritable(y, endY);
+		final int stripes = (endY - y + stripeRows - 1) / stripeRows;
+		final long[][] stripeCounts = new long[stripes][];
+		final int types = tileTypes.length;
+
+		IntStream.range(0, stripes).parallel().forEach(s -> {
+			long[] counts = new long[types];
+			int fromRow = y + s * stripeRows;
+			int toRow = Math.min(endY, fromRow + stripeRows);
+
+			for (int i = fromRow; i < toRow; i++) {
+				byte[] row = tiledMap.rowArray(i);
+				int offset = tiledMap.rowOffset(i);
+				for (int j = offset + x; j < offset + endX; j++) {
+					counts[row[j]]--;
+				}
+			}
+			fill.fill(tiledMap, s, fromRow, toRow, x, endX);
+			for (int i = fromRow; i < toRow; i++) {
+				byte[] row = tiledMap.rowArray(i);
+				int offset = tiledMap.rowOffset(i);
+				for (int j = offset + x; j < offset + endX; j++) {
+					counts[row[j]]++;
+				}
+			}
+			stripeCounts[s] = counts;
+		});
+
+		for (long[] counts : stripeCounts) {
+			for (int k = 0; k < types; k++) {
+				tileCounts[k] += counts[k];
+			}
+		}
+		commit();
+		tilesChanged(x, y, endX, endY);
+	}
+
+	/**
+	 * Fills disjoint rectangles in parallel, one task per rectangle,
+	 * keeping the tile counts and everything derived from the tiles up to
+	 * date. Each rectangle is journalled and reported as written on its
+	 * own. The rectangles must be in the map, must not share a row, and
+	 * the fill must write only tiles of this map's family.
+	 * 
+	 * @param rectangles each rectangle's first column, first row, column
+	 *        after the last and row after the last
+	 * @param count the number of rectangles
+	 * @param fill writes the tiles of each rectangle, which is given as
+	 *        its stripe the rectangle's index
+	 */
+	void fillRectangles(final int[] rectangles, final int count, final StripeFill fill) {
+		if (count == 0) {
+			return;
+		}
+
+		// shared bands are copied before the rectangles write to them in parallel
+		for (int k = 0; k < count * 4; k += 4) {
+			record(rectangles[k], rectangles[k + 1], rectangles[k + 2], rectangles[k + 3]);
+			tiledMap.makeWritable(rectangles[k + 1], rectangles[k + 3]);
+		}
+		final long[][] rectangleCounts = new long[count][];
+		final int types = tileTypes.length;
+
+		IntStream.range(0, count).parallel().forEach(r -> {
+			long[] counts = new long[types];
+			int x = rectangles[r * 4];
+			int fromRow = rectangles[r * 4 + 1];
+			int endX = rectangles[r * 4 + 2];
+			int toRow = rectangles[r * 4 + 3];
+
+			for (int i = fromRow; i < toRow; i++) {
+				byte[] row = tiledMap.rowArray(i);
+				int offset = tiledMap.rowOffset(i);
+				for (int j = offset + x; j < offset + endX; j++) {
+					counts[row[j]]--;
+				}
+			}
+			fill.fill(tiledMap, r, fromRow, toRow, x, endX);
+			for (int i = fromRow; i < toRow; i++) {
+				byte[] row = tiledMap.rowArray(i);
+				int offset = tiledMap.rowOffset(i);
+				for (int j = offset + x; j < offset + endX; j++) {
+					counts[row[j]]++;
+				}
+			}
+			rectangleCounts[r] = counts;
+		});
+
+		for (long[] counts : rectangleCounts) {
+			for (int k = 0; k < types; k++) {
+				tileCounts[k] += counts[k];
+			}
+		}
+		commit();
+		for (int k = 0; k < count * 4; k += 4) {
+			tilesChanged(rectangles[k], rectangles[k + 1], rectangles[k + 2], rectangles[k + 3]);
+		}
+	}
+
+	/**
+	 * Starts a batch of setTerrain fills, which are applied together by
+	 * MapBatch.commit(). Overlapping fills are resolved first, so each
+	 * tile is written only once.
+	 * 
+	 * @return an empty batch for this map
+	 */
+	public MapBatch beginBatch() {
+		return new MapBatch(this, initTile);
+	}
+
+	/**
+	 * Applies a batch of fills, checking the batch's bounds once
+	 * 
+	 * @param batch the batch
+	 * 
+	 * @return True if the batch was applied successfully
+	 */
+	boolean applyBatch(MapBatch batch) {
+		if (batch.size() == 0) {
+			return SUCCESS;
+		}
+
+		int[] bounds = batch.getBounds();
+		if (!isInMap(bounds[0], bounds[1], bounds[2], bounds[3])) {
+			System.err.println("Invalid Batch bounds:"+"("+bounds[0]+","+bounds[1]+","+bounds[2]+","+bounds[3]+")");
+			return INVALID;
+		}
+
+		// each span is journalled as written and kept, so that only the
+		// tiles written are reported changed
+		final int[][] written = { new int[16 * 4] };
+		final int[] count = { 0 };
+		batch.resolve((y, endY, spans, spanCount) -> {
+			for (int s = 0; s < spanCount * 3; s += 3) {
+				record(spans[s], y, spans[s + 1], endY);
+			}
 			for (int i = y; i < endY; i++) {
-				
-				tiledMap[j][i] = initTile.getRandom();
+				for (int s = 0; s < spanCount * 3; s += 3) {
+					fillRow(spans[s], i, spans[s + 1], (byte) spans[s + 2]);
+				}
+			}
+			if ((count[0] + spanCount) * 4 > written[0].length) {
+				written[0] = Arrays.copyOf(written[0], Math.max(written[0].length * 2, (count[0] + spanCount) * 4));
 			}
+			for (int s = 0; s < spanCount * 3; s += 3) {
+				int k = count[0]++ * 4;
+				written[0][k] = spans[s];
+				written[0][k + 1] = y;
+				written[0][k + 2] = spans[s + 1];
+				written[0][k + 3] = endY;
+			}
+		});
+		commit();
+		for (int k = 0; k < count[0] * 4; k += 4) {
+			tilesChanged(written[0][k], written[0][k + 1], written[0][k + 2], written[0][k + 3]);
 		}
 		return SUCCESS;
 	}
 
+	/**
+	 * Replaces every tile with the rows of a file, reading stripes of rows
+	 * in parallel, and recounts the tiles. If the file is rejected the rows
+	 * read so far are discarded and every tile is set to the default tile
+	 * type, so the map is never left half loaded.
+	 * 
+	 * @param source the file's rows, the same size as this map
+	 * 
+	 * @return True if every row was read and every tile belongs to the
+	 * tile type family
+	 */
+	boolean load(RowSource source) {
+		final int stripes = (mapHeight + LOAD_ROWS - 1) / LOAD_ROWS;
+		final long[][] stripeCounts = new long[stripes][];
+		tiledMap.makeWritable(0, mapHeight);
+
+		IntStream.range(0, stripes).parallel().forEach(s -> {
+			long[] counts = new long[256];
+			int fromY = s * LOAD_ROWS;
+			int toY = Math.min(mapHeight, fromY + LOAD_ROWS);
+			for (int y = fromY; y < toY; y++) {
+				int row = translateY(y);
+				byte[] cells = tiledMap.writableRow(row);
+				int offset = tiledMap.rowOffset(row);
+				if (!source.readRow(y, cells, offset)) {
+					return;
+				}
+				for (int j = offset; j < offset + mapWidth; j++) {
+					counts[cells[j] & 0xff]++;
+				}
+			}
+			stripeCounts[s] = counts;
+		});
+
+		long[] total = new long[256];
+		boolean valid = true;
+		for (long[] counts : stripeCounts) {
+			if (counts == null) {
+				valid = false;
+				break;
+			}
+			for (int k = 0; k < total.length; k++) {
+				total[k] += counts[k];
+			}
+		}
+		for (int k = tileTypes.length; valid && k < total.length; k++) {
+			valid = total[k] == 0;
+		}
+		if (!valid) {
+			clearRows();
+			Arrays.fill(total, 0);
+			total[initTile.ordinal()] = (long) mapWidth * mapHeight;
+		}
+		System.arraycopy(total, 0, tileCounts, 0, tileTypes.length);
+
+		// the edits journalled before no longer apply to the new tiles
+		if (journal != null) {
+			journal.clear();
+		}
+		tilesChanged(0, 0, mapWidth, mapHeight);
+		return valid ? SUCCESS : INVALID;
+	}
+
+	/**
+	 * Sets every tile to the default tile type, after a rejected load
+	 */
+	private void clearRows() {
+		byte ordinal = (byte) initTile.ordinal();
+		IntStream.range(0, mapHeight).parallel().forEach(row -> {
+			int offset = tiledMap.rowOffset(row);
+			Arrays.fill(tiledMap.writableRow(row), offset, offset + mapWidth, ordinal);
+		});
+	}
+
+	/**
+	 * Returns a read-only view of the map as it is now. The view shares the
+	 * map's tiles, so taking it costs one reference per band of rows, not a
+	 * copy of the map. The map copies a band before it next writes to it,
+	 * so the view never changes while the map goes on being edited.
+	 * 
+	 * @return the snapshot
+	 */
+	public MapSnapshot snapshot() {
+		return new MapSnapshot(tiledMap.snapshot(), tileTypes, tileCounts.clone());
+	}
+
+	/**
+	 * Sets the journal told of each edit, replacing any journal before it
+	 * 
+	 * @param journal the journal, or null to stop journalling
+	 */
+	void setJournal(EditJournal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * @return the map's tiles, for the journal to read
+	 */
+	TileGrid getGrid() {
+		return tiledMap;
+	}
+
+	/**
+	 * Writes back a rectangle of tiles encoded by the journal, as runs
+	 * of one ordinal followed by the run's length. The write is not
+	 * journalled.
+	 * 
+	 * @param x the first column
+	 * @param y the first row
+	 * @param endX the column after the last
+	 * @param endY the row after the last
+	 * @param runs the encoded tiles, row after row
+	 */
+	void restore(int x, int y, int endX, int endY, byte[] runs) {
+		int position = 0;
+		long run = 0;
+		byte ordinal = 0;
+
+		for (int i = y; i < endY; i++) {
+			int j = x;
+			while (j < endX) {
+				if (run == 0) {
+					ordinal = runs[position++];
+					int shift = 0;
+					byte b;
+					do {
+						b = runs[position++];
+						run |= (long) (b & 0x7f) << shift;
+						shift += 7;
+					} while (b < 0);
+				}
+				int to = (int) Math.min(endX, j + run);
+				fillRow(j, i, to, ordinal);
+				run -= to - j;
+				j = to;
+			}
+		}
+		tilesChanged(x, y, endX, endY);
+	}
+
+	/**
+	 * Writes one tile to each span of a flood fill. The write is not
+	 * journalled.
+	 * 
+	 * @param spans each span's row, first column and the column after its last
+	 * @param ordinal the tile type's ordinal
+	 */
+	void restoreSpans(int[] spans, byte ordinal) {
+		int minX = Integer.MAX_VALUE;
+		int minRow = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+		int maxRow = Integer.MIN_VALUE;
+
+		for (int s = 0; s < spans.length; s += 3) {
+			fillRow(spans[s + 1], spans[s], spans[s + 2], ordinal);
+			minRow = Math.min(minRow, spans[s]);
+			maxRow = Math.max(maxRow, spans[s]);
+			minX = Math.min(minX, spans[s + 1]);
+			maxX = Math.max(maxX, spans[s + 2]);
+		}
+		tilesChanged(minX, minRow, maxX, maxRow + 1);
+	}
+
+	/**
+	 * Returns the map's passable regions, which answer reachability and
+	 * region size queries without searching. The regions are kept up to
+	 * date as the map is edited.
+	 * 
+	 * @return the passable regions
+	 */
+	public PassableRegions getPassableRegions() {
+		if (regions == null) {
+			regions = new PassableRegions(tiledMap, passable);
+		}
+		return regions;
+	}
+
+	/**
+	 * Returns the map's tile index, which finds the nearest tile of a type
+	 * and every tile of a type in a rectangle without scanning the map.
+	 * The index is kept up to date as the map is edited.
+	 * 
+	 * @return the tile index
+	 */
+	public TileIndex getTileIndex() {
+		if (index == null) {
+			index = new TileIndex(tiledMap, tileTypes);
+		}
+		return index;
+	}
+
 	/**
 	 * Calculates the percentage of passable area in the map
 	 * 
 	 * @return percentage of passable area
 	 */
 	public double getPassableArea() {
-		double totalItems = mapWidth * mapHeight;
+		double totalItems = (double) mapWidth * mapHeight;
 		double nonPassableItems = 0;
 
-		for (int j = 0; j < mapHeight; j++) {
-			for (int i = 0; i < mapWidth; i++) {
-				if (!tiledMap[i][j].isPassable()) {
-					nonPassableItems += 1;
-				}
+		for (int k = 0; k < tileTypes.length; k++) {
+			if (!passable[k]) {
+				nonPassableItems += tileCounts[k];
 			}
 		}
 		return (1 - nonPassableItems / totalItems) * 100;
 	}
 
+	/**
+	 * Returns the number of tiles of a given type in the map
+	 * 
+	 * @param tileType the tile type
+	 * 
+	 * @return the number of tiles of that type
+	 */
+	public long getTileCount(Tileable tileType) {
+		if (!isTileType(tileType)) {
+			return 0;
+		}
+		return tileCounts[tileType.ordinal()];
+	}
+
+	/**
+	 * Returns the number of passable tiles in a rectangle. The rectangle is
+	 * given in the same co-ordinates as setTerrain.
+	 * 
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the region's width
+	 * @param height the region's height
+	 * 
+	 * @return the number of passable tiles, or -1 if the region is invalid
+	 */
+	public long getPassableCount(int x, int y, int width, int height) {
+		return countRegion(x, y, width, height, -1);
+	}
+
+	/**
+	 * Returns the number of tiles of a given type in a rectangle. The
+	 * rectangle is given in the same co-ordinates as setTerrain.
+	 * 
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the region's width
+	 * @param height the region's height
+	 * @param tileType the tile type
+	 * 
+	 * @return the number of tiles of that type, or -1 if the region is invalid
+	 */
+	public long getTileCount(int x, int y, int width, int height, Tileable tileType) {
+		return countRegion(x, y, width, height, isTileType(tileType) ? tileType.ordinal() : NO_TILES);
+	}
+
+	/**
+	 * Registers a listener to be told of every rectangle of tiles written
+	 * 
+	 * @param listener the listener
+	 */
+	public void addMapListener(MapListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes a previously registered listener
+	 * 
+	 * @param listener the listener
+	 */
+	public void removeMapListener(MapListener listener) {
+		listeners.remove(listener);
+	}
+
 	/**
 	 * Draws the map using the user defined renderer. 
 	 * 
@@ -222,17 +805,13 @@ final public class TiledMap implements Mappable {
 			System.err.println("Invalid Border set: "+borderWidth);
 			return INVALID;
 		}
-
-		for (int j = 0; j < mapHeight; j++) {
-			for (int i = 0; i < mapWidth; i++) {
-
-				// if we're at a boundary build a hedge
-				if (j < borderWidth || i < borderWidth || 
-					j >= mapHeight - borderWidth || i >= mapWidth - borderWidth) {
-					tiledMap[i][j] = tileType;
-				}
-			}
+		if (!isTileType(tileType)) {
+			System.err.println("Invalid Tile type: "+tileType);
+			return INVALID;
 		}
+
+		// only the border band itself is visited
+		fillFrame(0, 0, mapWidth, mapHeight, borderWidth, (byte) tileType.ordinal());
 		return SUCCESS;
 	}
 	
@@ -248,6 +827,96 @@ final public class TiledMap implements Mappable {
 	}
 	
 	
+	/**
+	 * Sets a frame of tiles just inside the edges of the Terrain area.
+	 * Only the frame's tiles are visited.
+	 * 
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the area's width
+	 * @param height the area's height
+	 * @param thickness the frame's thickness
+	 * @param tileType the Tile type
+	 * 
+	 * @return True if the frame was set successfully
+	 */
+	public boolean setFrame(int x, int y, int width, int height, int thickness, Tileable tileType) {
+
+		// calculate the terrain end co-ordinate
+		int endX = x+width;
+		int endY = y+height;
+
+		if (thickness < 0 || !isInMap(x, y, endX, endY)){
+			System.err.println("Invalid Frame parameters:"+"("+x+","+y+","+width+","+height+","+thickness+")");
+			return INVALID;
+		}
+		if (!isTileType(tileType)) {
+			System.err.println("Invalid Tile type: "+tileType);
+			return INVALID;
+		}
+
+		fillFrame(x, y, endX, endY, thickness, (byte) tileType.ordinal());
+		return SUCCESS;
+	}
+
+	/**
+	 * Sets the outline of the Terrain area, i.e. a frame one tile thick
+	 * 
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the area's width
+	 * @param height the area's height
+	 * @param tileType the Tile type
+	 * 
+	 * @return True if the outline was set successfully
+	 */
+	public boolean setOutline(int x, int y, int width, int height, Tileable tileType) {
+		return setFrame(x, y, width, height, 1, tileType);
+	}
+
+	/**
+	 * Replaces the connected area of tiles that share the type found at
+	 * (x, y) with a new type. Tiles are connected through their four
+	 * neighbours. The co-ordinates are the same as setTerrain's.
+	 * 
+	 * @param x the seed's x position
+	 * @param y the seed's y position
+	 * @param tileType the new Tile type
+	 * 
+	 * @return True if the area was filled successfully
+	 */
+	public boolean floodFill(int x, int y, Tileable tileType) {
+
+		if (!isInMap(x, y, x+1, y+1)){
+			System.err.println("Invalid Fill parameters:"+"("+x+","+y+")");
+			return INVALID;
+		}
+		if (!isTileType(tileType)) {
+			System.err.println("Invalid Tile type: "+tileType);
+			return INVALID;
+		}
+
+		byte target = tiledMap.get(x, y);
+		byte ordinal = (byte) tileType.ordinal();
+		if (target == ordinal) {
+			return SUCCESS;
+		}
+
+		FloodFill fill = new FloodFill(tiledMap, target, ordinal);
+		if (journal != null) {
+			fill.keepSpans();
+		}
+		fill.fill(x, y);
+		tileCounts[target] -= fill.getFilled();
+		tileCounts[ordinal] += fill.getFilled();
+		if (journal != null) {
+			journal.recordSpans(fill.getSpans(), fill.getSpanCount(), target, ordinal);
+			journal.commit();
+		}
+		tilesChanged(fill.getMinX(), fill.getMinRow(), fill.getMaxX() + 1, fill.getMaxRow() + 1);
+		return SUCCESS;
+	}
+
 	/**
 	 * Checks if the start and end co-ordinates are contained with
 	 * the map
@@ -266,6 +935,95 @@ final public class TiledMap implements Mappable {
 		return SUCCESS;
 	}
 
+	/**
+	 * Counts tiles in a rectangle using the summed-area tables
+	 * 
+	 * @param x the starting x position
+	 * @param y the starting y position
+	 * @param width the region's width
+	 * @param height the region's height
+	 * @param ordinal the tile type's ordinal, -1 to count passable tiles, or
+	 *        NO_TILES for a tile type outside the family
+	 * 
+	 * @return the number of tiles, or -1 if the region is invalid
+	 */
+	private long countRegion(int x, int y, int width, int height, int ordinal) {
+
+		// calculate the region end co-ordinate
+		int endX = x+width;
+		int endY = y+height;
+
+		if (width < 0 || height < 0 || !isInMap(x, y, endX, endY)){
+			System.err.println("Invalid Region parameters:"+"("+x+","+y+","+width+","+height+")");
+			return -1;
+		}
+		if (ordinal == NO_TILES) {
+			return 0;
+		}
+
+		if (SummedAreaTables.fits(mapWidth, mapHeight)) {
+			if (regionTables == null) {
+				regionTables = new SummedAreaTables(tiledMap, tileTypes);
+			}
+			if (ordinal < 0) {
+				return regionTables.countPassable(x, y, endX, endY);
+			}
+			return regionTables.countType(ordinal, x, y, endX, endY);
+		}
+
+		// the map is too large for the tables, so count directly
+		long count = 0;
+		for (int i = y; i < endY; i++) {
+			byte[] row = tiledMap.rowArray(i);
+			int offset = tiledMap.rowOffset(i);
+			for (int j = offset + x; j < offset + endX; j++) {
+				if (ordinal < 0 ? passable[row[j]] : row[j] == ordinal) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Updates any state derived from the tiles once the rectangle
+	 * [x, endX) x [y, endY) has been written
+	 * 
+	 * @param x the first column written
+	 * @param y the first row written
+	 * @param endX the column after the last written
+	 * @param endY the row after the last written
+	 */
+	private void tilesChanged(int x, int y, int endX, int endY) {
+		if (endX <= x || endY <= y) {
+			return;
+		}
+		if (regionTables != null) {
+			regionTables.invalidate(y, endY);
+		}
+		if (regions != null) {
+			regions.tilesChanged(x, y, endX, endY);
+		}
+		if (index != null) {
+			index.tilesChanged(x, y, endX, endY);
+		}
+		for (MapListener listener : listeners) {
+			listener.tilesChanged(this, x, mapHeight - endY, endX - x, endY - y);
+		}
+	}
+
+	/**
+	 * Checks if a tile belongs to this map's tile type family
+	 * 
+	 * @param tileType the tile type
+	 * 
+	 * @return True if the tile can be stored in the map
+	 */
+	private boolean isTileType(Tileable tileType) {
+		int ordinal = tileType.ordinal();
+		return ordinal < tileTypes.length && tileTypes[ordinal] == tileType;
+	}
+
 	/**
 	 * Initialises the map 
 	 * 
@@ -273,11 +1031,100 @@ final public class TiledMap implements Mappable {
 	 */
 	private void createMap(Tileable tileType) {
 	
-		for (int j = 0; j < mapHeight; j++) {
-			for (int i = 0; i < mapWidth; i++) {
-				tiledMap[i][j] = tileType;
-			}
+		// a new grid already holds ordinal zero
+		byte ordinal = (byte) tileType.ordinal();
+		for (int j = 0; ordinal != 0 && j < mapHeight; j++) {
+			tiledMap.fill(0, j, mapWidth, ordinal);
+		}
+		Arrays.fill(tileCounts, 0);
+		tileCounts[ordinal] = (long) mapWidth * mapHeight;
+	}
+
+	/**
+	 * Fills a frame inside [x, endX) x [y, endY), visiting only its tiles
+	 * 
+	 * @param x the first column
+	 * @param y the first row
+	 * @param endX the column after the last
+	 * @param endY the row after the last
+	 * @param thickness the frame's thickness
+	 * @param ordinal the tile type's ordinal
+	 */
+	private void fillFrame(int x, int y, int endX, int endY, int thickness, byte ordinal) {
+		if (thickness <= 0) {
+			return;
+		}
+
+		// the top and bottom bands span the full width
+		int top = Math.min(endY, y + thickness);
+		int bottom = Math.max(top, endY - thickness);
+		int left = Math.min(endX, x + thickness);
+		int right = Math.max(left, endX - thickness);
+		record(x, y, endX, top);
+		record(x, bottom, endX, endY);
+		record(x, top, left, bottom);
+		record(right, top, endX, bottom);
+
+		for (int i = y; i < top; i++) {
+			fillRow(x, i, endX, ordinal);
+		}
+		for (int i = bottom; i < endY; i++) {
+			fillRow(x, i, endX, ordinal);
+		}
+
+		// the sides fill the rows between them
+		for (int i = top; i < bottom; i++) {
+			fillRow(x, i, left, ordinal);
+			fillRow(right, i, endX, ordinal);
+		}
+		commit();
+
+		tilesChanged(x, y, endX, top);
+		tilesChanged(x, bottom, endX, endY);
+		tilesChanged(x, top, left, bottom);
+		tilesChanged(right, top, endX, bottom);
+	}
+
+	/**
+	 * Tells the journal, if there is one, of a rectangle about to be written
+	 * 
+	 * @param x the first column
+	 * @param y the first row
+	 * @param endX the column after the last
+	 * @param endY the row after the last
+	 */
+	private void record(int x, int y, int endX, int endY) {
+		if (journal != null) {
+			journal.record(tiledMap, x, y, endX, endY);
+		}
+	}
+
+	/**
+	 * Tells the journal, if there is one, that an edit is complete
+	 */
+	private void commit() {
+		if (journal != null) {
+			journal.commit();
+		}
+	}
+
+	/**
+	 * Sets the cells [x, endX) of a row to one tile type, keeping
+	 * the tile counts up to date
+	 * 
+	 * @param x the first column
+	 * @param row the row
+	 * @param endX the column after the last
+	 * @param ordinal the tile type's ordinal
+	 */
+	private void fillRow(int x, int row, int endX, byte ordinal) {
+		byte[] cells = tiledMap.rowArray(row);
+		int offset = tiledMap.rowOffset(row);
+		for (int j = offset + x; j < offset + endX; j++) {
+			tileCounts[cells[j]]--;
 		}
+		tileCounts[ordinal] += endX - x;
+		tiledMap.fill(x, row, endX, ordinal);
 	}
 	
 	/**
@@ -0,0 +1,94 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ *
+ * A VisibilityMap holds the tiles a viewer can see, as computed by
+ * FieldOfView. It covers the square of tiles within a radius of the
+ * viewer, one bit per tile, and is meant to be reused from one query to
+ * the next so that queries allocate nothing.
+ *
+ * Co-ordinates are the same as getTerrain's.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public final class VisibilityMap {
+
+	private final int radius;
+	private final int side;
+	private final int words;
+	private final long[] bits;
+
+	// the map position of the square's top left tile
+	private int originX;
+	private int originY;
+
+	/**
+	 * @param radius the largest view radius the map will hold
+	 */
+	public VisibilityMap(int radius) {
+		if (radius < 0) {
+			throw new IllegalArgumentException("Invalid radius: " + radius);
+		}
+		this.radius = radius;
+		this.side = 2 * radius + 1;
+		this.words = (side + 63) >> 6;
+		this.bits = new long[side * words];
+	}
+
+	/**
+	 * @return the largest view radius the map will hold
+	 */
+	public int getRadius() {
+		return radius;
+	}
+
+	/**
+	 * Checks if a tile was seen
+	 *
+	 * @param x the tile's x position
+	 * @param y the tile's y position
+	 * @return True if the tile was seen by the last query
+	 */
+	public boolean isVisible(int x, int y) {
+		int i = x - originX;
+		int j = y - originY;
+		if (i < 0 || j < 0 || i >= side || j >= side) {
+			return false;
+		}
+		return (bits[j * words + (i >> 6)] & 1L << i) != 0;
+	}
+
+	/**
+	 * @return the number of tiles seen by the last query
+	 */
+	public int getCount() {
+		int count = 0;
+		for (long word : bits) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Clears the map for a viewer at (x, y)
+	 */
+	void reset(int x, int y) {
+		Arrays.fill(bits, 0);
+		originX = x - radius;
+		originY = y - radius;
+	}
+
+	/**
+	 * Marks a tile as seen. The tile must lie within the radius.
+	 */
+	void set(int x, int y) {
+		int i = x - originX;
+		int j = y - originY;
+		bits[j * words + (i >> 6)] |= 1L << i;
+	}
+}
@@ -0,0 +1,86 @@
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import view.ConsoleRenderer;
+
+/**
+ *
+ * Tests that text maps load back the tiles the console renderer drew, and
+ * that malformed text is rejected
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class AsciiMapTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void loadsWhatTheConsoleRendererDrew() throws IOException {
+		int width = 1031;
+		int height = 777;
+		TiledMap map = new TiledMap(width, height, Tile.Grass);
+		map.setTerrainRandomly(0, 0, width, height / 2, 7L);
+		map.setTerrain(100, 500, 700, 200, Tile.Water);
+
+		ByteArrayOutputStream text = new ByteArrayOutputStream();
+		new ConsoleRenderer(new PrintStream(text), false).render(map);
+		TiledMap loaded = AsciiMap.load(write(text.toByteArray()), Tile.Grass);
+
+		assertEquals(width, loaded.getWidth());
+		assertEquals(height, loaded.getHeight());
+		byte[] expected = new byte[width];
+		byte[] actual = new byte[width];
+		for (int y = 0; y < height; y++) {
+			map.getTerrainRow(y, expected);
+			loaded.getTerrainRow(y, actual);
+			assertArrayEquals(expected, actual);
+		}
+		for (Tile tileType : Tile.values()) {
+			assertEquals(map.getTileCount(tileType), loaded.getTileCount(tileType));
+		}
+	}
+
+	@Test
+	public void acceptsWindowsLineEnds() throws IOException {
+		TiledMap map = AsciiMap.load(write(".HT\r\n.x.\r\nwwf".getBytes("US-ASCII")), Tile.Rock);
+		assertEquals(3, map.getWidth());
+		assertEquals(3, map.getHeight());
+		assertEquals(Tile.Hedge, map.getTerrain(1, 0));
+		assertEquals(Tile.Rock, map.getTerrain(1, 1));
+		assertEquals(Tile.Fence, map.getTerrain(2, 2));
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsLinesOfDifferentLengths() throws IOException {
+		AsciiMap.load(write(".HT\n.x\nwwf\n".getBytes("US-ASCII")), Tile.Rock);
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsUnknownTiles() throws IOException {
+		AsciiMap.load(write(".HT\n.x.\nwQf\n".getBytes("US-ASCII")), Tile.Rock);
+	}
+
+	private File write(byte[] bytes) throws IOException {
+		File file = folder.newFile();
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(bytes);
+		}
+		return file;
+	}
+}
@@ -0,0 +1,128 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that an automaton's generations match applying its rule to a
+ * plain array of tiles, and that only the tiles that changed are written
+ * back to the map
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class CellularAutomatonTest {
+
+	private static final CellRule MIXING = (ordinal, neighbours) ->
+			(ordinal * 3 + neighbours[1] + 2 * neighbours[3] + 5 * neighbours[6]) % 7;
+
+	@Test
+	public void matchesApplyingTheRuleTileByTile() {
+		int[][] sizes = { { 1, 1 }, { 1, 70 }, { 3, 200 }, { 257, 130 }, { 100, 100 } };
+		for (int[] size : sizes) {
+			int width = size[0];
+			int height = size[1];
+			boolean rockEdge = width == 100;
+			TiledMap map = new TiledMap(width, height, Tile.Grass);
+			map.setTerrainRandomly(0, 0, width, height, width * 31 + height);
+			int[][] expected = ordinals(map);
+
+			CellularAutomaton automaton = new CellularAutomaton(map, MIXING);
+			if (rockEdge) {
+				assertTrue(automaton.setEdge(Tile.Rock));
+			}
+			int edge = rockEdge ? Tile.Rock.ordinal() : Tile.values().length;
+			for (int g = 0; g < 3; g++) {
+				expected = advance(expected, MIXING, edge);
+			}
+			assertTrue(automaton.step(2));
+			assertTrue(automaton.step());
+
+			int[][] actual = ordinals(map);
+			long[] counts = new long[Tile.values().length];
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					assertEquals(expected[y][x], actual[y][x]);
+					counts[expected[y][x]]++;
+				}
+			}
+			for (Tile tileType : Tile.values()) {
+				assertEquals(counts[tileType.ordinal()], map.getTileCount(tileType));
+			}
+		}
+	}
+
+	@Test
+	public void writesBackOnlyTheChangedTiles() {
+		TiledMap map = new TiledMap(300, 300, Tile.Grass);
+		map.setTerrain(150, 150, 1, 1, Tile.Tree);
+		final List<int[]> written = new ArrayList<>();
+		map.addMapListener((changed, x, y, width, height) -> written.add(new int[] { width, height }));
+
+		new CellularAutomaton(map, CellularAutomaton.spreading(Tile.Tree, Tile.Grass, 1)).step(2);
+		assertEquals(25, map.getTileCount(Tile.Tree));
+		long tiles = 0;
+		for (int[] rectangle : written) {
+			tiles += (long) rectangle[0] * rectangle[1];
+		}
+		assertTrue(tiles < 300 * 300 / 10);
+	}
+
+	@Test
+	public void rejectsAnOrdinalOutsideTheFamily() {
+		TiledMap map = new TiledMap(50, 50, Tile.Grass);
+		assertFalse(new CellularAutomaton(map, (ordinal, neighbours) -> 9).step());
+		assertEquals(2500, map.getTileCount(Tile.Grass));
+	}
+
+	@Test
+	public void rejectsAnEdgeOfAnotherFamily() {
+		TiledMap map = new TiledMap(10, 10, Tile.Grass);
+		CellularAutomaton automaton = new CellularAutomaton(map, CellularAutomaton.smoothing(Tile.Rock, Tile.Grass));
+		assertFalse(automaton.setEdge(IndoorTile.Desk));
+		assertTrue(automaton.setEdge(null));
+	}
+
+	private static int[][] ordinals(Mappable map) {
+		int[][] ordinals = new int[map.getHeight()][map.getWidth()];
+		for (int y = 0; y < map.getHeight(); y++) {
+			for (int x = 0; x < map.getWidth(); x++) {
+				ordinals[y][x] = map.getTerrain(x, y).ordinal();
+			}
+		}
+		return ordinals;
+	}
+
+	private static int[][] advance(int[][] tiles, CellRule rule, int edge) {
+		int height = tiles.length;
+		int width = tiles[0].length;
+		int[][] next = new int[height][width];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int[] neighbours = new int[Tile.values().length + 1];
+				for (int dy = -1; dy <= 1; dy++) {
+					for (int dx = -1; dx <= 1; dx++) {
+						if (dx == 0 && dy == 0) {
+							continue;
+						}
+						int i = x + dx;
+						int j = y + dy;
+						boolean outside = i < 0 || j < 0 || i >= width || j >= height;
+						neighbours[outside ? edge : tiles[j][i]]++;
+					}
+				}
+				next[y][x] = rule.next(tiles[y][x], neighbours);
+			}
+		}
+		return next;
+	}
+}
@@ -0,0 +1,94 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that a ChunkedTiledMap holds the same tiles as a TiledMap given
+ * the same edits, and that very large maps only allocate the chunks written
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class ChunkedTiledMapTest {
+
+	@Test
+	public void matchesTiledMap() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < 100; trial++) {
+			int width = 1 + random.nextInt(200);
+			int height = 1 + random.nextInt(200);
+			TiledMap expected = new TiledMap(width, height, Tile.Grass);
+			ChunkedTiledMap map = new ChunkedTiledMap(width, height, Tile.Grass);
+
+			for (int k = 0; k < 20; k++) {
+				int x = random.nextInt(width);
+				int y = random.nextInt(height);
+				int w = random.nextInt(width - x + 1);
+				int h = random.nextInt(height - y + 1);
+				Tile tileType = Tile.values()[random.nextInt(Tile.values().length)];
+				if (random.nextInt(3) == 0) {
+					int borderWidth = random.nextInt(width / 2 + 2);
+					assertEquals(expected.setBorder(tileType, borderWidth), map.setBorder(tileType, borderWidth));
+				} else {
+					assertTrue(expected.setTerrain(x, y, w, h, tileType));
+					assertTrue(map.setTerrain(x, y, w, h, tileType));
+				}
+			}
+
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					assertEquals(expected.getTerrain(x, y), map.getTerrain(x, y));
+				}
+			}
+			for (Tile tileType : Tile.values()) {
+				assertEquals(expected.getTileCount(tileType), map.getTileCount(tileType));
+			}
+			assertEquals(expected.getPassableArea(), map.getPassableArea(), 1e-9);
+		}
+	}
+
+	@Test
+	public void holdsMapsTooLargeForAnArray() {
+		ChunkedTiledMap map = new ChunkedTiledMap(1000000, 1000000, Tile.Grass);
+		assertTrue(map.setTerrain(500000, 500000, 1000, 1000, Tile.Rock));
+		assertEquals(1000000L, map.getTileCount(Tile.Rock));
+		assertEquals(Tile.Rock, map.getTerrain(500000, 1000000 - 1 - 500000));
+		assertEquals(Tile.Grass, map.getTerrain(0, 0));
+	}
+
+	@Test
+	public void collapsesChunksThatBecomeOneType() {
+		// the chunk at (64, 64) lies partly outside the map
+		ChunkedTiledMap map = new ChunkedTiledMap(100, 100, Tile.Grass);
+		for (int chunk : new int[] { 0, 64 }) {
+			int size = chunk == 0 ? 64 : 36;
+			assertTrue(map.setTerrain(chunk, chunk, size / 2, size, Tile.Rock));
+			assertEquals(1, map.getDenseChunkCount());
+			assertTrue(map.setTerrain(chunk + size / 2, chunk, size - size / 2, size, Tile.Rock));
+			assertEquals(0, map.getDenseChunkCount());
+		}
+
+		assertTrue(map.setTerrainRandomly(0, 0, 64, 64, 3L));
+		assertEquals(1, map.getDenseChunkCount());
+		for (int y = 0; y < 64; y++) {
+			assertTrue(map.setTerrain(0, y, 64, 1, Tile.Water));
+		}
+		assertEquals(0, map.getDenseChunkCount());
+		assertEquals(64 * 64, map.getTileCount(Tile.Water));
+		assertEquals(Tile.Water, map.getTerrain(63, 99));
+		assertEquals(Tile.Rock, map.getTerrain(99, 0));
+	}
+
+	@Test(expected = ArrayIndexOutOfBoundsException.class)
+	public void rejectsReadsOutsideTheMap() {
+		new ChunkedTiledMap(10, 10, Tile.Grass).getTerrain(10, 0);
+	}
+}
@@ -0,0 +1,102 @@
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that a ConcurrentTiledMap matches a TiledMap given the same edits,
+ * and keeps its counts consistent with its tiles under concurrent writers
+ * and readers
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class ConcurrentTiledMapTest {
+
+	private static final int WIDTH = 700;
+	private static final int HEIGHT = 500;
+
+	@Test
+	public void matchesTiledMap() {
+		ConcurrentTiledMap map = new ConcurrentTiledMap(WIDTH, HEIGHT, Tile.Grass);
+		TiledMap expected = new TiledMap(WIDTH, HEIGHT, Tile.Grass);
+		map.setTerrainRandomly(3, 4, 600, 400, 99L);
+		expected.setTerrainRandomly(3, 4, 600, 400, 99L);
+		map.setBorder(Tile.Fence, 3);
+		expected.setBorder(Tile.Fence, 3);
+
+		byte[] expectedRow = new byte[WIDTH];
+		byte[] row = new byte[WIDTH];
+		for (int y = 0; y < HEIGHT; y++) {
+			expected.getTerrainRow(y, expectedRow);
+			map.getTerrainRow(y, row);
+			assertArrayEquals(expectedRow, row);
+		}
+		for (Tile tileType : Tile.values()) {
+			assertEquals(expected.getTileCount(tileType), map.getTileCount(tileType));
+		}
+		assertEquals(expected.getPassableCount(10, 20, 300, 200), map.getPassableCount(10, 20, 300, 200));
+	}
+
+	@Test
+	public void keepsCountsConsistentUnderConcurrentEdits() throws Exception {
+		final ConcurrentTiledMap map = new ConcurrentTiledMap(WIDTH, HEIGHT, Tile.Grass);
+		ExecutorService executor = Executors.newFixedThreadPool(6);
+		List<Future<?>> tasks = new ArrayList<>();
+		for (int w = 0; w < 4; w++) {
+			final Random random = new Random(w);
+			tasks.add(executor.submit(() -> {
+				for (int k = 0; k < 2000; k++) {
+					int x = random.nextInt(WIDTH - 50);
+					int y = random.nextInt(HEIGHT - 50);
+					map.setTerrain(x, y, random.nextInt(50), random.nextInt(50),
+							Tile.values()[random.nextInt(Tile.values().length)]);
+					if (k % 100 == 0) {
+						map.setTerrainRandomly(x, y, 40, 40, k);
+					}
+				}
+			}));
+		}
+		for (int r = 0; r < 2; r++) {
+			tasks.add(executor.submit(() -> {
+				byte[] row = new byte[WIDTH];
+				for (int k = 0; k < 10000; k++) {
+					map.getTerrainRow(k % HEIGHT, row);
+					map.getTerrain(k % WIDTH, k % HEIGHT);
+					map.getPassableCount(0, 0, WIDTH / 2, HEIGHT / 2);
+				}
+			}));
+		}
+		try {
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		long[] counts = new long[Tile.values().length];
+		byte[] row = new byte[WIDTH];
+		for (int y = 0; y < HEIGHT; y++) {
+			map.getTerrainRow(y, row);
+			for (byte ordinal : row) {
+				counts[ordinal]++;
+			}
+		}
+		for (Tile tileType : Tile.values()) {
+			assertEquals(counts[tileType.ordinal()], map.getTileCount(tileType));
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that undoing every edit restores the map as it was, that redoing
+ * them restores the edited map, and that the journal keeps to its limits
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class EditJournalTest {
+
+	@Test
+	public void undoAndRedoRoundTrip() {
+		Random random = new Random(1);
+		int[][] sizes = { { 1, 5 }, { 13, 150 }, { 200, 150 } };
+		for (int[] size : sizes) {
+			int width = size[0];
+			int height = size[1];
+			TiledMap map = new TiledMap(width, height, Tile.Grass);
+			map.setTerrainRandomly(0, 0, width, height, 3L);
+			EditJournal journal = new EditJournal(map, 1000, 1L << 40);
+
+			List<byte[][]> states = new ArrayList<>();
+			states.add(rows(map));
+			for (int k = 0; k < 60; k++) {
+				int x = random.nextInt(width);
+				int y = random.nextInt(height);
+				int w = random.nextInt(width - x + 1);
+				int h = random.nextInt(height - y + 1);
+				Tile tileType = Tile.values()[random.nextInt(Tile.values().length)];
+				switch (random.nextInt(5)) {
+				case 0:
+					map.setTerrain(x, y, w, h, tileType);
+					break;
+				case 1:
+					map.setTerrainRandomly(x, y, w, h, k);
+					break;
+				case 2:
+					map.setFrame(x, y, w, h, random.nextInt(4), tileType);
+					break;
+				case 3:
+					map.floodFill(x, y, tileType);
+					break;
+				default:
+					MapBatch batch = map.beginBatch();
+					batch.setTerrain(x, y, w, h, tileType);
+					batch.setTerrain(0, 0, (width + 1) / 2, (height + 1) / 2, Tile.Rock);
+					batch.commit();
+				}
+				states.add(rows(map));
+			}
+
+			int edits = journal.getUndoCount();
+			for (int k = 0; k < edits; k++) {
+				assertTrue(journal.undo());
+			}
+			assertFalse(journal.canUndo());
+			assertState(map, states.get(0));
+			assertEquals(edits, journal.getRedoCount());
+
+			for (int k = 0; k < edits; k++) {
+				assertTrue(journal.redo());
+			}
+			assertFalse(journal.canRedo());
+			assertState(map, states.get(states.size() - 1));
+
+			journal.undo();
+			map.setTerrain(0, 0, 1, 1, Tile.Water);
+			assertFalse(journal.canRedo());
+		}
+	}
+
+	@Test
+	public void journalsOnlyTheTilesABatchWrites() {
+		TiledMap map = new TiledMap(4000, 4000, Tile.Grass);
+		EditJournal journal = new EditJournal(map, 10, 1L << 40);
+		MapBatch batch = map.beginBatch();
+		batch.setTerrain(0, 0, 1, 1, Tile.Rock);
+		batch.setTerrain(3999, 3999, 1, 1, Tile.Rock);
+		assertTrue(batch.commit());
+
+		assertTrue(journal.getBytes() < 4000);
+		assertTrue(journal.undo());
+		assertEquals(0, map.getTileCount(Tile.Rock));
+		assertTrue(journal.redo());
+		assertEquals(2, map.getTileCount(Tile.Rock));
+	}
+
+	@Test
+	public void dropsTheOldestEditsPastItsLimits() {
+		TiledMap map = new TiledMap(100, 100, Tile.Grass);
+		EditJournal journal = new EditJournal(map, 5, 1L << 30);
+		for (int k = 0; k < 10; k++) {
+			map.setTerrain(k, k, 3, 3, Tile.Rock);
+		}
+		assertEquals(5, journal.getUndoCount());
+
+		journal = new EditJournal(map, 100, 2000);
+		for (int k = 0; k < 50; k++) {
+			map.setTerrainRandomly(0, 0, 100, 100, k);
+		}
+		assertTrue(journal.getBytes() <= 2000);
+	}
+
+	private static void assertState(TiledMap map, byte[][] rows) {
+		assertArrayEquals(rows, rows(map));
+		long[] counts = new long[Tile.values().length];
+		for (byte[] row : rows) {
+			for (byte ordinal : row) {
+				counts[ordinal]++;
+			}
+		}
+		for (Tile tileType : Tile.values()) {
+			assertEquals(counts[tileType.ordinal()], map.getTileCount(tileType));
+		}
+	}
+
+	private static byte[][] rows(Mappable map) {
+		byte[][] rows = new byte[map.getHeight()][map.getWidth()];
+		for (int y = 0; y < map.getHeight(); y++) {
+			map.getTerrainRow(y, rows[y]);
+		}
+		return rows;
+	}
+}
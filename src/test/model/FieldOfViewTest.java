@@ -0,0 +1,118 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests fields of view and lines of sight on open ground, inside a walled
+ * room, and after the map is edited
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class FieldOfViewTest {
+
+	@Test
+	public void seesTheWholeCircleOnOpenGround() {
+		TiledMap map = new TiledMap(60, 40, Tile.Grass);
+		FieldOfView view = new FieldOfView(map);
+		VisibilityMap visible = new VisibilityMap(10);
+
+		assertTrue(view.computeView(30, 20, 10, visible));
+		assertEquals(circle(10, false), visible.getCount());
+		assertTrue(view.computeView(0, 0, 10, visible));
+		assertEquals(circle(10, true), visible.getCount());
+	}
+
+	@Test
+	public void wallsBlockTheView() {
+		TiledMap map = new TiledMap(60, 40, Tile.Grass);
+		FieldOfView view = new FieldOfView(map);
+		map.addMapListener(view);
+		VisibilityMap visible = new VisibilityMap(10);
+
+		// the room's walls are at x 20 and 40, and y 9 and 29 as getTerrain counts
+		map.setOutline(20, 10, 21, 21, Tile.Hedge);
+		view.computeView(30, 19, 10, visible);
+		for (int y = 0; y < 40; y++) {
+			for (int x = 0; x < 60; x++) {
+				if (visible.isVisible(x, y)) {
+					assertTrue(x >= 20 && x <= 40 && y >= 9 && y <= 29);
+				}
+			}
+		}
+		assertTrue(view.hasLineOfSight(25, 15, 35, 25));
+		assertFalse(view.hasLineOfSight(25, 15, 50, 15));
+		assertTrue(view.hasLineOfSight(25, 15, 25, 15));
+		assertTrue(view.hasLineOfSight(30, 19, 20, 19));
+
+		map.setOutline(20, 10, 21, 21, Tile.Grass);
+		view.computeView(30, 20, 10, visible);
+		assertEquals(circle(10, false), visible.getCount());
+		assertTrue(view.hasLineOfSight(25, 15, 50, 15));
+	}
+
+	@Test
+	public void batchesMatchSingleQueries() {
+		Random random = new Random(3);
+		TiledMap map = new TiledMap(120, 120, Tile.Grass);
+		for (int k = 0; k < 1500; k++) {
+			map.setTerrain(random.nextInt(120), random.nextInt(120), 1, 1, Tile.Tree);
+		}
+		FieldOfView view = new FieldOfView(map);
+
+		int viewers = 50;
+		int[] positions = new int[2 * viewers];
+		VisibilityMap[] visible = new VisibilityMap[viewers];
+		for (int k = 0; k < viewers; k++) {
+			positions[2 * k] = random.nextInt(120);
+			positions[2 * k + 1] = random.nextInt(120);
+			visible[k] = new VisibilityMap(12);
+		}
+		assertTrue(view.computeViews(positions, 12, visible));
+		VisibilityMap single = new VisibilityMap(12);
+		for (int k = 0; k < viewers; k++) {
+			view.computeView(positions[2 * k], positions[2 * k + 1], 12, single);
+			for (int y = 0; y < 120; y++) {
+				for (int x = 0; x < 120; x++) {
+					assertEquals(single.isVisible(x, y), visible[k].isVisible(x, y));
+				}
+			}
+		}
+
+		int[] lines = new int[4 * viewers];
+		for (int k = 0; k < lines.length; k++) {
+			lines[k] = random.nextInt(120);
+		}
+		boolean[] results = new boolean[viewers];
+		view.hasLinesOfSight(lines, results);
+		for (int k = 0; k < viewers; k++) {
+			int j = 4 * k;
+			assertEquals(view.hasLineOfSight(lines[j], lines[j + 1], lines[j + 2], lines[j + 3]), results[k]);
+		}
+	}
+
+	/**
+	 * @return the number of tiles within a radius, counting only one
+	 *         quarter of the circle for a viewer in a corner
+	 */
+	private static int circle(int radius, boolean corner) {
+		int count = 0;
+		for (int dy = corner ? 0 : -radius; dy <= radius; dy++) {
+			for (int dx = corner ? 0 : -radius; dx <= radius; dx++) {
+				if (dx * dx + dy * dy <= radius * (radius + 1)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,115 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests borders, frames and flood fills against filling a plain array of
+ * tiles cell by cell
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class FloodFillTest {
+
+	@Test
+	public void matchesFillingCellByCell() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < 200; trial++) {
+			int width = 1 + random.nextInt(80);
+			int height = 1 + random.nextInt(80);
+			TiledMap map = new TiledMap(width, height, Tile.Grass);
+			map.setTerrainRandomly(0, 0, width, height, trial);
+
+			// expected[row][x], with rows counted as setTerrain counts them
+			Tileable[][] expected = new Tileable[height][width];
+			for (int row = 0; row < height; row++) {
+				for (int x = 0; x < width; x++) {
+					expected[row][x] = map.getTerrain(x, height - 1 - row);
+				}
+			}
+
+			int borderWidth = random.nextInt(width / 2 + 1);
+			Tile border = Tile.values()[random.nextInt(Tile.values().length)];
+			map.setBorder(border, borderWidth);
+			frame(expected, 0, 0, width, height, borderWidth, border);
+
+			int x = random.nextInt(width);
+			int y = random.nextInt(height);
+			Tile fill = Tile.values()[random.nextInt(Tile.values().length)];
+			map.floodFill(x, y, fill);
+			flood(expected, x, y, fill);
+
+			int frameX = random.nextInt(width);
+			int frameY = random.nextInt(height);
+			int frameWidth = random.nextInt(width - frameX + 1);
+			int frameHeight = random.nextInt(height - frameY + 1);
+			int thickness = random.nextInt(5);
+			map.setFrame(frameX, frameY, frameWidth, frameHeight, thickness, Tile.Tree);
+			frame(expected, frameX, frameY, frameWidth, frameHeight, thickness, Tile.Tree);
+
+			long[] counts = new long[Tile.values().length];
+			for (int row = 0; row < height; row++) {
+				for (int i = 0; i < width; i++) {
+					assertEquals(expected[row][i], map.getTerrain(i, height - 1 - row));
+					counts[expected[row][i].ordinal()]++;
+				}
+			}
+			for (Tile tileType : Tile.values()) {
+				assertEquals(counts[tileType.ordinal()], map.getTileCount(tileType));
+			}
+		}
+	}
+
+	@Test
+	public void fillsALargeOpenMap() {
+		TiledMap map = new TiledMap(2000, 2000, Tile.Grass);
+		map.setOutline(100, 100, 500, 500, Tile.Hedge);
+		map.floodFill(0, 0, Tile.Water);
+		assertEquals(2000L * 2000 - 500 * 500, map.getTileCount(Tile.Water));
+		assertEquals(498L * 498, map.getTileCount(Tile.Grass));
+	}
+
+	private static void frame(Tileable[][] tiles, int x, int y, int width, int height, int thickness,
+			Tileable tileType) {
+		for (int j = y; j < y + height; j++) {
+			for (int i = x; i < x + width; i++) {
+				if (j < y + thickness || i < x + thickness || j >= y + height - thickness
+						|| i >= x + width - thickness) {
+					tiles[j][i] = tileType;
+				}
+			}
+		}
+	}
+
+	private static void flood(Tileable[][] tiles, int x, int y, Tileable tileType) {
+		Tileable target = tiles[y][x];
+		if (target == tileType) {
+			return;
+		}
+		int height = tiles.length;
+		int width = tiles[0].length;
+		ArrayDeque<int[]> queue = new ArrayDeque<>();
+		tiles[y][x] = tileType;
+		queue.add(new int[] { x, y });
+		int[][] steps = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+		while (!queue.isEmpty()) {
+			int[] cell = queue.poll();
+			for (int[] step : steps) {
+				int i = cell[0] + step[0];
+				int j = cell[1] + step[1];
+				if (i >= 0 && j >= 0 && i < width && j < height && tiles[j][i] == target) {
+					tiles[j][i] = tileType;
+					queue.add(new int[] { i, j });
+				}
+			}
+		}
+	}
+}
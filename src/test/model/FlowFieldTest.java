@@ -0,0 +1,134 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that a flow field repaired after each edit holds the same
+ * distances as a breadth first search over the edited map, and that
+ * every direction steps one tile nearer a goal
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class FlowFieldTest {
+
+	@Test
+	public void repairsMatchRebuilding() {
+		Random random = new Random(9);
+		int[][] sizes = { { 1, 1 }, { 1, 50 }, { 40, 1 }, { 30, 20 }, { 120, 90 } };
+		for (int[] size : sizes) {
+			int width = size[0];
+			int height = size[1];
+			for (int mode = 0; mode < 2; mode++) {
+				TiledMap map = new TiledMap(width, height, IndoorTile.Floor);
+				for (int k = 0; k < width * height / 6; k++) {
+					map.setTerrain(random.nextInt(width), random.nextInt(height), 1, 1,
+							k % 9 == 0 ? IndoorTile.Door : IndoorTile.Desk);
+				}
+
+				// goals are either every door, or a few fixed tiles
+				boolean[] goals = null;
+				FlowField field;
+				if (mode == 0) {
+					field = new FlowField(map, IndoorTile.Door);
+				} else {
+					goals = new boolean[width * height];
+					int[] positions = new int[6];
+					for (int k = 0; k < positions.length; k += 2) {
+						positions[k] = random.nextInt(width);
+						positions[k + 1] = random.nextInt(height);
+						goals[positions[k + 1] * width + positions[k]] = true;
+					}
+					field = new FlowField(map, positions);
+				}
+				map.addMapListener(field);
+				assertField(map, field, goals);
+
+				for (int k = 0; k < 100; k++) {
+					int x = random.nextInt(width);
+					int y = random.nextInt(height);
+					int w = 1 + random.nextInt(Math.min(4, width - x));
+					int h = 1 + random.nextInt(Math.min(4, height - y));
+					IndoorTile tileType = k % 5 == 0 ? IndoorTile.Door : k % 2 == 0 ? IndoorTile.Desk : IndoorTile.Floor;
+					map.setTerrain(x, y, w, h, tileType);
+					assertField(map, field, goals);
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsMapsTooLargeToIndex() {
+		new FlowField(new ChunkedTiledMap(100000, 100000, IndoorTile.Floor), IndoorTile.Door);
+	}
+
+	private static void assertField(Mappable map, FlowField field, boolean[] goals) {
+		int width = map.getWidth();
+		int[] expected = distances(map, goals);
+		for (int y = 0; y < map.getHeight(); y++) {
+			for (int x = 0; x < width; x++) {
+				int distance = expected[y * width + x];
+				assertEquals(distance, field.getDistance(x, y));
+				byte direction = field.getDirection(x, y);
+				if (distance <= 0) {
+					assertEquals(FlowField.NONE, direction);
+				} else {
+					int nextX = x + FlowField.stepX(direction);
+					int nextY = y + FlowField.stepY(direction);
+					assertTrue(direction != FlowField.NONE);
+					assertEquals(distance - 1, expected[nextY * width + nextX]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return each tile's distance from the nearest goal by a breadth first
+	 *         search, or -1 if it cannot reach one
+	 */
+	private static int[] distances(Mappable map, boolean[] goals) {
+		int width = map.getWidth();
+		int height = map.getHeight();
+		int[] distance = new int[width * height];
+		Arrays.fill(distance, -1);
+		ArrayDeque<Integer> queue = new ArrayDeque<>();
+		for (int k = 0; k < distance.length; k++) {
+			if (isGoal(map, goals, k)) {
+				distance[k] = 0;
+				queue.add(k);
+			}
+		}
+		while (!queue.isEmpty()) {
+			int tile = queue.poll();
+			int x = tile % width;
+			int y = tile / width;
+			int[][] neighbours = { { x, y - 1 }, { x + 1, y }, { x, y + 1 }, { x - 1, y } };
+			for (int[] n : neighbours) {
+				if (n[0] < 0 || n[1] < 0 || n[0] >= width || n[1] >= height) {
+					continue;
+				}
+				int next = n[1] * width + n[0];
+				if (distance[next] == -1 && !isGoal(map, goals, next) && map.isPassable(n[0], n[1])) {
+					distance[next] = distance[tile] + 1;
+					queue.add(next);
+				}
+			}
+		}
+		return distance;
+	}
+
+	private static boolean isGoal(Mappable map, boolean[] goals, int tile) {
+		int width = map.getWidth();
+		return goals != null ? goals[tile] : map.getTerrain(tile % width, tile / width) == IndoorTile.Door;
+	}
+}
@@ -0,0 +1,65 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that committing a batch of rectangle writes gives the same map as
+ * making the writes one at a time
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class MapBatchTest {
+
+	@Test
+	public void matchesWritesMadeInTurn() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < 100; trial++) {
+			int width = 1 + random.nextInt(150);
+			int height = 1 + random.nextInt(150);
+			TiledMap map = new TiledMap(width, height, Tile.Grass);
+			TiledMap expected = new TiledMap(width, height, Tile.Grass);
+
+			MapBatch batch = map.beginBatch();
+			int writes = random.nextInt(200);
+			for (int k = 0; k < writes; k++) {
+				int x = random.nextInt(width);
+				int y = random.nextInt(height);
+				int w = random.nextInt(width - x + 1);
+				int h = random.nextInt(height - y + 1);
+				Tile tileType = Tile.values()[random.nextInt(Tile.values().length)];
+				batch.setTerrain(x, y, w, h, tileType);
+				expected.setTerrain(x, y, w, h, tileType);
+			}
+			assertTrue(batch.commit());
+
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					assertEquals(expected.getTerrain(x, y), map.getTerrain(x, y));
+				}
+			}
+			for (Tile tileType : Tile.values()) {
+				assertEquals(expected.getTileCount(tileType), map.getTileCount(tileType));
+			}
+		}
+	}
+
+	@Test
+	public void rejectsABatchWithAWriteOutsideTheMap() {
+		TiledMap map = new TiledMap(10, 10, Tile.Grass);
+		MapBatch batch = map.beginBatch();
+		batch.setTerrain(0, 0, 2, 2, Tile.Rock);
+		batch.setTerrain(5, 5, 10, 1, Tile.Rock);
+		assertFalse(batch.commit());
+		assertEquals(0, map.getTileCount(Tile.Rock));
+	}
+}
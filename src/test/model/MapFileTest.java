@@ -0,0 +1,164 @@
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * Tests that maps saved to a map file, raw or run length encoded, read
+ * back the same whether loaded into memory or opened as a mapped map
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class MapFileTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void roundTripsAMap() throws IOException {
+		int width = 1031;
+		int height = 777;
+		TiledMap map = new TiledMap(width, height, Tile.Grass);
+		map.setTerrainRandomly(0, 0, width, height / 2, 7L);
+		map.setTerrain(100, 500, 700, 200, Tile.Water);
+		map.setTerrain(0, 0, width, 3, Tile.Fence);
+
+		for (boolean runLength : new boolean[] { false, true }) {
+			File file = folder.newFile();
+			MapFile.save(map, file, runLength);
+			MappedMap mapped = MapFile.open(file);
+			TiledMap loaded = MapFile.load(file);
+
+			byte[] expected = new byte[width];
+			byte[] actual = new byte[width];
+			for (int y = 0; y < height; y++) {
+				map.getTerrainRow(y, expected);
+				mapped.getTerrainRow(y, actual);
+				assertArrayEquals(expected, actual);
+				loaded.getTerrainRow(y, actual);
+				assertArrayEquals(expected, actual);
+			}
+			for (int k = 0; k < 5000; k++) {
+				int x = (k * 37) % width;
+				int y = (k * 91) % height;
+				assertEquals(map.getTerrain(x, y), mapped.getTerrain(x, y));
+			}
+			for (Tile tileType : Tile.values()) {
+				assertEquals(map.getTileCount(tileType), mapped.getTileCount(tileType));
+				assertEquals(map.getTileCount(tileType), loaded.getTileCount(tileType));
+			}
+			assertEquals(map.getTileCount(5, 6, 300, 400, Tile.Water), mapped.getTileCount(5, 6, 300, 400, Tile.Water));
+			assertEquals(map.getPassableCount(5, 6, 300, 400), mapped.getPassableCount(5, 6, 300, 400));
+			assertFalse(mapped.setTerrain(0, 0, 1, 1, Tile.Rock));
+		}
+	}
+
+	@Test
+	public void keepsTheTileTypeFamily() throws IOException {
+		ChunkedTiledMap map = new ChunkedTiledMap(500, 300, IndoorTile.Floor);
+		map.setTerrain(10, 10, 20, 20, IndoorTile.Desk);
+		File file = folder.newFile();
+		MapFile.save(map, file, true);
+
+		TiledMap loaded = MapFile.load(file);
+		assertEquals(IndoorTile.Floor, loaded.getTileTypes()[0]);
+		assertEquals(400, loaded.getTileCount(IndoorTile.Desk));
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsOtherFiles() throws IOException {
+		File file = folder.newFile();
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write("not a map file at all, just some text".getBytes("US-ASCII"));
+		}
+		MapFile.open(file);
+	}
+
+	@Test
+	public void rejectsACorruptRow() throws IOException {
+		TiledMap map = new TiledMap(10, 4, Tile.Grass);
+		map.setTerrain(0, 0, 10, 2, Tile.Water);
+		File file = folder.newFile();
+		MapFile.save(map, file, true);
+
+		// each row is one run, an ordinal then its length; make the first run empty
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(20);
+			long bodyOffset = raf.readLong() + 8L * (4 + 1);
+			raf.seek(bodyOffset + 1);
+			raf.write(0);
+		}
+
+		try {
+			MapFile.open(file).getTerrain(3, 0);
+			fail("a corrupt row was read");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			MapFile.load(file);
+			fail("a corrupt row was loaded");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void rejectsATruncatedRowAfterLoadingTheOthers() {
+		TiledMap map = new TiledMap(6, 40, Tile.Grass);
+		map.setTerrain(0, 0, 6, 40, Tile.Rock);
+		assertFalse(map.load((y, cells, offset) -> y != 39));
+		assertEquals(6 * 40, map.getTileCount(Tile.Grass));
+		assertEquals(0, map.getTileCount(Tile.Rock));
+		assertEquals(Tile.Grass, map.getTerrain(5, 0));
+	}
+
+	@Test
+	public void doesNotInitialiseOtherClasses() throws IOException {
+		File file = folder.newFile();
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+			out.writeInt(MapFile.MAGIC);
+			out.writeInt(MapFile.VERSION);
+			out.writeInt(4);
+			out.writeInt(4);
+			out.writeInt(MapFile.RAW);
+			out.writeLong(64);
+			out.writeUTF(Tripwire.class.getName());
+			out.write(new byte[64]);
+		}
+		try {
+			MapFile.open(file);
+			fail("a class that is not a tile type family was accepted");
+		} catch (IOException e) {
+			// expected
+		}
+		assertFalse(tripped);
+	}
+
+	private static volatile boolean tripped;
+
+	/**
+	 * A class whose static initialiser must never run
+	 */
+	static final class Tripwire {
+		static {
+			tripped = true;
+		}
+	}
+}
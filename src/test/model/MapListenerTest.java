@@ -0,0 +1,134 @@
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that map listeners are told of every tile written, in getTerrain
+ * co-ordinates, and are not told once removed
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class MapListenerTest {
+
+	/**
+	 * Records the rectangles it is told of
+	 */
+	private static final class Recorder implements MapListener {
+		final List<int[]> rectangles = new ArrayList<>();
+
+		@Override
+		public void tilesChanged(Mappable map, int x, int y, int width, int height) {
+			rectangles.add(new int[] { x, y, width, height });
+		}
+	}
+
+	@Test
+	public void reportsRectanglesInGetTerrainCoordinates() {
+		TiledMap map = new TiledMap(10, 8, Tile.Grass);
+		Recorder recorder = new Recorder();
+		map.addMapListener(recorder);
+
+		map.setTerrain(2, 1, 3, 2, Tile.Rock);
+		assertEquals(1, recorder.rectangles.size());
+		assertArrayEquals(new int[] { 2, 5, 3, 2 }, recorder.rectangles.get(0));
+		assertEquals(Tile.Rock, map.getTerrain(2, 5));
+		assertEquals(Tile.Rock, map.getTerrain(4, 6));
+	}
+
+	@Test
+	public void reportsEveryTileWritten() {
+		Random random = new Random(4);
+		for (int trial = 0; trial < 100; trial++) {
+			int width = 1 + random.nextInt(60);
+			int height = 1 + random.nextInt(60);
+			TiledMap map = new TiledMap(width, height, Tile.Grass);
+			map.setTerrainRandomly(0, 0, width, height, trial);
+			Recorder recorder = new Recorder();
+			map.addMapListener(recorder);
+
+			for (int k = 0; k < 10; k++) {
+				Tileable[][] before = tiles(map);
+				recorder.rectangles.clear();
+
+				int x = random.nextInt(width);
+				int y = random.nextInt(height);
+				int w = random.nextInt(width - x + 1);
+				int h = random.nextInt(height - y + 1);
+				Tile tileType = Tile.values()[random.nextInt(Tile.values().length)];
+				switch (random.nextInt(5)) {
+				case 0:
+					map.setTerrain(x, y, w, h, tileType);
+					break;
+				case 1:
+					map.setTerrainRandomly(x, y, w, h, k);
+					break;
+				case 2:
+					map.floodFill(x, y, tileType);
+					break;
+				case 3:
+					map.setFrame(x, y, w, h, random.nextInt(3), tileType);
+					break;
+				default:
+					MapBatch batch = map.beginBatch();
+					batch.setTerrain(x, y, w, h, tileType);
+					batch.setTerrain(0, 0, width / 2, height / 2, Tile.Rock);
+					batch.commit();
+				}
+
+				Tileable[][] after = tiles(map);
+				for (int[] rectangle : recorder.rectangles) {
+					assertTrue(rectangle[0] >= 0 && rectangle[1] >= 0);
+					assertTrue(rectangle[0] + rectangle[2] <= width && rectangle[1] + rectangle[3] <= height);
+				}
+				for (int j = 0; j < height; j++) {
+					for (int i = 0; i < width; i++) {
+						if (before[j][i] != after[j][i]) {
+							assertTrue("change at " + i + "," + j + " reported", covers(recorder.rectangles, i, j));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void removedListenersAreNotTold() {
+		TiledMap map = new TiledMap(10, 10, Tile.Grass);
+		Recorder recorder = new Recorder();
+		map.addMapListener(recorder);
+		map.removeMapListener(recorder);
+		map.setTerrain(0, 0, 5, 5, Tile.Rock);
+		assertTrue(recorder.rectangles.isEmpty());
+	}
+
+	private static Tileable[][] tiles(Mappable map) {
+		Tileable[][] tiles = new Tileable[map.getHeight()][map.getWidth()];
+		for (int y = 0; y < map.getHeight(); y++) {
+			for (int x = 0; x < map.getWidth(); x++) {
+				tiles[y][x] = map.getTerrain(x, y);
+			}
+		}
+		return tiles;
+	}
+
+	private static boolean covers(List<int[]> rectangles, int x, int y) {
+		for (int[] r : rectangles) {
+			if (x >= r[0] && x < r[0] + r[2] && y >= r[1] && y < r[1] + r[3]) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,112 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that a map pyramid's base level holds the majority tile of each
+ * block, and that a listening pyramid stays the same as one built afresh
+ * while the map is edited, from one thread or several
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class MapPyramidTest {
+
+	@Test
+	public void baseLevelHoldsEachBlocksMajority() {
+		TiledMap map = new TiledMap(37, 23, Tile.Grass);
+		map.setTerrainRandomly(0, 0, 37, 23, 11);
+		MapPyramid pyramid = new MapPyramid(map, 2);
+
+		assertEquals(10, pyramid.getWidth(2));
+		assertEquals(6, pyramid.getHeight(2));
+		for (int by = 0; by < pyramid.getHeight(2); by++) {
+			for (int bx = 0; bx < pyramid.getWidth(2); bx++) {
+				int[] counts = new int[Tile.values().length];
+				for (int y = by * 4; y < Math.min(23, by * 4 + 4); y++) {
+					for (int x = bx * 4; x < Math.min(37, bx * 4 + 4); x++) {
+						counts[map.getTerrain(x, y).ordinal()]++;
+					}
+				}
+				int best = 0;
+				for (int t = 1; t < counts.length; t++) {
+					if (counts[t] > counts[best]) {
+						best = t;
+					}
+				}
+				assertEquals(best, pyramid.getOrdinal(2, bx, by));
+			}
+		}
+		assertEquals(1, pyramid.getWidth(pyramid.getTopLevel()));
+		assertEquals(1, pyramid.getHeight(pyramid.getTopLevel()));
+	}
+
+	@Test
+	public void listeningPyramidFollowsEdits() {
+		Random random = new Random(2);
+		for (int trial = 0; trial < 50; trial++) {
+			int width = 1 + random.nextInt(100);
+			int height = 1 + random.nextInt(100);
+			TiledMap map = new TiledMap(width, height, Tile.Grass);
+			map.setTerrainRandomly(0, 0, width, height, trial);
+			MapPyramid pyramid = MapPyramid.listenTo(map);
+
+			for (int k = 0; k < 10; k++) {
+				int x = random.nextInt(width);
+				int y = random.nextInt(height);
+				map.setTerrain(x, y, random.nextInt(width - x + 1), random.nextInt(height - y + 1),
+						Tile.values()[random.nextInt(Tile.values().length)]);
+				if (random.nextInt(4) == 0) {
+					map.floodFill(x, y, Tile.Rock);
+				}
+			}
+			assertSame(new MapPyramid(map), pyramid);
+		}
+	}
+
+	@Test
+	public void listeningPyramidFollowsConcurrentEdits() throws InterruptedException {
+		final ConcurrentTiledMap map = new ConcurrentTiledMap(600, 500, Tile.Grass);
+		map.setTerrainRandomly(0, 0, 600, 500, 5L);
+		Thread[] writers = new Thread[3];
+		for (int t = 0; t < writers.length; t++) {
+			final Random random = new Random(t);
+			writers[t] = new Thread(() -> {
+				for (int k = 0; k < 2000; k++) {
+					int x = random.nextInt(600);
+					int y = random.nextInt(500);
+					map.setTerrain(x, y, 1 + random.nextInt(Math.min(20, 600 - x)),
+							1 + random.nextInt(Math.min(20, 500 - y)),
+							Tile.values()[random.nextInt(Tile.values().length)]);
+				}
+			});
+		}
+		for (Thread writer : writers) {
+			writer.start();
+		}
+		MapPyramid pyramid = MapPyramid.listenTo(map);
+		for (Thread writer : writers) {
+			writer.join();
+		}
+		assertSame(new MapPyramid(map), pyramid);
+	}
+
+	private static void assertSame(MapPyramid expected, MapPyramid actual) {
+		assertEquals(expected.getBaseLevel(), actual.getBaseLevel());
+		assertEquals(expected.getTopLevel(), actual.getTopLevel());
+		for (int level = expected.getBaseLevel(); level <= expected.getTopLevel(); level++) {
+			for (int y = 0; y < expected.getHeight(level); y++) {
+				for (int x = 0; x < expected.getWidth(level); x++) {
+					assertEquals(expected.getOrdinal(level, x, y), actual.getOrdinal(level, x, y));
+				}
+			}
+		}
+	}
+}
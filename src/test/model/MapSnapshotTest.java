@@ -0,0 +1,82 @@
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that a snapshot keeps the tiles and counts of the map as it was
+ * when taken, however the map is edited afterwards
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class MapSnapshotTest {
+
+	@Test
+	public void isIsolatedFromLaterEdits() {
+		// narrow, square and wide maps give one row or many per band
+		int[][] sizes = { { 1, 300 }, { 37, 300 }, { 1000, 300 }, { 70000, 20 } };
+		for (int[] size : sizes) {
+			int width = size[0];
+			int height = size[1];
+			TiledMap map = new TiledMap(width, height, Tile.Grass);
+			map.setTerrainRandomly(0, 0, width, height, 5L);
+			byte[][] before = rows(map);
+			long[] counts = new long[Tile.values().length];
+			for (Tile tileType : Tile.values()) {
+				counts[tileType.ordinal()] = map.getTileCount(tileType);
+			}
+
+			MapSnapshot snapshot = map.snapshot();
+			map.setTerrainRandomly(0, 0, width, height, 6L);
+			map.setTerrain(0, 0, width, height / 2, Tile.Rock);
+			map.setBorder(Tile.Fence);
+			map.floodFill(0, height - 1, Tile.Water);
+			MapSnapshot later = map.snapshot();
+			byte[][] after = rows(map);
+			map.setTerrain(0, 0, width, height, Tile.Tree);
+
+			assertArrayEquals(before, rows(snapshot));
+			assertArrayEquals(after, rows(later));
+			assertEquals((long) width * height, map.getTileCount(Tile.Tree));
+			for (Tile tileType : Tile.values()) {
+				assertEquals(counts[tileType.ordinal()], snapshot.getTileCount(tileType));
+			}
+		}
+	}
+
+	@Test
+	public void answersRectangleCountsForItsTiles() {
+		TiledMap map = new TiledMap(200, 150, Tile.Grass);
+		map.setTerrainRandomly(0, 0, 200, 150, 3L);
+		long passable = map.getPassableCount(20, 30, 100, 80);
+		long water = map.getTileCount(20, 30, 100, 80, Tile.Water);
+
+		MapSnapshot snapshot = map.snapshot();
+		map.setTerrain(0, 0, 200, 150, Tile.Rock);
+		assertEquals(passable, snapshot.getPassableCount(20, 30, 100, 80));
+		assertEquals(water, snapshot.getTileCount(20, 30, 100, 80, Tile.Water));
+	}
+
+	@Test
+	public void cannotBeEdited() {
+		TiledMap map = new TiledMap(10, 10, Tile.Grass);
+		MapSnapshot snapshot = map.snapshot();
+		assertFalse(snapshot.setTerrain(0, 0, 1, 1, Tile.Rock));
+		assertEquals(Tile.Grass, snapshot.getTerrain(0, 0));
+	}
+
+	private static byte[][] rows(Mappable map) {
+		byte[][] rows = new byte[map.getHeight()][map.getWidth()];
+		for (int y = 0; y < map.getHeight(); y++) {
+			map.getTerrainRow(y, rows[y]);
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,126 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that a map's passable regions stay the same as labelling them
+ * afresh by breadth first search, as walls are added and removed
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class PassableRegionsTest {
+
+	@Test
+	public void matchesLabellingAfresh() {
+		Random random = new Random(3);
+		for (int trial = 0; trial < 100; trial++) {
+			int width = 1 + random.nextInt(100);
+			int height = 1 + random.nextInt(100);
+			TiledMap map = new TiledMap(width, height, Tile.Grass);
+			map.setTerrainRandomly(0, 0, width, height, trial);
+			PassableRegions regions = map.getPassableRegions();
+			assertRegions(map, regions);
+
+			for (int k = 0; k < 20; k++) {
+				int x = random.nextInt(width);
+				int y = random.nextInt(height);
+				int w = random.nextInt(width - x + 1);
+				int h = random.nextInt(height - y + 1);
+				switch (random.nextInt(4)) {
+				case 0:
+					map.setTerrain(x, y, w, h, Tile.values()[random.nextInt(Tile.values().length)]);
+					break;
+				case 1:
+					map.setTerrain(x, y, w, h, random.nextBoolean() ? Tile.Grass : Tile.Water);
+					break;
+				case 2:
+					map.setBorder(Tile.Fence, random.nextInt(width / 2 + 1));
+					break;
+				default:
+					map.floodFill(x, y, Tile.Grass);
+				}
+				if (random.nextInt(3) == 0) {
+					assertRegions(map, regions);
+				}
+			}
+			assertRegions(map, regions);
+		}
+	}
+
+	@Test
+	public void splitsAndJoinsARegion() {
+		TiledMap map = new TiledMap(20, 10, Tile.Grass);
+		PassableRegions regions = map.getPassableRegions();
+		assertEquals(1, regions.getRegionCount());
+
+		map.setTerrain(10, 0, 1, 10, Tile.Rock);
+		assertEquals(2, regions.getRegionCount());
+		assertTrue(!regions.isReachable(0, 0, 19, 0));
+
+		map.setTerrain(10, 5, 1, 1, Tile.Grass);
+		assertEquals(1, regions.getRegionCount());
+		assertTrue(regions.isReachable(0, 0, 19, 0));
+	}
+
+	private static void assertRegions(Mappable map, PassableRegions regions) {
+		int width = map.getWidth();
+		int height = map.getHeight();
+		boolean[] labelled = new boolean[width * height];
+		Set<Integer> ids = new HashSet<>();
+		int count = 0;
+		int pockets = 0;
+
+		for (int start = 0; start < width * height; start++) {
+			if (labelled[start] || !map.isPassable(start % width, start / width)) {
+				continue;
+			}
+			count++;
+			boolean edge = false;
+			List<Integer> cells = new ArrayList<>();
+			ArrayDeque<Integer> queue = new ArrayDeque<>();
+			labelled[start] = true;
+			queue.add(start);
+			while (!queue.isEmpty()) {
+				int cell = queue.poll();
+				cells.add(cell);
+				int x = cell % width;
+				int y = cell / width;
+				edge |= x == 0 || y == 0 || x == width - 1 || y == height - 1;
+				int[][] neighbours = { { x + 1, y }, { x - 1, y }, { x, y + 1 }, { x, y - 1 } };
+				for (int[] n : neighbours) {
+					if (n[0] >= 0 && n[1] >= 0 && n[0] < width && n[1] < height
+							&& !labelled[n[1] * width + n[0]] && map.isPassable(n[0], n[1])) {
+						labelled[n[1] * width + n[0]] = true;
+						queue.add(n[1] * width + n[0]);
+					}
+				}
+			}
+			if (!edge) {
+				pockets++;
+			}
+
+			int id = regions.getRegion(start % width, start / width);
+			assertTrue("region ids are distinct", ids.add(id));
+			for (int cell : cells) {
+				assertEquals(id, regions.getRegion(cell % width, cell / width));
+				assertEquals(cells.size(), regions.getRegionSize(cell % width, cell / width));
+			}
+		}
+		assertEquals(count, regions.getRegionCount());
+		assertEquals(pockets, regions.getPocketCount());
+	}
+}
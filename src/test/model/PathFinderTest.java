@@ -0,0 +1,173 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that A* and Jump Point Search find valid paths of the same,
+ * shortest, cost as Dijkstra's algorithm on random maps of walls
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class PathFinderTest {
+
+	private static final int[][] STEPS = {
+			{ 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 },
+			{ 1, 1 }, { 1, -1 }, { -1, 1 }, { -1, -1 } };
+
+	@Test
+	public void findsShortestPaths() {
+		Random random = new Random(3);
+		for (int trial = 0; trial < 150; trial++) {
+			int width = 5 + random.nextInt(60);
+			int height = 5 + random.nextInt(60);
+			TiledMap map = randomWalls(random, width, height);
+			PathFinder finder = new PathFinder(map);
+
+			for (int q = 0; q < 10; q++) {
+				int startX = random.nextInt(width);
+				int startY = random.nextInt(height);
+				int goalX = random.nextInt(width);
+				int goalY = random.nextInt(height);
+				double expected = shortestCost(map, startX, startY, goalX, goalY);
+				int[] path = finder.findPath(startX, startY, goalX, goalY);
+				int[] jumpPath = finder.findJumpPath(startX, startY, goalX, goalY);
+
+				if (expected < 0) {
+					assertNull(path);
+					assertNull(jumpPath);
+					continue;
+				}
+				assertNotNull(path);
+				assertNotNull(jumpPath);
+				assertValid(map, path, startX, startY, goalX, goalY);
+				assertValid(map, jumpPath, startX, startY, goalX, goalY);
+				assertEquals(expected, PathFinder.getCost(path), 1e-3);
+				assertEquals(expected, PathFinder.getCost(jumpPath), 1e-3);
+			}
+		}
+	}
+
+	@Test
+	public void batchMatchesSingleQueries() {
+		Random random = new Random(5);
+		TiledMap map = randomWalls(random, 80, 60);
+		PathFinder finder = new PathFinder(map);
+		int[] queries = new int[400];
+		for (int k = 0; k < queries.length; k += 2) {
+			queries[k] = random.nextInt(80);
+			queries[k + 1] = random.nextInt(60);
+		}
+		int[][] paths = finder.findPaths(queries, true);
+		for (int q = 0; q < paths.length; q++) {
+			int k = q * 4;
+			int[] path = finder.findJumpPath(queries[k], queries[k + 1], queries[k + 2], queries[k + 3]);
+			if (path == null) {
+				assertNull(paths[q]);
+			} else {
+				assertEquals(PathFinder.getCost(path), PathFinder.getCost(paths[q]), 1e-3);
+			}
+		}
+	}
+
+	private static TiledMap randomWalls(Random random, int width, int height) {
+		TiledMap map = new TiledMap(width, height, Tile.Grass);
+		int walls = random.nextInt(40);
+		for (int k = 0; k < walls; k++) {
+			int x = random.nextInt(width);
+			int y = random.nextInt(height);
+			if (random.nextBoolean()) {
+				map.setTerrain(x, y, 1 + random.nextInt(width - x), 1, Tile.Rock);
+			} else {
+				map.setTerrain(x, y, 1, 1 + random.nextInt(height - y), Tile.Rock);
+			}
+		}
+		if (random.nextInt(3) == 0) {
+			for (int k = 0; k < width * height / 5; k++) {
+				map.setTerrain(random.nextInt(width), random.nextInt(height), 1, 1, Tile.Tree);
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * @return the cost of a shortest path by Dijkstra's algorithm, or -1 if
+	 *         there is none
+	 */
+	private static double shortestCost(Mappable map, int startX, int startY, int goalX, int goalY) {
+		if (!map.isPassable(startX, startY) || !map.isPassable(goalX, goalY)) {
+			return -1;
+		}
+		int width = map.getWidth();
+		double[] cost = new double[width * map.getHeight()];
+		Arrays.fill(cost, Double.MAX_VALUE);
+		PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+		cost[startY * width + startX] = 0;
+		queue.add(new double[] { 0, startX, startY });
+
+		while (!queue.isEmpty()) {
+			double[] entry = queue.poll();
+			int x = (int) entry[1];
+			int y = (int) entry[2];
+			if (entry[0] > cost[y * width + x]) {
+				continue;
+			}
+			if (x == goalX && y == goalY) {
+				return entry[0];
+			}
+			for (int[] step : STEPS) {
+				if (!canStep(map, x, y, step[0], step[1])) {
+					continue;
+				}
+				int next = (y + step[1]) * width + x + step[0];
+				double nextCost = entry[0] + (step[0] != 0 && step[1] != 0 ? Math.sqrt(2) : 1);
+				if (nextCost < cost[next]) {
+					cost[next] = nextCost;
+					queue.add(new double[] { nextCost, x + step[0], y + step[1] });
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return True if a path may step from (x, y) by (dx, dy), never cutting
+	 *         the corner of a blocked tile
+	 */
+	private static boolean canStep(Mappable map, int x, int y, int dx, int dy) {
+		int nextX = x + dx;
+		int nextY = y + dy;
+		if (nextX < 0 || nextY < 0 || nextX >= map.getWidth() || nextY >= map.getHeight()) {
+			return false;
+		}
+		if (!map.isPassable(nextX, nextY)) {
+			return false;
+		}
+		return dx == 0 || dy == 0 || (map.isPassable(nextX, y) && map.isPassable(x, nextY));
+	}
+
+	private static void assertValid(Mappable map, int[] path, int startX, int startY, int goalX, int goalY) {
+		assertEquals(startX, path[0]);
+		assertEquals(startY, path[1]);
+		assertEquals(goalX, path[path.length - 2]);
+		assertEquals(goalY, path[path.length - 1]);
+		for (int k = 2; k < path.length; k += 2) {
+			int dx = path[k] - path[k - 2];
+			int dy = path[k + 1] - path[k - 1];
+			assertTrue(Math.abs(dx) <= 1 && Math.abs(dy) <= 1 && (dx != 0 || dy != 0));
+			assertTrue(canStep(map, path[k - 2], path[k - 1], dx, dy));
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that seeded random fills are repeatable, whatever the map type,
+ * and only write inside their rectangle
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class RandomFillTest {
+
+	@Test
+	public void sameSeedGivesTheSameTiles() {
+		TiledMap first = new TiledMap(300, 200, Tile.Grass);
+		TiledMap second = new TiledMap(300, 200, Tile.Grass);
+		ChunkedTiledMap chunked = new ChunkedTiledMap(300, 200, Tile.Grass);
+		first.setTerrainRandomly(5, 7, 250, 180, 42);
+		second.setTerrainRandomly(5, 7, 250, 180, 42);
+		chunked.setTerrainRandomly(5, 7, 250, 180, 42);
+
+		for (int y = 0; y < 200; y++) {
+			for (int x = 0; x < 300; x++) {
+				assertEquals(first.getTerrain(x, y), second.getTerrain(x, y));
+				assertEquals(first.getTerrain(x, y), chunked.getTerrain(x, y));
+			}
+		}
+		for (Tile tileType : Tile.values()) {
+			assertEquals(first.getTileCount(tileType), chunked.getTileCount(tileType));
+		}
+	}
+
+	@Test
+	public void differentSeedsGiveDifferentTiles() {
+		TiledMap first = new TiledMap(100, 100, Tile.Grass);
+		TiledMap second = new TiledMap(100, 100, Tile.Grass);
+		first.setTerrainRandomly(0, 0, 100, 100, 1);
+		second.setTerrainRandomly(0, 0, 100, 100, 2);
+
+		boolean same = true;
+		for (int y = 0; y < 100 && same; y++) {
+			for (int x = 0; x < 100 && same; x++) {
+				same = first.getTerrain(x, y) == second.getTerrain(x, y);
+			}
+		}
+		assertFalse(same);
+	}
+
+	@Test
+	public void writesOnlyInsideTheRectangle() {
+		TiledMap map = new TiledMap(50, 40, Tile.Fence);
+		map.setTerrainRandomly(10, 5, 20, 15, 7);
+		for (int row = 0; row < 40; row++) {
+			for (int x = 0; x < 50; x++) {
+				boolean inside = x >= 10 && x < 30 && row >= 5 && row < 20;
+				if (!inside) {
+					assertEquals(Tile.Fence, map.getTerrain(x, 39 - row));
+				}
+			}
+		}
+	}
+}
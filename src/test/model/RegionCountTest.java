@@ -0,0 +1,87 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that rectangle tile counts agree with counting the rectangle's
+ * tiles one by one, as the map is edited between queries
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class RegionCountTest {
+
+	@Test
+	public void countsMatchTheTiles() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < 100; trial++) {
+			// tall maps span several blocks of the count tables
+			int width = 1 + random.nextInt(100);
+			int height = 1 + random.nextInt(300);
+			Mappable map = trial % 2 == 0
+					? new TiledMap(width, height, Tile.Grass)
+					: new ChunkedTiledMap(width, height, Tile.Grass);
+
+			for (int k = 0; k < 30; k++) {
+				int x = random.nextInt(width);
+				int y = random.nextInt(height);
+				int w = random.nextInt(width - x + 1);
+				int h = random.nextInt(height - y + 1);
+				Tile tileType = Tile.values()[random.nextInt(Tile.values().length)];
+				switch (random.nextInt(3)) {
+				case 0:
+					map.setTerrain(x, y, w, h, tileType);
+					break;
+				case 1:
+					map.setTerrainRandomly(x, y, w, h);
+					break;
+				default:
+					assertCounts(map, x, y, w, h, tileType);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void rejectsRectanglesOutsideTheMap() {
+		Mappable[] maps = {
+				new TiledMap(10, 10, Tile.Grass),
+				new ChunkedTiledMap(10, 10, Tile.Grass),
+				new ConcurrentTiledMap(10, 10, Tile.Grass),
+				new TiledMap(10, 10, Tile.Grass).snapshot() };
+		for (Mappable map : maps) {
+			assertEquals(-1, map.getPassableCount(5, 5, 10, 10));
+			assertEquals(-1, map.getTileCount(5, 5, 10, 10, Tile.Grass));
+			assertEquals(-1, map.getTileCount(5, 5, 10, 10, IndoorTile.Desk));
+			assertEquals(-1, map.getTileCount(-1, 0, 1, 1, Tile.Grass));
+			assertEquals(0, map.getTileCount(0, 0, 10, 10, IndoorTile.Desk));
+			assertEquals(100, map.getTileCount(0, 0, 10, 10, Tile.Grass));
+		}
+	}
+
+	private static void assertCounts(Mappable map, int x, int y, int width, int height, Tile tileType) {
+		int mapHeight = map.getHeight();
+		long passable = 0;
+		long matching = 0;
+		for (int j = y; j < y + height; j++) {
+			for (int i = x; i < x + width; i++) {
+				Tileable tile = map.getTerrain(i, mapHeight - 1 - j);
+				if (tile.isPassable()) {
+					passable++;
+				}
+				if (tile == tileType) {
+					matching++;
+				}
+			}
+		}
+		assertEquals(passable, map.getPassableCount(x, y, width, height));
+		assertEquals(matching, map.getTileCount(x, y, width, height, tileType));
+	}
+}
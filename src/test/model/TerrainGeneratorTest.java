@@ -0,0 +1,86 @@
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that generated terrain depends only on the seed and the tile's
+ * position, so a part of a map generates the same tiles as the whole
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class TerrainGeneratorTest {
+
+	private static final int SIZE = 512;
+
+	@Test
+	public void sameSeedGivesTheSameTerrain() {
+		TiledMap first = new TiledMap(SIZE, SIZE, Tile.Grass);
+		TiledMap second = new TiledMap(SIZE, SIZE, Tile.Fence);
+		assertTrue(new TerrainGenerator(7).generate(first));
+		assertTrue(new TerrainGenerator(7).generate(second));
+		assertArrayEquals(rows(first), rows(second));
+
+		long[] counts = new long[Tile.values().length];
+		for (byte[] row : rows(first)) {
+			for (byte ordinal : row) {
+				counts[ordinal]++;
+			}
+		}
+		for (Tile tileType : Tile.values()) {
+			assertEquals(counts[tileType.ordinal()], first.getTileCount(tileType));
+		}
+	}
+
+	@Test
+	public void partOfAMapMatchesTheWhole() {
+		TiledMap whole = new TiledMap(SIZE, SIZE, Tile.Grass);
+		TiledMap part = new TiledMap(SIZE, SIZE, Tile.Fence);
+		new TerrainGenerator(7).generate(whole);
+		new TerrainGenerator(7).generate(part, 100, 200, 300, 150);
+
+		byte[][] expected = rows(whole);
+		byte[][] actual = rows(part);
+		for (int y = 0; y < SIZE; y++) {
+			int row = SIZE - 1 - y;
+			for (int x = 0; x < SIZE; x++) {
+				boolean inside = x >= 100 && x < 400 && row >= 200 && row < 350;
+				assertEquals(inside ? expected[y][x] : Tile.Fence.ordinal(), actual[y][x]);
+			}
+		}
+	}
+
+	@Test
+	public void differentSeedsGiveDifferentTerrain() {
+		TiledMap first = new TiledMap(SIZE, SIZE, Tile.Grass);
+		TiledMap second = new TiledMap(SIZE, SIZE, Tile.Grass);
+		new TerrainGenerator(1).generate(first);
+		new TerrainGenerator(2).generate(second);
+		assertFalse(Arrays.deepEquals(rows(first), rows(second)));
+	}
+
+	@Test
+	public void rejectsAnotherTileTypeFamily() {
+		TiledMap map = new TiledMap(10, 10, IndoorTile.Floor);
+		assertFalse(new TerrainGenerator(1).generate(map));
+		assertEquals(100, map.getTileCount(IndoorTile.Floor));
+	}
+
+	private static byte[][] rows(Mappable map) {
+		byte[][] rows = new byte[map.getHeight()][map.getWidth()];
+		for (int y = 0; y < map.getHeight(); y++) {
+			map.getTerrainRow(y, rows[y]);
+		}
+		return rows;
+	}
+}
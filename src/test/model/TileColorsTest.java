@@ -0,0 +1,45 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that changing a tile colour moves the colour version on, so a
+ * renderer knows to rebuild its palette
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class TileColorsTest {
+
+	@Test
+	public void setColorChangesTheVersion() {
+		int original = Tile.Grass.toColor().getRGB() & 0xffffff;
+		int version = TileColors.getVersion();
+		try {
+			Tile.setColor(Tile.Grass, 0x123456);
+			assertTrue(TileColors.getVersion() != version);
+			assertEquals(0x123456, Tile.Grass.toColor().getRGB() & 0xffffff);
+
+			version = TileColors.getVersion();
+			IndoorTile.setColor(IndoorTile.Desk, IndoorTile.Desk.toColor().getRGB() & 0xffffff);
+			assertTrue(TileColors.getVersion() != version);
+		} finally {
+			Tile.setColor(Tile.Grass, original);
+		}
+	}
+
+	@Test
+	public void readingColoursKeepsTheVersion() {
+		int version = TileColors.getVersion();
+		for (Tile tileType : Tile.values()) {
+			tileType.toColor();
+		}
+		assertEquals(version, TileColors.getVersion());
+	}
+}
@@ -0,0 +1,73 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that the running tile counts of a map agree with counting its
+ * tiles one by one
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class TileCountTest {
+
+	@Test
+	public void countsMatchTheTiles() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < 100; trial++) {
+			int width = 1 + random.nextInt(100);
+			int height = 1 + random.nextInt(100);
+			TiledMap map = new TiledMap(width, height, Tile.Grass);
+
+			for (int k = 0; k < 30; k++) {
+				int x = random.nextInt(width);
+				int y = random.nextInt(height);
+				int w = random.nextInt(width - x + 1);
+				int h = random.nextInt(height - y + 1);
+				Tile tileType = Tile.values()[random.nextInt(Tile.values().length)];
+				switch (random.nextInt(4)) {
+				case 0:
+					map.setTerrain(x, y, w, h, tileType);
+					break;
+				case 1:
+					map.setBorder(tileType, random.nextInt(width / 2 + 1));
+					break;
+				case 2:
+					map.setTerrainRandomly(x, y, w, h);
+					break;
+				default:
+					map.floodFill(x, y, tileType);
+				}
+			}
+
+			long[] counts = new long[Tile.values().length];
+			long blocked = 0;
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					Tileable tileType = map.getTerrain(x, y);
+					counts[tileType.ordinal()]++;
+					if (!tileType.isPassable()) {
+						blocked++;
+					}
+				}
+			}
+			for (Tile tileType : Tile.values()) {
+				assertEquals(counts[tileType.ordinal()], map.getTileCount(tileType));
+			}
+			assertEquals((1 - blocked / (double) (width * height)) * 100, map.getPassableArea(), 1e-9);
+		}
+	}
+
+	@Test
+	public void countsNoTilesOfAnotherFamily() {
+		TiledMap map = new TiledMap(10, 10, Tile.Grass);
+		assertEquals(0, map.getTileCount(IndoorTile.Floor));
+	}
+}
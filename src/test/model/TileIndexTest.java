@@ -0,0 +1,128 @@
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests the tile index's searches and counts against scanning every tile,
+ * as the map is edited between queries
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class TileIndexTest {
+
+	private static final Tile[] SEARCHED = { Tile.Rock, Tile.Entrance, Tile.Water };
+
+	@Test
+	public void matchesScanningEveryTile() {
+		Random random = new Random(5);
+		int[][] sizes = { { 1, 1 }, { 1, 300 }, { 300, 1 }, { 63, 65 }, { 200, 130 } };
+		for (int[] size : sizes) {
+			int width = size[0];
+			int height = size[1];
+			TiledMap map = new TiledMap(width, height, Tile.Grass);
+			map.setTerrainRandomly(0, 0, width, height, 7L);
+			TileIndex index = map.getTileIndex();
+
+			for (int k = 0; k < 40; k++) {
+				int x = random.nextInt(width);
+				int y = random.nextInt(height);
+				int w = random.nextInt(width - x + 1);
+				int h = random.nextInt(height - y + 1);
+				switch (k % 4) {
+				case 0:
+					map.setTerrain(x, y, w, h, Tile.values()[random.nextInt(Tile.values().length)]);
+					break;
+				case 1:
+					map.floodFill(x, y, Tile.values()[random.nextInt(Tile.values().length)]);
+					break;
+				case 2:
+					map.setTerrainRandomly(x, y, w, h, k);
+					break;
+				default:
+					break;
+				}
+
+				for (Tile tileType : SEARCHED) {
+					x = random.nextInt(width);
+					y = random.nextInt(height);
+					w = random.nextInt(width - x + 1);
+					h = random.nextInt(height - y + 1);
+					int[] expected = findAll(map, tileType, x, y, w, h);
+					assertArrayEquals(expected, index.findAll(tileType, x, y, w, h));
+					assertEquals(expected.length / 2, index.getCount(tileType, x, y, w, h));
+					assertNearest(map, index, tileType, random.nextInt(width), random.nextInt(height));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void findsTheNearestOfFewTiles() {
+		TiledMap map = new TiledMap(2048, 2048, Tile.Grass);
+		map.setTerrain(2000, 100, 1, 1, Tile.Entrance);
+		map.setTerrain(10, 2000, 1, 1, Tile.Entrance);
+		TileIndex index = map.getTileIndex();
+		assertArrayEquals(new int[] { 10, 2047 - 2000 }, index.findNearest(Tile.Entrance, 0, 0));
+		assertArrayEquals(new int[] { 2000, 2047 - 100 }, index.findNearest(Tile.Entrance, 2047, 2047));
+		assertEquals(4, index.findAll(Tile.Entrance).length);
+	}
+
+	/**
+	 * @return the positions of the tiles of a type in a rectangle, as x, y
+	 *         pairs in row order
+	 */
+	private static int[] findAll(Mappable map, Tileable tileType, int x, int y, int width, int height) {
+		List<Integer> positions = new ArrayList<>();
+		for (int j = y; j < y + height; j++) {
+			for (int i = x; i < x + width; i++) {
+				if (map.getTerrain(i, j) == tileType) {
+					positions.add(i);
+					positions.add(j);
+				}
+			}
+		}
+		int[] result = new int[positions.size()];
+		for (int k = 0; k < result.length; k++) {
+			result[k] = positions.get(k);
+		}
+		return result;
+	}
+
+	private static void assertNearest(Mappable map, TileIndex index, Tileable tileType, int x, int y) {
+		long best = Long.MAX_VALUE;
+		for (int j = 0; j < map.getHeight(); j++) {
+			for (int i = 0; i < map.getWidth(); i++) {
+				if (map.getTerrain(i, j) == tileType) {
+					best = Math.min(best, distance(i, j, x, y));
+				}
+			}
+		}
+		int[] nearest = index.findNearest(tileType, x, y);
+		if (best == Long.MAX_VALUE) {
+			assertNull(nearest);
+			return;
+		}
+		assertNotNull(nearest);
+		assertEquals(tileType, map.getTerrain(nearest[0], nearest[1]));
+		assertEquals(best, distance(nearest[0], nearest[1], x, y));
+	}
+
+	private static long distance(int x1, int y1, int x2, int y2) {
+		long dx = x1 - x2;
+		long dy = y1 - y2;
+		return dx * dx + dy * dy;
+	}
+}
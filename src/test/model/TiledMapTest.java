@@ -0,0 +1,81 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ *
+ * Tests that a TiledMap's flat tile storage reads back what was written,
+ * and that single tile reads outside the map are rejected
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class TiledMapTest {
+
+	@Test
+	public void readsBackRectanglesWritten() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < 100; trial++) {
+			int width = 1 + random.nextInt(200);
+			int height = 1 + random.nextInt(200);
+			TiledMap map = new TiledMap(width, height, Tile.Grass);
+			Tile[][] expected = new Tile[height][width];
+			fill(expected, 0, 0, width, height, Tile.Grass);
+
+			for (int k = 0; k < 20; k++) {
+				int x = random.nextInt(width);
+				int y = random.nextInt(height);
+				int w = random.nextInt(width - x + 1);
+				int h = random.nextInt(height - y + 1);
+				Tile tileType = Tile.values()[random.nextInt(Tile.values().length)];
+				assertTrue(map.setTerrain(x, y, w, h, tileType));
+				fill(expected, x, y, w, h, tileType);
+			}
+
+			// getTerrain counts rows from the top, setTerrain from the bottom
+			byte[] ordinals = new byte[width];
+			for (int row = 0; row < height; row++) {
+				map.getTerrainRow(height - 1 - row, ordinals);
+				for (int x = 0; x < width; x++) {
+					assertEquals(expected[row][x], map.getTerrain(x, height - 1 - row));
+					assertEquals(expected[row][x].ordinal(), ordinals[x]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void rejectsRectanglesOutsideTheMap() {
+		TiledMap map = new TiledMap(10, 10, Tile.Grass);
+		assertFalse(map.setTerrain(5, 5, 6, 1, Tile.Rock));
+		assertFalse(map.setTerrain(-1, 0, 1, 1, Tile.Rock));
+		assertFalse(map.setTerrain(0, 0, 1, 1, IndoorTile.Desk));
+		assertEquals(0, map.getTileCount(Tile.Rock));
+	}
+
+	@Test(expected = ArrayIndexOutOfBoundsException.class)
+	public void rejectsReadsPastTheLastColumn() {
+		new TiledMap(10, 10, Tile.Grass).getTerrain(10, 0);
+	}
+
+	@Test(expected = ArrayIndexOutOfBoundsException.class)
+	public void rejectsReadsBeforeTheFirstColumn() {
+		new TiledMap(10, 10, Tile.Grass).getTerrain(-1, 5);
+	}
+
+	private static void fill(Tile[][] tiles, int x, int y, int width, int height, Tile tileType) {
+		for (int j = y; j < y + height; j++) {
+			for (int i = x; i < x + width; i++) {
+				tiles[j][i] = tileType;
+			}
+		}
+	}
+}
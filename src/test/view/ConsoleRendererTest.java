@@ -0,0 +1,72 @@
+package view;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import model.IndoorTile;
+import model.Tile;
+import model.TiledMap;
+
+/**
+ *
+ * Tests that the console renderer writes whole frames, and that in
+ * animated mode it only rewrites the rows that changed
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class ConsoleRendererTest {
+
+	private static final String ESCAPE = "\u001b";
+
+	@Test
+	public void writesEachFrameInFull() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ConsoleRenderer renderer = new ConsoleRenderer(new PrintStream(bytes), false);
+		TiledMap map = new TiledMap(4, 3, Tile.Grass);
+		map.setTerrain(1, 0, 2, 1, Tile.Rock);
+
+		renderer.render(map);
+		renderer.render(map);
+		String frame = "....\n....\n.xx.\n";
+		assertEquals(frame + frame, bytes.toString());
+	}
+
+	@Test
+	public void rewritesOnlyChangedRows() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ConsoleRenderer renderer = new ConsoleRenderer(new PrintStream(bytes), true);
+		TiledMap map = new TiledMap(8, 4, Tile.Grass);
+
+		renderer.render(map);
+		assertEquals(ESCAPE + "[2J" + ESCAPE + "[H" + "........\n........\n........\n........\n",
+				bytes.toString());
+
+		bytes.reset();
+		map.setTerrain(1, 1, 2, 1, Tile.Rock);
+		renderer.render(map);
+		assertEquals(ESCAPE + "[3;1H.xx....." + ESCAPE + "[5;1H", bytes.toString());
+
+		bytes.reset();
+		renderer.render(map);
+		assertEquals(ESCAPE + "[5;1H", bytes.toString());
+	}
+
+	@Test
+	public void usesTheCharactersOfEachMapsTiles() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ConsoleRenderer renderer = new ConsoleRenderer(new PrintStream(bytes), false);
+		renderer.render(new TiledMap(2, 1, Tile.Grass));
+		renderer.render(new TiledMap(2, 1, IndoorTile.Desk));
+
+		String expected = "" + Tile.Grass.toChar() + Tile.Grass.toChar() + "\n"
+				+ IndoorTile.Desk.toChar() + IndoorTile.Desk.toChar() + "\n";
+		assertEquals(expected, bytes.toString());
+	}
+}
@@ -0,0 +1,81 @@
+package view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+import model.Tile;
+import model.TiledMap;
+
+/**
+ *
+ * Tests that the PNG renderer writes images that ImageIO can decode, with
+ * each tile drawn in its colour
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class PngRendererTest {
+
+	@Test
+	public void writesDecodableImages() throws IOException {
+		TiledMap map = new TiledMap(203, 150, Tile.Grass);
+		map.setTerrainRandomly(0, 0, 203, 150, 42L);
+		map.setTerrain(10, 10, 50, 30, Tile.Water);
+
+		for (int tileSize : new int[] { 1, 3 }) {
+			for (int level : new int[] { 0, 6, 9 }) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				PngRenderer renderer = new PngRenderer(bytes);
+				renderer.setTileSize(tileSize);
+				renderer.setCompressionLevel(level);
+				renderer.render(map);
+
+				BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes.toByteArray()));
+				assertNotNull(image);
+				assertEquals(203 * tileSize, image.getWidth());
+				assertEquals(150 * tileSize, image.getHeight());
+				for (int y = 0; y < 150; y++) {
+					for (int x = 0; x < 203; x++) {
+						int expected = map.getTerrain(x, y).toColor().getRGB();
+						assertEquals(expected, image.getRGB(x * tileSize, y * tileSize));
+						assertEquals(expected, image.getRGB(x * tileSize + tileSize - 1, y * tileSize + tileSize - 1));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void splitsSegmentsWithinMapRows() throws IOException {
+		// 7001 byte scanlines put segment boundaries part way through map rows
+		TiledMap map = new TiledMap(1000, 300, Tile.Grass);
+		map.setTerrainRandomly(0, 0, 1000, 300, 11L);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PngRenderer renderer = new PngRenderer(bytes);
+		renderer.setTileSize(7);
+		renderer.render(map);
+
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes.toByteArray()));
+		assertNotNull(image);
+		assertEquals(2100, image.getHeight());
+		for (int y = 0; y < 300; y++) {
+			for (int x = 0; x < 1000; x += 3) {
+				int expected = map.getTerrain(x, y).toColor().getRGB();
+				for (int k = 0; k < 7; k++) {
+					assertEquals(expected, image.getRGB(x * 7 + k, y * 7 + k));
+				}
+			}
+		}
+	}
+}
@@ -1,11 +1,18 @@
 package view;
 
-import model.TiledMap;
+import java.io.PrintStream;
+
+import model.Mappable;
+import model.Tileable;
 
 /**
- * 
+ *
  * ConsoleRenderer draws a TiledMap to Standard Out
- * 
+ *
+ * Each frame is built in one reusable buffer and written with a single
+ * call. In animated mode the renderer remembers the previous frame and,
+ * using ANSI cursor positioning, only rewrites the rows that have changed.
+ *
  * @author Iain Diamond
  * @version 23/02/2015
  *
@@ -13,14 +20,147 @@ import model.TiledMap;
 
 public class ConsoleRenderer implements MapRenderer {
 
+	private static final byte[] CLEAR_SCREEN = { 0x1b, '[', '2', 'J', 0x1b, '[', 'H' };
+	private static final byte ESCAPE = 0x1b;
+	private static final byte NEWLINE = '\n';
+
+	private final PrintStream out;
+	private final boolean animated;
+
+	// the frame last drawn, one row of characters after another
+	private byte[] frame = new byte[0];
+	private byte[] ordinals = new byte[0];
+	private byte[] output = new byte[0];
+	private int outputSize;
+	private int frameWidth = -1;
+	private int frameHeight = -1;
+
+	// the character of each tile type, indexed by ordinal, and the map it
+	// was built for. A map's tile type family never changes, so the table
+	// is only rebuilt when a different map is rendered.
+	private byte[] chars = new byte[0];
+	private Mappable charsMap = null;
+
+	/**
+	 * Creates a renderer that writes each frame in full
+	 */
+	public ConsoleRenderer() {
+		this(false);
+	}
+
+	/**
+	 * Creates a renderer for Standard Out
+	 *
+	 * @param animated True to redraw frames in place, rewriting only the
+	 * rows that changed
+	 */
+	public ConsoleRenderer(boolean animated) {
+		this(System.out, animated);
+	}
+
+	/**
+	 * @param out the stream frames are written to
+	 * @param animated True to redraw frames in place, rewriting only the
+	 * rows that changed
+	 */
+	public ConsoleRenderer(PrintStream out, boolean animated) {
+		this.out = out;
+		this.animated = animated;
+	}
+
 	@Override
-	public void render(TiledMap map) {
+	public void render(Mappable map) {
 
-		for (int j = 0; j < map.getHeight(); j++) {
-			for (int i = 0; i < map.getWidth(); i++) {
-				System.out.print(map.getTerrain(i, j).toChar());
+		int width = map.getWidth();
+		int height = map.getHeight();
+		boolean redraw = !animated || width != frameWidth || height != frameHeight;
+		if (width != frameWidth || height != frameHeight) {
+			frame = new byte[width * height];
+			ordinals = new byte[width];
+			frameWidth = width;
+			frameHeight = height;
+		}
+
+		// the characters of each tile type
+		if (map != charsMap) {
+			Tileable[] tileTypes = map.getTileTypes();
+			chars = new byte[tileTypes.length];
+			for (int k = 0; k < tileTypes.length; k++) {
+				chars[k] = (byte) tileTypes[k].toChar();
 			}
-			System.out.println();
+			charsMap = map;
+		}
+
+		outputSize = 0;
+		if (animated && redraw) {
+			append(CLEAR_SCREEN, 0, CLEAR_SCREEN.length);
+		}
+
+		for (int j = 0; j < height; j++) {
+			map.getTerrainRow(j, ordinals);
+
+			int start = j * width;
+			boolean changed = redraw;
+			for (int i = 0; i < width; i++) {
+				byte c = chars[ordinals[i]];
+				if (frame[start + i] != c) {
+					frame[start + i] = c;
+					changed = true;
+				}
+			}
+			if (!changed) {
+				continue;
+			}
+			if (!redraw) {
+				moveCursor(j + 1);
+			}
+			append(frame, start, width);
+			if (redraw) {
+				append(NEWLINE);
+			}
+		}
+
+		// leave the cursor below the map
+		if (!redraw) {
+			moveCursor(height + 1);
+		}
+		out.write(output, 0, outputSize);
+		out.flush();
+	}
+
+	/**
+	 * Appends an ANSI sequence moving the cursor to the start of a line
+	 *
+	 * @param line the line, counting from 1
+	 */
+	private void moveCursor(int line) {
+		append(ESCAPE);
+		append((byte) '[');
+		String number = Integer.toString(line);
+		for (int k = 0; k < number.length(); k++) {
+			append((byte) number.charAt(k));
+		}
+		append((byte) ';');
+		append((byte) '1');
+		append((byte) 'H');
+	}
+
+	private void append(byte value) {
+		ensureCapacity(1);
+		output[outputSize++] = value;
+	}
+
+	private void append(byte[] bytes, int offset, int length) {
+		ensureCapacity(length);
+		System.arraycopy(bytes, offset, output, outputSize, length);
+		outputSize += length;
+	}
+
+	private void ensureCapacity(int extra) {
+		if (outputSize + extra > output.length) {
+			byte[] larger = new byte[Math.max(output.length * 2, outputSize + extra + 64)];
+			System.arraycopy(output, 0, larger, 0, outputSize);
+			output = larger;
 		}
 	}
 }
@@ -4,33 +4,99 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Container;
 import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 
+import model.MapListener;
+import model.MapPyramid;
+import model.Mappable;
+import model.TileColors;
 import model.Tileable;
-import model.TiledMap;
 
 /**
  * 
  * JPanelRenderer draws a TiledMap using Swing components.
  * The renderer is implemented using the Singleton pattern. 
  * 
+ * The map is drawn into an image holding one pixel per tile, which is
+ * scaled up to the tile size when the panel is painted. Tile colours are
+ * written straight into the image's raster from a palette that is only
+ * rebuilt when a tile colour changes.
+ * 
+ * The renderer listens to the map it draws. Each rectangle of tiles the
+ * map reports as written is queued, and only those tiles are redrawn and
+ * repainted, so an edit costs in proportion to its size, not the map's.
+ * 
+ * For maps larger than the screen there is a viewport mode, which shows a
+ * fixed size window onto the map that can be scrolled by dragging and
+ * zoomed with the mouse wheel. Only the visible tiles are drawn. Once zoomed
+ * out below a pixel per tile, the view is drawn from a MapPyramid, choosing
+ * the level whose tiles are at least a pixel across, so a frame costs in
+ * proportion to the viewport whatever the size of the map. The pyramid is
+ * built on a background thread once the viewport is set, and until it is
+ * ready the view samples one map tile per cell instead.
+ * 
  * @author Iain Diamond
  * @version 25/02/2015
  * 
  */
 
-public class JPanelRenderer implements MapRenderer {
+public class JPanelRenderer implements MapRenderer, MapListener {
 
 	private final JFrame myFrame = new JFrame();
 	private final Container pane = myFrame.getContentPane();
-	private TiledMap myMap = null;
+	// the map drawn, which is written by render() and read on the event thread
+	private volatile Mappable myMap = null;
 	
-	private int tileSize = 10;
+	private volatile int tileSize = 10;
 	private int mapWidth = 0;
 	private int mapHeight = 0;
 	private static JPanel panel = null;
+
+	// the map image, one pixel per tile, and its raster
+	private BufferedImage image = null;
+	private int[] pixels = null;
+	private byte[] ordinals = null;
+
+	// the RGB colour of each tile type, indexed by ordinal, with the map
+	// and the colour version it was built for
+	private int[] palette = new int[0];
+	private Mappable paletteMap = null;
+	private int paletteVersion = 0;
+
+	// the tile rectangles written since the last paint
+	private final List<Rectangle> dirtyTiles = new ArrayList<>();
+	private boolean redrawAll = true;
+
+	// the viewport, in pixels, with the camera's top left tile and zoom,
+	// which tilesChanged reads from the threads writing the map
+	private volatile boolean viewportMode = false;
+	private volatile int viewWidth = 0;
+	private volatile int viewHeight = 0;
+	private volatile double cameraX = 0;
+	private volatile double cameraY = 0;
+	private volatile double zoom = tileSize;
+
+	// the visible cells of the current level, one pixel per cell
+	private BufferedImage viewImage = null;
+	private int[] viewPixels = null;
+	private byte[] viewOrdinals = null;
+	// the overviews of pyramidMap, which are null until built on a
+	// background thread, and the number of builds started
+	private MapPyramid pyramid = null;
+	private Mappable pyramidMap = null;
+	private int pyramidBuilds = 0;
 	
 	private static JPanelRenderer jPanelRenderer = new JPanelRenderer();
 	
@@ -46,6 +112,11 @@ public class JPanelRenderer implements MapRenderer {
 
 		pane.add(panel, BorderLayout.CENTER);
 
+		CameraControl control = new CameraControl();
+		panel.addMouseListener(control);
+		panel.addMouseMotionListener(control);
+		panel.addMouseWheelListener(control);
+
 		myFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 		myFrame.setSize(mapWidth, mapHeight);
 		myFrame.setTitle("Terrain Map");
@@ -55,22 +126,78 @@ public class JPanelRenderer implements MapRenderer {
 	}
 	
 	@Override
-	public void render(TiledMap map) {
+	public void render(Mappable map) {
 		
+		if (myMap != null) {
+			myMap.removeMapListener(this);
+		}
+		synchronized (dirtyTiles) {
+			if (pyramidMap != null && map != pyramidMap) {
+				if (pyramid != null) {
+					pyramidMap.removeMapListener(pyramid);
+				}
+				pyramid = null;
+				pyramidMap = null;
+				pyramidBuilds++;
+			}
+		}
+		mapWidth = map.getWidth();
+		mapHeight = map.getHeight();
+		synchronized (dirtyTiles) {
+			redrawAll = true;
+			dirtyTiles.clear();
+		}
+		myMap = map;
+		myMap.addMapListener(this);
+		if (viewportMode) {
+			buildPyramid(map);
+		}
+		
+		resizeFrame();
+		panel.repaint();
+	}
+
+	/**
+	 * Resizes the frame to fit the map, or the viewport in viewport mode
+	 */
+	private void resizeFrame() {
+
 		// To make the panel look pretty we need some margins
 		int widthMargin = 6;
 		int heightMargin = 28;
-		
-		myMap = map;
-		
-		mapWidth = myMap.getWidth();
-		mapHeight = myMap.getHeight();
-		
-		// resize the frame to fit the map
-		myFrame.setSize(tileSize * mapWidth + widthMargin, 
-				tileSize * mapHeight + heightMargin);
+
+		if (viewportMode) {
+			myFrame.setSize(viewWidth + widthMargin, viewHeight + heightMargin);
+		} else {
+			myFrame.setSize(tileSize * mapWidth + widthMargin, 
+					tileSize * mapHeight + heightMargin);
+		}
 		myFrame.setResizable(false);
 	}
+
+	/**
+	 * Queues the written tiles to be redrawn and repaints just their area
+	 * of the panel. This may be called from any thread.
+	 */
+	@Override
+	public void tilesChanged(Mappable map, int x, int y, int width, int height) {
+		if (viewportMode) {
+			// the view is drawn afresh, so only visible edits need a repaint
+			double zoom = this.zoom;
+			double cameraX = this.cameraX;
+			double cameraY = this.cameraY;
+			if (x < cameraX + viewWidth / zoom && x + width > cameraX
+					&& y < cameraY + viewHeight / zoom && y + height > cameraY) {
+				panel.repaint();
+			}
+			return;
+		}
+		synchronized (dirtyTiles) {
+			dirtyTiles.add(new Rectangle(x, y, width, height));
+		}
+		int size = tileSize;
+		panel.repaint(x * size, y * size, width * size, height * size);
+	}
 	
 	/**
 	 * Sets the tile Size
@@ -84,27 +211,370 @@ public class JPanelRenderer implements MapRenderer {
 	}
 
 	/**
-	 * Draws a graphics tile at position x , y
+	 * Switches to viewport mode, showing a window of a fixed size onto the map
 	 * 
-	 * @param g the graphics object
-	 * @param x the tile's starting x co-ordinate 
-	 * @param y the tile's starting y co-ordinate 
-	 * @param terrain the tile's terrain type
+	 * @param width the viewport's width in pixels
+	 * @param height the viewport's height in pixels
 	 */
-	private void drawTile(Graphics g, int x, int y, Tileable terrain) {
-		int height = tileSize;
-		int width = height;
-		
-		g.setColor(terrain.toColor());
-		g.fillRect(x * width, y * height, width, height);
+	public void setViewport(int width, int height) {
+		if (width <= 0 || height <= 0) {
+			System.err.println("Invalid viewport size");
+			return;
+		}
+		viewWidth = width;
+		viewHeight = height;
+		if (!viewportMode) {
+			zoom = tileSize;
+			viewportMode = true;
+		}
+		Mappable map = myMap;
+		if (map != null) {
+			buildPyramid(map);
+		}
+		resizeFrame();
+		panel.repaint();
+	}
+
+	/**
+	 * Switches back to drawing the whole map at the tile size
+	 */
+	public void clearViewport() {
+		if (!viewportMode) {
+			return;
+		}
+		viewportMode = false;
+		synchronized (dirtyTiles) {
+			redrawAll = true;
+			dirtyTiles.clear();
+		}
+		resizeFrame();
+		panel.repaint();
+	}
+
+	/**
+	 * Moves the camera in viewport mode
+	 * 
+	 * @param x the map x position shown at the viewport's left edge
+	 * @param y the map y position shown at the viewport's top edge
+	 */
+	public void moveCamera(double x, double y) {
+		cameraX = x;
+		cameraY = y;
+		panel.repaint();
+	}
+
+	/**
+	 * Sets the zoom in viewport mode. Zooms of less than one pixel per tile
+	 * are drawn from the map's overviews.
+	 * 
+	 * @param pixelsPerTile the width of a tile in pixels
+	 */
+	public void setZoom(double pixelsPerTile) {
+		if (!(pixelsPerTile > 0) || pixelsPerTile >= 100) {
+			System.err.println("Invalid zoom");
+			return;
+		}
+		zoom = pixelsPerTile;
+		panel.repaint();
+	}
+
+	/**
+	 * @return the width of a tile in pixels in viewport mode
+	 */
+	public double getZoom() {
+		return zoom;
+	}
+
+	/**
+	 * Rebuilds the palette from the tile colours, which are cached by
+	 * the tile types themselves. The palette is only rebuilt when the map
+	 * or the colour version has changed since it was last built.
+	 * 
+	 * @param map the map drawn
+	 * @return True if any colour has changed
+	 */
+	private boolean updatePalette(Mappable map) {
+		int version = TileColors.getVersion();
+		if (map == paletteMap && version == paletteVersion) {
+			return false;
+		}
+		paletteMap = map;
+		paletteVersion = version;
+
+		Tileable[] tileTypes = map.getTileTypes();
+		boolean changed = palette.length != tileTypes.length;
+		if (changed) {
+			palette = new int[tileTypes.length];
+		}
+		for (int k = 0; k < tileTypes.length; k++) {
+			int rgb = tileTypes[k].toColor().getRGB();
+			if (palette[k] != rgb) {
+				palette[k] = rgb;
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Writes the colours of a range of rows into the image's raster
+	 * 
+	 * @param map the map drawn
+	 * @param fromRow the first row
+	 * @param toRow the row after the last
+	 */
+	private void drawRows(Mappable map, int fromRow, int toRow) {
+		int width = map.getWidth();
+		for (int j = fromRow; j < toRow; j++) {
+			map.getTerrainRow(j, ordinals);
+			int offset = j * width;
+			for (int i = 0; i < width; i++) {
+				pixels[offset + i] = palette[ordinals[i]];
+			}
+		}
+	}
+
+	/**
+	 * Writes the colours of a rectangle of tiles into the image's raster,
+	 * reading each of its rows whole and copying just the tiles within it
+	 * 
+	 * @param map the map drawn
+	 * @param area the tiles
+	 */
+	private void drawTiles(Mappable map, Rectangle area) {
+		int width = map.getWidth();
+		Rectangle tiles = area.intersection(new Rectangle(0, 0, width, map.getHeight()));
+		for (int j = tiles.y; j < tiles.y + tiles.height; j++) {
+			map.getTerrainRow(j, ordinals);
+			int offset = j * width;
+			for (int i = tiles.x; i < tiles.x + tiles.width; i++) {
+				pixels[offset + i] = palette[ordinals[i]];
+			}
+		}
 	}
 
 	private void drawMap(Graphics g) {
+		// the map is read once, so a whole frame is drawn from the same map
+		Mappable map = myMap;
+		if (map == null) {
+			return;
+		}
+		if (viewportMode) {
+			drawViewport(g, map);
+			return;
+		}
+		int width = map.getWidth();
+		int height = map.getHeight();
+
+		// the image is reallocated only when the map size changes
+		boolean redraw = false;
+		if (image == null || image.getWidth() != width || image.getHeight() != height) {
+			image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+			ordinals = new byte[width];
+			redraw = true;
+		}
+
+		// the queued edits are taken under the lock, but drawn outside it, so
+		// the threads writing the map are not held up by a full redraw
+		List<Rectangle> dirty;
+		synchronized (dirtyTiles) {
+			dirty = new ArrayList<>(dirtyTiles);
+			dirtyTiles.clear();
+			redraw |= redrawAll;
+			redrawAll = false;
+		}
+		if (updatePalette(map) || redraw) {
+			drawRows(map, 0, height);
+		} else {
+			for (Rectangle area : dirty) {
+				drawTiles(map, area);
+			}
+		}
+
+		// only the tiles within the clip are scaled and drawn
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, width * tileSize, height * tileSize);
+		}
+		int fromX = Math.max(0, clip.x / tileSize);
+		int fromY = Math.max(0, clip.y / tileSize);
+		int toX = Math.min(width, (clip.x + clip.width + tileSize - 1) / tileSize);
+		int toY = Math.min(height, (clip.y + clip.height + tileSize - 1) / tileSize);
+		if (fromX >= toX || fromY >= toY) {
+			return;
+		}
+		g.drawImage(image, fromX * tileSize, fromY * tileSize, toX * tileSize, toY * tileSize,
+				fromX, fromY, toX, toY, null);
+	}
+
+	/**
+	 * Draws the visible part of the map, reading the map itself when a tile
+	 * is at least a pixel across and its overviews when zoomed further out
+	 */
+	private void drawViewport(Graphics g, Mappable map) {
+		double zoom = this.zoom;
+		double cameraX = this.cameraX;
+		double cameraY = this.cameraY;
+		updatePalette(map);
+
+		// choose the level whose cells are at least a pixel across
+		int level = 0;
+		double cellSize = zoom;
+		while (cellSize < 1) {
+			level++;
+			cellSize *= 2;
+		}
+		MapPyramid overview = null;
+		int levelWidth = map.getWidth();
+		int levelHeight = map.getHeight();
+		if (level > 0) {
+			overview = getPyramid(map);
+		}
+		if (overview != null) {
+			while (level < overview.getBaseLevel()) {
+				level++;
+				cellSize *= 2;
+			}
+			// past the top level the whole map fits in a single cell
+			levelWidth = overview.getWidth(Math.min(level, overview.getTopLevel()));
+			levelHeight = overview.getHeight(Math.min(level, overview.getTopLevel()));
+		} else if (level > 0) {
+			// until the overviews are built each cell shows its top left tile
+			levelWidth = (int) (((long) levelWidth + (1L << level) - 1) >> level);
+			levelHeight = (int) (((long) levelHeight + (1L << level) - 1) >> level);
+		}
+		int stored = overview == null ? 0 : Math.min(level, overview.getTopLevel());
+
+		// the cells covering the viewport, with a part cell at each edge
+		double left = Math.scalb(cameraX, -level);
+		double top = Math.scalb(cameraY, -level);
+		int fromX = (int) Math.floor(left);
+		int fromY = (int) Math.floor(top);
+		int columns = (int) Math.ceil(viewWidth / cellSize) + 1;
+		int rows = (int) Math.ceil(viewHeight / cellSize) + 1;
+		if (viewImage == null || viewImage.getWidth() != columns || viewImage.getHeight() != rows) {
+			viewImage = new BufferedImage(columns, rows, BufferedImage.TYPE_INT_RGB);
+			viewPixels = ((DataBufferInt) viewImage.getRaster().getDataBuffer()).getData();
+			viewOrdinals = new byte[columns];
+		}
+
+		// the cells inside the map are read a row at a time
+		int background = panel.getBackground().getRGB();
+		int inFromX = Math.max(0, fromX);
+		int inToX = Math.min(levelWidth, fromX + columns);
+		for (int j = 0; j < rows; j++) {
+			int y = fromY + j;
+			int offset = j * columns;
+			if (y < 0 || y >= levelHeight || inFromX >= inToX) {
+				Arrays.fill(viewPixels, offset, offset + columns, background);
+				continue;
+			}
+			Arrays.fill(viewPixels, offset, offset + inFromX - fromX, background);
+			Arrays.fill(viewPixels, offset + inToX - fromX, offset + columns, background);
+			if (overview != null) {
+				overview.getOrdinals(stored, inFromX, y, inToX - inFromX, viewOrdinals);
+				for (int x = inFromX; x < inToX; x++) {
+					viewPixels[offset + x - fromX] = palette[viewOrdinals[x - inFromX]];
+				}
+			} else {
+				for (int x = inFromX; x < inToX; x++) {
+					viewPixels[offset + x - fromX] = palette[map.getTerrain(x << level, y << level).ordinal()];
+				}
+			}
+		}
+
+		int offsetX = (int) Math.round((fromX - left) * cellSize);
+		int offsetY = (int) Math.round((fromY - top) * cellSize);
+		g.clipRect(0, 0, viewWidth, viewHeight);
+		g.drawImage(viewImage, offsetX, offsetY,
+				offsetX + (int) Math.round(columns * cellSize),
+				offsetY + (int) Math.round(rows * cellSize),
+				0, 0, columns, rows, null);
+	}
+
+	/**
+	 * Returns the overviews of the current map, or null while they are
+	 * being built, in which case a build is started if there is none
+	 */
+	private MapPyramid getPyramid(Mappable map) {
+		synchronized (dirtyTiles) {
+			if (pyramidMap == map) {
+				return pyramid;
+			}
+		}
+		buildPyramid(map);
+		return null;
+	}
+
+	/**
+	 * Builds the overviews of a map on a background thread, unless they are
+	 * already built or being built, and repaints once they are ready. They
+	 * listen to the map from before they are built, so they stay current
+	 * as it is edited.
+	 */
+	private void buildPyramid(final Mappable map) {
+		final int build;
+		synchronized (dirtyTiles) {
+			if (pyramidMap == map) {
+				return;
+			}
+			if (pyramid != null) {
+				pyramidMap.removeMapListener(pyramid);
+			}
+			pyramid = null;
+			pyramidMap = map;
+			build = ++pyramidBuilds;
+		}
+
+		Thread builder = new Thread(() -> {
+			MapPyramid built = MapPyramid.listenTo(map);
+			synchronized (dirtyTiles) {
+				// a build overtaken by another map is thrown away
+				if (build != pyramidBuilds) {
+					map.removeMapListener(built);
+					return;
+				}
+				pyramid = built;
+			}
+			panel.repaint();
+		}, "MapPyramid builder");
+		builder.setDaemon(true);
+		builder.start();
+	}
+
+	// Pans the viewport by dragging and zooms it with the mouse wheel
+	private class CameraControl extends MouseAdapter {
+
+		private Point last = null;
 
-		for (int j = 0; j < mapHeight; j++) {
-			for (int i = 0; i < mapWidth; i++) {
-				drawTile(g, i, j, myMap.getTerrain(i, j));
+		@Override
+		public void mousePressed(MouseEvent e) {
+			last = e.getPoint();
+		}
+
+		@Override
+		public void mouseDragged(MouseEvent e) {
+			if (!viewportMode || last == null) {
+				return;
+			}
+			moveCamera(cameraX - (e.getX() - last.x) / zoom,
+					cameraY - (e.getY() - last.y) / zoom);
+			last = e.getPoint();
+		}
+
+		@Override
+		public void mouseWheelMoved(MouseWheelEvent e) {
+			if (!viewportMode) {
+				return;
 			}
+			// zoom about the tile under the pointer
+			double scale = Math.pow(1.25, -e.getPreciseWheelRotation());
+			double next = Math.max(1e-6, Math.min(99, zoom * scale));
+			double x = cameraX + e.getX() / zoom;
+			double y = cameraY + e.getY() / zoom;
+			zoom = next;
+			moveCamera(x - e.getX() / next, y - e.getY() / next);
 		}
 	}
 
@@ -1,6 +1,6 @@
 package view;
 
-import model.TiledMap;
+import model.Mappable;
 
 /**
  * 
@@ -12,5 +12,5 @@ import model.TiledMap;
  */
 
 public interface MapRenderer {
-	public void render(TiledMap map);
+	public void render(Mappable map);
 }
@@ -0,0 +1,358 @@
+package view;
+
+import java.awt.Color;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import model.Mappable;
+import model.Tileable;
+
+/**
+ *
+ * PngRenderer writes a TiledMap to a PNG image, without needing a display.
+ *
+ * The image is palette based, one byte per pixel, with the palette taken
+ * from the tile colours. It is streamed in segments of scanlines, and only
+ * as many segments are built at once as fit in a fixed number of bytes, so
+ * the memory used does not grow with the height of the map. A segment holds
+ * at least one scanline, so an image wider than that many bytes is written
+ * a scanline at a time.
+ *
+ * Segments are compressed in parallel, each by its own Deflater primed with
+ * the end of the segment before it. Every segment but the last ends on a
+ * byte boundary, so the compressed segments join into a single zlib stream,
+ * whose checksum is combined from the checksums of the segments.
+ *
+ * @author agent
+ * @version 18/10/2026
+ *
+ */
+
+public class PngRenderer implements MapRenderer {
+
+	private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+
+	// the uncompressed size aimed for in each segment
+	private static final int SEGMENT_BYTES = 1 << 20;
+
+	// the most uncompressed bytes built and compressed at once
+	private static final int IN_FLIGHT_BYTES = 1 << 25;
+
+	// the most history a deflate stream can refer back to
+	private static final int DICTIONARY_BYTES = 1 << 15;
+
+	private static final int ADLER_BASE = 65521;
+
+	private final File file;
+	private final OutputStream stream;
+	private int tileSize = 1;
+	private int level = Deflater.DEFAULT_COMPRESSION;
+
+	/**
+	 * Creates a renderer that writes each map to a file, replacing it
+	 *
+	 * @param file the image file
+	 */
+	public PngRenderer(File file) {
+		this.file = file;
+		this.stream = null;
+	}
+
+	/**
+	 * Creates a renderer that writes each map to a stream, which is left open
+	 *
+	 * @param stream the stream images are written to
+	 */
+	public PngRenderer(OutputStream stream) {
+		this.file = null;
+		this.stream = stream;
+	}
+
+	/**
+	 * Sets the tile Size
+	 *
+	 * @param size the width of a tile in pixels
+	 */
+	public void setTileSize(int size) {
+		if (size > 0 && size < 100) {
+			tileSize = size;
+		}
+	}
+
+	/**
+	 * Sets the compression level
+	 *
+	 * @param level from 0, no compression, to 9, the best compression
+	 */
+	public void setCompressionLevel(int level) {
+		if (level >= 0 && level <= 9) {
+			this.level = level;
+		}
+	}
+
+	@Override
+	public void render(Mappable map) {
+		if ((long) map.getWidth() * tileSize + 1 > Integer.MAX_VALUE
+				|| (long) map.getHeight() * tileSize > Integer.MAX_VALUE) {
+			System.err.println("Invalid image size");
+			return;
+		}
+
+		try {
+			if (file != null) {
+				try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+					write(map, out);
+				}
+			} else {
+				write(map, stream);
+				stream.flush();
+			}
+		} catch (IOException e) {
+			System.err.println("Unable to write PNG: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the map as a PNG image
+	 *
+	 * @param map the map
+	 * @param target the stream written to
+	 * @throws IOException if the stream cannot be written
+	 */
+	private void write(Mappable map, OutputStream target) throws IOException {
+		DataOutputStream out = new DataOutputStream(target);
+		int width = map.getWidth() * tileSize;
+		int height = map.getHeight() * tileSize;
+
+		out.write(SIGNATURE);
+
+		// 8 bit palette indices, no interlacing
+		byte[] header = new byte[13];
+		putInt(header, 0, width);
+		putInt(header, 4, height);
+		header[8] = 8;
+		header[9] = 3;
+		writeChunk(out, "IHDR", header, 0, header.length);
+
+		Tileable[] tileTypes = map.getTileTypes();
+		byte[] palette = new byte[tileTypes.length * 3];
+		for (int k = 0; k < tileTypes.length; k++) {
+			Color color = tileTypes[k].toColor();
+			palette[k * 3] = (byte) color.getRed();
+			palette[k * 3 + 1] = (byte) color.getGreen();
+			palette[k * 3 + 2] = (byte) color.getBlue();
+		}
+		writeChunk(out, "PLTE", palette, 0, palette.length);
+
+		// each segment holds whole scanlines, and each batch of segments at
+		// most IN_FLIGHT_BYTES unless a single scanline is larger
+		int lineBytes = width + 1;
+		int segmentLines = Math.max(1, SEGMENT_BYTES / lineBytes);
+		int segments = (int) (((long) height + segmentLines - 1) / segmentLines);
+		long segmentBytes = (long) segmentLines * lineBytes;
+		int batch = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+				IN_FLIGHT_BYTES / segmentBytes));
+
+		// the IDAT chunks together hold one zlib stream, starting with its header
+		byte[] zlibHeader = { 0x78, (byte) 0x9c };
+		writeChunk(out, "IDAT", zlibHeader, 0, zlibHeader.length);
+		long adler = 1;
+		byte[] dictionary = new byte[0];
+		Segment[] work = new Segment[batch];
+
+		for (int first = 0; first < segments; first += batch) {
+			int count = Math.min(batch, segments - first);
+			int from = first;
+
+			// build the scanlines of a batch of segments, then compress them
+			IntStream.range(0, count).parallel().forEach(s -> {
+				if (work[s] == null) {
+					work[s] = new Segment();
+				}
+				int fromLine = (from + s) * segmentLines;
+				int toLine = (int) Math.min(height, (long) fromLine + segmentLines);
+				work[s].scan(map, fromLine, toLine, width, tileSize);
+			});
+			byte[] previous = dictionary;
+			IntStream.range(0, count).parallel().forEach(s -> {
+				byte[] history = s == 0 ? previous : work[s - 1].tail();
+				work[s].compress(level, history, from + s == segments - 1);
+			});
+
+			for (int s = 0; s < count; s++) {
+				Segment segment = work[s];
+				if (segment.packedSize > 0) {
+					writeChunk(out, "IDAT", segment.packed, 0, segment.packedSize);
+				}
+				adler = combine(adler, segment.adler, segment.rawSize);
+			}
+			dictionary = work[count - 1].tail();
+		}
+
+		if (segments == 0) {
+			// an empty map still needs a complete zlib stream
+			Segment empty = new Segment();
+			empty.compress(level, dictionary, true);
+			writeChunk(out, "IDAT", empty.packed, 0, empty.packedSize);
+		}
+
+		byte[] checksum = new byte[4];
+		putInt(checksum, 0, (int) adler);
+		writeChunk(out, "IDAT", checksum, 0, checksum.length);
+		writeChunk(out, "IEND", new byte[0], 0, 0);
+		out.flush();
+	}
+
+	/**
+	 * Writes a PNG chunk with its length and CRC
+	 */
+	private static void writeChunk(DataOutputStream out, String type, byte[] data, int offset, int length)
+			throws IOException {
+		byte[] name = type.getBytes("US-ASCII");
+		CRC32 crc = new CRC32();
+		crc.update(name);
+		crc.update(data, offset, length);
+		out.writeInt(length);
+		out.write(name);
+		out.write(data, offset, length);
+		out.writeInt((int) crc.getValue());
+	}
+
+	private static void putInt(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) (value >>> 24);
+		bytes[offset + 1] = (byte) (value >>> 16);
+		bytes[offset + 2] = (byte) (value >>> 8);
+		bytes[offset + 3] = (byte) value;
+	}
+
+	/**
+	 * Returns the Adler-32 checksum of two byte sequences joined together,
+	 * from the checksum of each and the length of the second
+	 */
+	private static long combine(long adler1, long adler2, long length2) {
+		long remainder = length2 % ADLER_BASE;
+		long sum1 = adler1 & 0xffff;
+		long sum2 = (remainder * sum1) % ADLER_BASE;
+		sum1 += (adler2 & 0xffff) + ADLER_BASE - 1;
+		sum2 += ((adler1 >>> 16) & 0xffff) + ((adler2 >>> 16) & 0xffff) + ADLER_BASE - remainder;
+		if (sum1 >= ADLER_BASE) {
+			sum1 -= ADLER_BASE;
+		}
+		if (sum1 >= ADLER_BASE) {
+			sum1 -= ADLER_BASE;
+		}
+		if (sum2 >= 2 * ADLER_BASE) {
+			sum2 -= 2 * ADLER_BASE;
+		}
+		if (sum2 >= ADLER_BASE) {
+			sum2 -= ADLER_BASE;
+		}
+		return (sum2 << 16) | sum1;
+	}
+
+	/**
+	 * A run of scanlines and their compressed form. The buffers are reused
+	 * from one batch to the next.
+	 */
+	private static final class Segment {
+
+		byte[] raw = new byte[0];
+		int rawSize;
+		byte[] packed = new byte[0];
+		int packedSize;
+		long adler;
+		private byte[] ordinals = new byte[0];
+
+		/**
+		 * Builds the scanlines [fromLine, toLine) of the image, each preceded
+		 * by its filter type, which is none. Each map row is read once, and
+		 * its other scanlines are copies of its first in the segment.
+		 */
+		void scan(Mappable map, int fromLine, int toLine, int width, int tileSize) {
+			int lineBytes = width + 1;
+			rawSize = (toLine - fromLine) * lineBytes;
+			if (raw.length < rawSize) {
+				raw = new byte[rawSize];
+			}
+			if (ordinals.length != map.getWidth()) {
+				ordinals = new byte[map.getWidth()];
+			}
+
+			int offset = 0;
+			for (int line = fromLine; line < toLine; line++) {
+				if (line == fromLine || line % tileSize == 0) {
+					map.getTerrainRow(line / tileSize, ordinals);
+					raw[offset] = 0;
+					if (tileSize == 1) {
+						System.arraycopy(ordinals, 0, raw, offset + 1, ordinals.length);
+					} else {
+						for (int i = 0; i < ordinals.length; i++) {
+							int start = offset + 1 + i * tileSize;
+							Arrays.fill(raw, start, start + tileSize, ordinals[i]);
+						}
+					}
+				} else {
+					System.arraycopy(raw, offset - lineBytes, raw, offset, lineBytes);
+				}
+				offset += lineBytes;
+			}
+
+			Adler32 checksum = new Adler32();
+			checksum.update(raw, 0, rawSize);
+			adler = checksum.getValue();
+		}
+
+		/**
+		 * Compresses the scanlines as raw deflate data, ending on a byte
+		 * boundary unless this is the last segment
+		 */
+		void compress(int level, byte[] dictionary, boolean last) {
+			Deflater deflater = new Deflater(level, true);
+			try {
+				if (dictionary.length > 0) {
+					deflater.setDictionary(dictionary);
+				}
+				deflater.setInput(raw, 0, rawSize);
+				if (packed.length < rawSize / 2 + 64) {
+					packed = new byte[rawSize / 2 + 64];
+				}
+				packedSize = 0;
+				if (last) {
+					deflater.finish();
+				}
+				int flush = last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH;
+				while (true) {
+					if (packedSize == packed.length) {
+						packed = Arrays.copyOf(packed, packed.length * 2);
+					}
+					int space = packed.length - packedSize;
+					int written = deflater.deflate(packed, packedSize, space, flush);
+					packedSize += written;
+					// a flush is complete once the output no longer fills the space given
+					if (last ? deflater.finished() : written < space) {
+						break;
+					}
+				}
+			} finally {
+				deflater.end();
+			}
+		}
+
+		/**
+		 * @return the last scanlines, which the next segment may refer back to
+		 */
+		byte[] tail() {
+			int length = Math.min(rawSize, DICTIONARY_BYTES);
+			return Arrays.copyOfRange(raw, rawSize - length, rawSize);
+		}
+	}
+}
@@ -1,6 +1,6 @@
 package view;
 
-import model.TiledMap;
+import model.Mappable;
 
 /**
  * 
@@ -14,7 +14,7 @@ import model.TiledMap;
 public class TestRenderer implements MapRenderer {
 
 	@Override
-	public void render(TiledMap map) {
+	public void render(Mappable map) {
 
 		for (int j = 0; j < map.getHeight(); j++) {
 			for (int i = 0; i < map.getWidth(); i++) {